@@ -0,0 +1,166 @@
+package calcite.adapter.dynamodb;
+
+import calcite.adapter.dynamodb.utils.DynamoDBRowConverterBenchmark;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import org.apache.calcite.DataContext;
+import org.apache.calcite.adapter.java.JavaTypeFactory;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.QueryProvider;
+import org.apache.calcite.schema.SchemaPlus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads a table through {@link DynamoDBTable#scanOrQuery}, from building the attribute maps of the request to
+ * converting the rows, against a client returning canned pages, so only the work of the adapter is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamoDBEnumeratorBenchmark {
+    private static final String TABLE_NAME = "benchmarkTable";
+
+    @Param({"4", "16"})
+    public int columns;
+
+    @Param({"100"})
+    public int itemsPerPage;
+
+    @Param({"10"})
+    public int pages;
+
+    private DynamoDBTable table;
+    private DataContext root;
+    private List<String> attributeNames;
+    private List<String> attributeAliases;
+    private String projectionExpression;
+
+    /**
+     * Client returning the same page of items to every Scan and Query, continuing the stream until the given number
+     * of pages is returned.
+     */
+    static class CannedDynamoDBClient extends AmazonDynamoDBClient {
+        private final List<Map<String, AttributeValue>> items;
+        private final int pages;
+
+        CannedDynamoDBClient(List<Map<String, AttributeValue>> items, int pages) {
+            super(new BasicAWSCredentials("benchmark", "benchmark"));
+            this.items = items;
+            this.pages = pages;
+        }
+
+        private Map<String, AttributeValue> getLastEvaluatedKey(Map<String, AttributeValue> exclusiveStartKey) {
+            int page = exclusiveStartKey == null ? 1 : Integer.parseInt(exclusiveStartKey.get("page").getN()) + 1;
+            return page < pages ? Collections.singletonMap("page", new AttributeValue().withN(Integer.toString(page))) : null;
+        }
+
+        @Override
+        public ScanResult scan(ScanRequest scanRequest) {
+            return new ScanResult().withItems(items).withCount(items.size()).withScannedCount(items.size())
+                    .withLastEvaluatedKey(getLastEvaluatedKey(scanRequest.getExclusiveStartKey()));
+        }
+
+        @Override
+        public QueryResult query(QueryRequest queryRequest) {
+            return new QueryResult().withItems(items).withCount(items.size()).withScannedCount(items.size())
+                    .withLastEvaluatedKey(getLastEvaluatedKey(queryRequest.getExclusiveStartKey()));
+        }
+    }
+
+    @Setup
+    public void setup() {
+        Map<String, AttributeValue> tableSchema = DynamoDBRowConverterBenchmark.createTableSchema(columns);
+        TableDescription description = new TableDescription()
+                .withTableName(TABLE_NAME)
+                .withTableStatus("ACTIVE")
+                .withKeySchema(new KeySchemaElement("col0", KeyType.HASH), new KeySchemaElement("col2", KeyType.RANGE))
+                .withTableSizeBytes(0L)
+                .withItemCount(0L);
+        AmazonDynamoDBClient client = new CannedDynamoDBClient(DynamoDBRowConverterBenchmark.createItems(columns, itemsPerPage), pages);
+        table = new DynamoDBTable(tableSchema, TABLE_NAME, () -> description, client, 0, 1, 1, false, null, 0,
+                tableDescription -> null, 1, tableDescription -> null);
+
+        final AtomicBoolean cancelFlag = new AtomicBoolean();
+        root = new DataContext() {
+            public SchemaPlus getRootSchema() {
+                return null;
+            }
+
+            public JavaTypeFactory getTypeFactory() {
+                return null;
+            }
+
+            public QueryProvider getQueryProvider() {
+                return null;
+            }
+
+            public Object get(String name) {
+                return DataContext.Variable.CANCEL_FLAG.camelName.equals(name) ? cancelFlag : null;
+            }
+        };
+
+        attributeNames = new ArrayList<>();
+        attributeAliases = new ArrayList<>();
+        for (int i = 0; i < columns; i++) {
+            attributeNames.add("col" + i);
+            attributeAliases.add("#a" + i);
+        }
+        projectionExpression = String.join(", ", attributeAliases);
+    }
+
+    private void drain(Enumerator<Object> enumerator, Blackhole blackhole) {
+        try {
+            while (enumerator.moveNext()) {
+                blackhole.consume(enumerator.current());
+            }
+        } finally {
+            enumerator.close();
+        }
+    }
+
+    @Benchmark
+    public void scan(Blackhole blackhole) {
+        drain(table.scanOrQuery(root, attributeNames, projectionExpression,
+                Collections.singletonList("#a1 > :val1_"), Collections.singletonList(":val1_"), Collections.singletonList(0.0),
+                attributeAliases, attributeNames, Collections.emptyList(), null, Collections.emptyList(), 0, -1, true, false)
+                .enumerator(), blackhole);
+    }
+
+    @Benchmark
+    public void query(Blackhole blackhole) {
+        drain(table.scanOrQuery(root, attributeNames, projectionExpression,
+                Collections.singletonList("#a1 > :val2_"), Arrays.asList(":val1_", ":val2_"), Arrays.asList("value0", 0.0),
+                attributeAliases, attributeNames, Collections.singletonList("#a0 = :val1_"), null, Collections.emptyList(), 0, -1, true, false)
+                .enumerator(), blackhole);
+    }
+}
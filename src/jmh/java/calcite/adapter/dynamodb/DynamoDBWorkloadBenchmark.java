@@ -0,0 +1,487 @@
+package calcite.adapter.dynamodb;
+
+import calcite.adapter.dynamodb.tools.AddTableSchema;
+import calcite.adapter.dynamodb.tools.CreateMetaTable;
+import calcite.adapter.dynamodb.utils.DynamoDBLatencyHistogram;
+import com.amazonaws.Request;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.handlers.RequestHandler2;
+import com.amazonaws.http.HttpResponse;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeDefinition;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.CreateTableRequest;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughput;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import org.apache.calcite.jdbc.CalciteConnection;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * End to end workload against local DynamoDB: loads a synthetic table, then runs a fixed mix of SQL query classes
+ * through the JDBC driver and reports, per class, the throughput, the p50/p99 latencies, and the DynamoDB requests
+ * and bytes per query, so that runs can be compared with each other.
+ *
+ * <p>The table "workload" has {@code items} items spread over {@code hashKeys} users. The user of an item is drawn
+ * as {@code hashKeys * u^skew} for a uniform {@code u}, so a skew above 1 puts most items on the first users. Every
+ * item has a numberCol between 0 and 999, a stringCol of 100 distinct values, a payload of {@code payloadBytes}
+ * characters and {@code extraColumns} more string attributes. The table "workloadUsers" has a segment per user, one
+ * in ten of them "gold", to join with.
+ *
+ * <p>Options are system properties prefixed with "workload.", e.g. {@code -Dworkload.items=2000000}; see
+ * {@link #main(String[])} for the defaults.
+ */
+public class DynamoDBWorkloadBenchmark {
+    private static final String META_TABLE_NAME = "workloadMeta";
+    private static final String TABLE_NAME = "workload";
+    private static final String USER_TABLE_NAME = "workloadUsers";
+    private static final int MAX_BATCH_WRITE_ITEMS = 25;
+
+    private final int items;
+    private final int hashKeys;
+    private final double skew;
+    private final int payloadBytes;
+    private final int extraColumns;
+    private final int loadThreads;
+    private final int threads;
+    private final int warmup;
+    private final int iterations;
+    private final int scanIterations;
+
+    private final AmazonDynamoDBClient loadClient;
+    private final AmazonDynamoDBClient queryClient;
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder requestBytes = new LongAdder();
+    private final LongAdder responseBytes = new LongAdder();
+
+    private int[] hashKeyItemCounts;
+    private List<Integer> loadedHashKeys;
+    private DynamoDBSchema schema;
+
+    /**
+     * A class of queries of the workload: the SQL of the next query, and how many times it runs.
+     */
+    private static class QueryClass {
+        final String name;
+        final int iterations;
+        final Function<Random, String> sql;
+
+        QueryClass(String name, int iterations, Function<Random, String> sql) {
+            this.name = name;
+            this.iterations = iterations;
+            this.sql = sql;
+        }
+    }
+
+    /**
+     * Measurements of a query class.
+     */
+    private static class Result {
+        final String name;
+        final int queries;
+        final long rows;
+        final long elapsedNanos;
+        final DynamoDBLatencyHistogram latencies;
+        final long requests;
+        final long bytes;
+
+        Result(String name, int queries, long rows, long elapsedNanos, DynamoDBLatencyHistogram latencies, long requests, long bytes) {
+            this.name = name;
+            this.queries = queries;
+            this.rows = rows;
+            this.elapsedNanos = elapsedNanos;
+            this.latencies = latencies;
+            this.requests = requests;
+            this.bytes = bytes;
+        }
+
+        double getQueriesPerSecond() {
+            return queries * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+    }
+
+    DynamoDBWorkloadBenchmark(AmazonDynamoDBClient loadClient) {
+        this.items = Integer.getInteger("workload.items", 100000);
+        this.hashKeys = Integer.getInteger("workload.hashKeys", 1000);
+        this.skew = Double.parseDouble(System.getProperty("workload.skew", "1"));
+        this.payloadBytes = Integer.getInteger("workload.payloadBytes", 100);
+        this.extraColumns = Integer.getInteger("workload.extraColumns", 0);
+        this.loadThreads = Integer.getInteger("workload.loadThreads", 8);
+        this.threads = Integer.getInteger("workload.threads", 1);
+        this.warmup = Integer.getInteger("workload.warmup", 3);
+        this.iterations = Integer.getInteger("workload.iterations", 200);
+        this.scanIterations = Integer.getInteger("workload.scanIterations", 5);
+
+        this.loadClient = loadClient;
+        this.queryClient = createClient();
+        this.queryClient.addRequestHandler(new RequestHandler2() {
+            @Override
+            public void beforeRequest(Request<?> request) {
+                requestCount.increment();
+                requestBytes.add(getContentLength(request.getHeaders()));
+            }
+
+            @Override
+            public HttpResponse beforeUnmarshalling(Request<?> request, HttpResponse httpResponse) {
+                responseBytes.add(getContentLength(httpResponse.getHeaders()));
+                return httpResponse;
+            }
+        });
+    }
+
+    /**
+     * Returns a client of local DynamoDB, which accepts any credentials.
+     */
+    private static AmazonDynamoDBClient createClient() {
+        AmazonDynamoDBClient client = new AmazonDynamoDBClient(new BasicAWSCredentials("workload", "workload"));
+        client.setEndpoint(UnitTestDynamoDBClientHelper.LOCAL_END_POINT);
+        return client;
+    }
+
+    private static long getContentLength(Map<String, String> headers) {
+        for (Map.Entry<String, String> header : headers.entrySet()) {
+            if (header.getKey().equalsIgnoreCase("Content-Length")) {
+                return Long.parseLong(header.getValue());
+            }
+        }
+        return 0;
+    }
+
+    private static String formatSortKey(int sortKey) {
+        return String.format("%08d", sortKey);
+    }
+
+    private static String hashKey(int user) {
+        return "user" + user;
+    }
+
+    /**
+     * Creates the tables and writes the items with parallel BatchWriteItem calls.
+     */
+    void load() throws Exception {
+        CreateMetaTable.createTable(loadClient, META_TABLE_NAME);
+        Map<String, ScalarAttributeType> tableSchema = new HashMap<>();
+        tableSchema.put("hashKey", ScalarAttributeType.S);
+        tableSchema.put("sortKey", ScalarAttributeType.S);
+        tableSchema.put("numberCol", ScalarAttributeType.N);
+        tableSchema.put("stringCol", ScalarAttributeType.S);
+        tableSchema.put("payload", ScalarAttributeType.S);
+        for (int i = 0; i < extraColumns; i++) {
+            tableSchema.put("col" + i, ScalarAttributeType.S);
+        }
+        AddTableSchema.addTableSchema(loadClient, META_TABLE_NAME, TABLE_NAME, tableSchema);
+
+        Map<String, ScalarAttributeType> userTableSchema = new HashMap<>();
+        userTableSchema.put("hashKey", ScalarAttributeType.S);
+        userTableSchema.put("segment", ScalarAttributeType.S);
+        AddTableSchema.addTableSchema(loadClient, META_TABLE_NAME, USER_TABLE_NAME, userTableSchema);
+
+        createTable(TABLE_NAME, true);
+        createTable(USER_TABLE_NAME, false);
+
+        char[] payload = new char[payloadBytes];
+        Arrays.fill(payload, 'x');
+        String payloadValue = new String(payload);
+
+        long startNanos = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(loadThreads);
+        List<Future<?>> batches = new ArrayList<>();
+        Random random = new Random(42);
+        hashKeyItemCounts = new int[hashKeys];
+
+        List<WriteRequest> batch = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            int user = Math.min(hashKeys - 1, (int) (hashKeys * Math.pow(random.nextDouble(), skew)));
+            PutRequest put = new PutRequest();
+            put.addItemEntry("hashKey", new AttributeValue(hashKey(user)));
+            put.addItemEntry("sortKey", new AttributeValue(formatSortKey(hashKeyItemCounts[user]++)));
+            put.addItemEntry("numberCol", new AttributeValue().withN(Integer.toString(random.nextInt(1000))));
+            put.addItemEntry("stringCol", new AttributeValue("category" + random.nextInt(100)));
+            if (payloadBytes > 0) {
+                put.addItemEntry("payload", new AttributeValue(payloadValue));
+            }
+            for (int j = 0; j < extraColumns; j++) {
+                put.addItemEntry("col" + j, new AttributeValue("value" + j));
+            }
+
+            batch.add(new WriteRequest(put));
+            if (batch.size() == MAX_BATCH_WRITE_ITEMS || i == items - 1) {
+                List<WriteRequest> writeRequests = batch;
+                batches.add(executor.submit(() -> write(TABLE_NAME, writeRequests)));
+                batch = new ArrayList<>();
+            }
+        }
+
+        loadedHashKeys = new ArrayList<>();
+        for (int user = 0; user < hashKeys; user++) {
+            PutRequest put = new PutRequest();
+            put.addItemEntry("hashKey", new AttributeValue(hashKey(user)));
+            put.addItemEntry("segment", new AttributeValue(user % 10 == 0 ? "gold" : "standard"));
+            batch.add(new WriteRequest(put));
+            if (batch.size() == MAX_BATCH_WRITE_ITEMS || user == hashKeys - 1) {
+                List<WriteRequest> writeRequests = batch;
+                batches.add(executor.submit(() -> write(USER_TABLE_NAME, writeRequests)));
+                batch = new ArrayList<>();
+            }
+
+            if (hashKeyItemCounts[user] > 0) {
+                loadedHashKeys.add(user);
+            }
+        }
+
+        try {
+            for (Future<?> future : batches) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        System.out.printf("Loaded %d items over %d hash keys (%d with items) in %.1f s%n", items, hashKeys, loadedHashKeys.size(),
+                (System.nanoTime() - startNanos) / 1e9);
+    }
+
+    private void createTable(String tableName, boolean sortKey) {
+        CreateTableRequest createTableRequest = new CreateTableRequest().withTableName(tableName)
+                .withProvisionedThroughput(new ProvisionedThroughput(1000L, 1000L));
+        if (sortKey) {
+            createTableRequest.setKeySchema(Arrays.asList(new KeySchemaElement("hashKey", KeyType.HASH), new KeySchemaElement("sortKey", KeyType.RANGE)));
+            createTableRequest.setAttributeDefinitions(Arrays.asList(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("sortKey", ScalarAttributeType.S)));
+        } else {
+            createTableRequest.setKeySchema(Collections.singletonList(new KeySchemaElement("hashKey", KeyType.HASH)));
+            createTableRequest.setAttributeDefinitions(Collections.singletonList(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        }
+        loadClient.createTable(createTableRequest);
+    }
+
+    private void write(String tableName, List<WriteRequest> writeRequests) {
+        Map<String, List<WriteRequest>> requestItems = Collections.singletonMap(tableName, writeRequests);
+        for (int retry = 0; requestItems != null && !requestItems.isEmpty(); retry++) {
+            if (retry > 0) {
+                try {
+                    Thread.sleep(Math.min(1000, 10L << retry));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+
+            BatchWriteItemResult result = loadClient.batchWriteItem(new BatchWriteItemRequest().withRequestItems(requestItems));
+            requestItems = result.getUnprocessedItems();
+        }
+    }
+
+    /**
+     * Returns a user having items, the users having more items being more likely.
+     */
+    private int randomHashKey(Random random) {
+        while (true) {
+            int user = Math.min(hashKeys - 1, (int) (hashKeys * Math.pow(random.nextDouble(), skew)));
+            if (hashKeyItemCounts[user] > 0) {
+                return user;
+            }
+        }
+    }
+
+    List<QueryClass> getQueryClasses() {
+        List<QueryClass> queryClasses = new ArrayList<>();
+        queryClasses.add(new QueryClass("pointLookup", iterations, random -> {
+            int user = randomHashKey(random);
+            return "select numberCol, stringCol from " + TABLE_NAME + " where hashKey = '" + hashKey(user)
+                    + "' and sortKey = '" + formatSortKey(random.nextInt(hashKeyItemCounts[user])) + "'";
+        }));
+        queryClasses.add(new QueryClass("keyRange", iterations, random -> {
+            int user = randomHashKey(random);
+            int from = random.nextInt(hashKeyItemCounts[user]);
+            return "select sortKey, numberCol from " + TABLE_NAME + " where hashKey = '" + hashKey(user)
+                    + "' and sortKey >= '" + formatSortKey(from) + "' and sortKey <= '" + formatSortKey(from + 9) + "'";
+        }));
+        queryClasses.add(new QueryClass("orFanOut", iterations, random -> {
+            StringBuilder sql = new StringBuilder("select hashKey, sortKey, numberCol from " + TABLE_NAME + " where ");
+            for (int i = 0; i < 10; i++) {
+                sql.append(i == 0 ? "" : " or ").append("hashKey = '").append(hashKey(randomHashKey(random))).append("'");
+            }
+            return sql.toString();
+        }));
+        queryClasses.add(new QueryClass("filteredScan", scanIterations, random ->
+                "select hashKey, sortKey from " + TABLE_NAME + " where numberCol = " + random.nextInt(1000)));
+        queryClasses.add(new QueryClass("count", scanIterations, random ->
+                "select count(*) as c from " + TABLE_NAME));
+        queryClasses.add(new QueryClass("join", scanIterations, random ->
+                "select u.segment, count(*) as c from " + USER_TABLE_NAME + " u join " + TABLE_NAME + " w on w.hashKey = u.hashKey"
+                        + " where u.segment = 'gold' group by u.segment"));
+        return queryClasses;
+    }
+
+    private Connection connect() throws SQLException {
+        Properties info = new Properties();
+        info.put("unquotedCasing", "UNCHANGED");
+        info.put("caseSensitive", "true");
+        Connection connection = DriverManager.getConnection("jdbc:calcite:", info);
+        CalciteConnection calciteConnection = connection.unwrap(CalciteConnection.class);
+        calciteConnection.getRootSchema().add("WORKLOAD", schema);
+        calciteConnection.setSchema("WORKLOAD");
+        return connection;
+    }
+
+    private static long execute(Statement statement, String sql) throws SQLException {
+        long rows = 0;
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Runs the queries of a class on {@code threads} threads, each with its own connection, after warming it up.
+     */
+    Result run(QueryClass queryClass) throws Exception {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            Random random = new Random(7);
+            for (int i = 0; i < warmup; i++) {
+                execute(statement, queryClass.sql.apply(random));
+            }
+        }
+
+        DynamoDBLatencyHistogram latencies = new DynamoDBLatencyHistogram();
+        AtomicInteger remaining = new AtomicInteger(queryClass.iterations);
+        AtomicLong rows = new AtomicLong();
+        long requestsBefore = requestCount.sum();
+        long bytesBefore = requestBytes.sum() + responseBytes.sum();
+        long startNanos = System.nanoTime();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> {
+                    Random random = ThreadLocalRandom.current();
+                    try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+                        while (remaining.getAndDecrement() > 0) {
+                            String sql = queryClass.sql.apply(random);
+                            long queryStartNanos = System.nanoTime();
+                            rows.addAndGet(execute(statement, sql));
+                            latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - queryStartNanos));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        return new Result(queryClass.name, queryClass.iterations, rows.get(), System.nanoTime() - startNanos, latencies,
+                requestCount.sum() - requestsBefore, requestBytes.sum() + responseBytes.sum() - bytesBefore);
+    }
+
+    void run(PrintWriter csv) throws Exception {
+        Map<String, Object> operand = new HashMap<>();
+        operand.put("local", true);
+        schema = new DynamoDBSchema(queryClient, META_TABLE_NAME, operand);
+
+        System.out.printf("%-14s %8s %10s %10s %10s %10s %12s %12s%n",
+                "query", "queries", "rows/q", "q/s", "p50 ms", "p99 ms", "requests/q", "KB/q");
+        for (QueryClass queryClass : getQueryClasses()) {
+            Result result = run(queryClass);
+            System.out.printf("%-14s %8d %10.1f %10.1f %10.2f %10.2f %12.1f %12.1f%n",
+                    result.name, result.queries, (double) result.rows / result.queries, result.getQueriesPerSecond(),
+                    result.latencies.getPercentileMicros(0.5) / 1000.0, result.latencies.getPercentileMicros(0.99) / 1000.0,
+                    (double) result.requests / result.queries, result.bytes / 1024.0 / result.queries);
+            if (csv != null) {
+                csv.printf("%s,%d,%d,%s,%d,%d,%d,%d,%d,%.3f,%d,%d,%d,%d%n", result.name, items, hashKeys, skew, payloadBytes,
+                        extraColumns, threads, result.queries, result.rows, result.getQueriesPerSecond(),
+                        result.latencies.getPercentileMicros(0.5), result.latencies.getPercentileMicros(0.99), result.requests, result.bytes);
+                csv.flush();
+            }
+        }
+    }
+
+    /**
+     * Runs the workload. The options, as system properties, and their defaults:
+     * <ul>
+     * <li>workload.items=100000, workload.hashKeys=1000, workload.skew=1 (uniform),
+     * workload.payloadBytes=100, workload.extraColumns=0: the generated table;</li>
+     * <li>workload.loadThreads=8: the parallel BatchWriteItem calls of the load;</li>
+     * <li>workload.threads=1: the concurrent connections running the queries;</li>
+     * <li>workload.warmup=3, workload.iterations=200, workload.scanIterations=5: the queries of every class, fewer
+     * for the classes scanning the whole table;</li>
+     * <li>workload.heap=2g: the heap of local DynamoDB;</li>
+     * <li>workload.output: a CSV file the results are appended to.</li>
+     * </ul>
+     */
+    public static void main(String[] args) throws Exception {
+        UnitTestDynamoDBClientHelper helper = new UnitTestDynamoDBClientHelper();
+        helper.before(System.getProperty("workload.heap", "2g"));
+        AmazonDynamoDBClient loadClient = createClient();
+
+        String output = System.getProperty("workload.output");
+        boolean newOutput = output != null && !new File(output).exists();
+        try (PrintWriter csv = output == null ? null : new PrintWriter(new FileWriter(output, true))) {
+            if (newOutput) {
+                csv.println("query,items,hashKeys,skew,payloadBytes,extraColumns,threads,queries,rows,queriesPerSecond,"
+                        + "p50Micros,p99Micros,requests,bytes");
+            }
+
+            // local DynamoDB takes a moment to accept connections.
+            waitForDynamoDBLocal(loadClient);
+
+            DynamoDBWorkloadBenchmark benchmark = new DynamoDBWorkloadBenchmark(loadClient);
+            benchmark.load();
+            benchmark.run(csv);
+        } finally {
+            helper.after();
+        }
+    }
+
+    private static void waitForDynamoDBLocal(AmazonDynamoDBClient client) throws IOException, InterruptedException {
+        for (int retry = 0; ; retry++) {
+            try {
+                client.listTables();
+                return;
+            } catch (RuntimeException e) {
+                if (retry == 50) {
+                    throw new IOException("local DynamoDB did not start", e);
+                }
+                Thread.sleep(200);
+            }
+        }
+    }
+}
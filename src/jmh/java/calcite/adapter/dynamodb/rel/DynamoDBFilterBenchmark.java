@@ -0,0 +1,103 @@
+package calcite.adapter.dynamodb.rel;
+
+import com.google.common.collect.Iterators;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translates filter conditions into DynamoDB key condition and filter expressions, as {@link DynamoDBFilter} does
+ * when a query is implemented.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamoDBFilterBenchmark {
+    private static final List<String> FIELD_NAMES = Arrays.asList("hashKey", "sortKey", "numberCol", "stringCol");
+
+    /**
+     * The number of hash keys of the OR condition.
+     */
+    @Param({"1", "16", "100"})
+    public int hashKeys;
+
+    private RexNode queryCondition;
+    private RexNode scanCondition;
+
+    @Setup
+    public void setup() {
+        RelDataTypeFactory typeFactory = new JavaTypeFactoryImpl();
+        RexBuilder rexBuilder = new RexBuilder(typeFactory);
+        RelDataType stringType = typeFactory.createSqlType(SqlTypeName.VARCHAR);
+        RelDataType numberType = typeFactory.createSqlType(SqlTypeName.DOUBLE);
+        RexNode hashKey = rexBuilder.makeInputRef(stringType, 0);
+        RexNode sortKey = rexBuilder.makeInputRef(stringType, 1);
+        RexNode numberCol = rexBuilder.makeInputRef(numberType, 2);
+        RexNode stringCol = rexBuilder.makeInputRef(stringType, 3);
+
+        // hashKey = 'user0' and sortKey >= '2016-01-01' and numberCol > 5 or hashKey = 'user1' and ...
+        List<RexNode> queries = new ArrayList<>();
+        for (int i = 0; i < hashKeys; i++) {
+            queries.add(rexBuilder.makeCall(SqlStdOperatorTable.AND,
+                    rexBuilder.makeCall(SqlStdOperatorTable.EQUALS, hashKey, rexBuilder.makeLiteral("user" + i)),
+                    rexBuilder.makeCall(SqlStdOperatorTable.GREATER_THAN_OR_EQUAL, sortKey, rexBuilder.makeLiteral("2016-01-01")),
+                    rexBuilder.makeCall(SqlStdOperatorTable.GREATER_THAN, numberCol, rexBuilder.makeExactLiteral(BigDecimal.valueOf(5)))));
+        }
+        queryCondition = queries.size() == 1 ? queries.get(0) : rexBuilder.makeCall(SqlStdOperatorTable.OR, queries);
+
+        // numberCol < 0 or stringCol = 'event0' or ...
+        List<RexNode> filters = new ArrayList<>();
+        filters.add(rexBuilder.makeCall(SqlStdOperatorTable.LESS_THAN, numberCol, rexBuilder.makeExactLiteral(BigDecimal.ZERO)));
+        for (int i = 0; i < hashKeys; i++) {
+            filters.add(rexBuilder.makeCall(SqlStdOperatorTable.EQUALS, stringCol, rexBuilder.makeLiteral("event" + i)));
+        }
+        scanCondition = rexBuilder.makeCall(SqlStdOperatorTable.OR, filters);
+    }
+
+    @Benchmark
+    public void translateQueries(Blackhole blackhole) {
+        DynamoDBRel.Implementor implementor = new DynamoDBRel.Implementor();
+        DynamoDBFilter.Translator.Result result = new DynamoDBFilter.Translator(FIELD_NAMES, "hashKey", "sortKey").translateCondition(queryCondition);
+        for (DynamoDBFilter.Translator.AndFilters filter : result.filters) {
+            blackhole.consume(DynamoDBFilter.generateKeyConditionExpression(implementor, filter.hashKeyFilter, filter.sortKeyFilters));
+            blackhole.consume(DynamoDBFilter.generateFilterExpression(implementor, Arrays.asList(filter), andFilters -> andFilters.otherFilters.iterator()));
+        }
+        blackhole.consume(result.expressionAttributeValues);
+    }
+
+    @Benchmark
+    public void translateScan(Blackhole blackhole) {
+        DynamoDBRel.Implementor implementor = new DynamoDBRel.Implementor();
+        DynamoDBFilter.Translator.Result result = new DynamoDBFilter.Translator(FIELD_NAMES, "hashKey", "sortKey").translateCondition(scanCondition);
+        blackhole.consume(DynamoDBFilter.generateFilterExpression(implementor, result.filters,
+                andFilters -> Iterators.concat(
+                        Iterators.concat(andFilters.otherFilters.iterator(), Arrays.asList(andFilters.hashKeyFilter).iterator()),
+                        andFilters.sortKeyFilters.iterator())));
+        blackhole.consume(result.expressionAttributeValues);
+    }
+}
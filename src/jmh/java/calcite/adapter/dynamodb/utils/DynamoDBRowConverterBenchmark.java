@@ -0,0 +1,109 @@
+package calcite.adapter.dynamodb.utils;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Converts a canned page of items into rows, as an enumerator does for every item it returns.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamoDBRowConverterBenchmark {
+    private static final String[] COLUMN_TYPES = {"S", "N", "BIGINT", "DECIMAL(12,2)", "BOOLEAN", "TIMESTAMP", "INTEGER", "S"};
+
+    @Param({"1", "4", "16"})
+    public int columns;
+
+    @Param({"100"})
+    public int itemsPerPage;
+
+    private Map<String, AttributeValue> tableSchema;
+    private List<String> attributeNames;
+    private List<Map<String, AttributeValue>> page;
+    private DynamoDBRowConverter rowConverter;
+
+    @Setup
+    public void setup() {
+        tableSchema = createTableSchema(columns);
+        attributeNames = new ArrayList<>(tableSchema.keySet());
+        page = createItems(columns, itemsPerPage);
+        rowConverter = new DynamoDBRowConverter(attributeNames, tableSchema);
+    }
+
+    /**
+     * Returns the meta item of a table of the given number of columns, named "col0", "col1"...
+     */
+    public static Map<String, AttributeValue> createTableSchema(int columns) {
+        Map<String, AttributeValue> tableSchema = new HashMap<>();
+        for (int i = 0; i < columns; i++) {
+            tableSchema.put("col" + i, new AttributeValue(COLUMN_TYPES[i % COLUMN_TYPES.length]));
+        }
+        return tableSchema;
+    }
+
+    /**
+     * Returns items with a value of the declared type for every column of {@link #createTableSchema(int)}.
+     */
+    public static List<Map<String, AttributeValue>> createItems(int columns, int count) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            for (int j = 0; j < columns; j++) {
+                item.put("col" + j, createValue(COLUMN_TYPES[j % COLUMN_TYPES.length], i));
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    public static AttributeValue createValue(String columnType, int i) {
+        switch (columnType) {
+            case "S":
+                return new AttributeValue("value" + i);
+            case "BOOLEAN":
+                return new AttributeValue().withBOOL(i % 2 == 0);
+            case "DECIMAL(12,2)":
+                return new AttributeValue().withN(i + ".25");
+            case "TIMESTAMP":
+                return new AttributeValue().withN(Long.toString(1451606400000L + i));
+            default:
+                return new AttributeValue().withN(Integer.toString(i));
+        }
+    }
+
+    @Benchmark
+    public void convertPage(Blackhole blackhole) {
+        for (Map<String, AttributeValue> item : page) {
+            blackhole.consume(rowConverter.convert(item));
+        }
+    }
+
+    /**
+     * The converter is built once per query.
+     */
+    @Benchmark
+    public DynamoDBRowConverter createRowConverter() {
+        return new DynamoDBRowConverter(attributeNames, tableSchema);
+    }
+}
@@ -0,0 +1,52 @@
+package calcite.adapter.dynamodb.utils;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes an attribute value of every column type, and encodes its Java value back, as done for every literal of a
+ * filter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DynamoDBTypeConverterBenchmark {
+    @Param({"S", "N", "INTEGER", "BIGINT", "DECIMAL(12,2)", "BOOLEAN", "TIMESTAMP"})
+    public String columnType;
+
+    private AttributeValue attributeValue;
+    private DynamoDBRowConverter.AttributeDecoder decoder;
+    private Object value;
+
+    @Setup
+    public void setup() {
+        attributeValue = DynamoDBRowConverterBenchmark.createValue(columnType, 12345);
+        decoder = DynamoDBTypeConverter.toAttributeDecoder(DynamoDBColumnType.parse(columnType));
+        value = decoder.decode(attributeValue);
+    }
+
+    @Benchmark
+    public Object decode() {
+        return decoder.decode(attributeValue);
+    }
+
+    @Benchmark
+    public AttributeValue encode() {
+        return DynamoDBTypeConverter.toDynamoDBAttributeValue(value);
+    }
+}
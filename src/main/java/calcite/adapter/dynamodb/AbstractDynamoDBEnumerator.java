@@ -1,62 +1,459 @@
 package calcite.adapter.dynamodb;
 
+import calcite.adapter.dynamodb.utils.DynamoDBExecutorUtil;
+import calcite.adapter.dynamodb.utils.DynamoDBMetrics;
+import calcite.adapter.dynamodb.utils.DynamoDBCapacityThrottle;
+import calcite.adapter.dynamodb.utils.DynamoDBRowConverter;
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsync;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
 import org.apache.calcite.linq4j.Enumerator;
 
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Base class of the DynamoDB enumerators.
+ *
+ * <p>A request is made of one or more independent streams of pages (scan segments, queries of the key conditions),
+ * each stream following {@code LastEvaluatedKey} until it is exhausted. When {@code prefetchPages} is positive the
+ * streams are fetched in the background into a bounded buffer, so the next pages are already on their way while the
+ * current one is consumed, and several streams are fetched in parallel. Otherwise the pages are fetched on demand by
+ * the consuming thread, one stream after another, so no request is sent for rows that are not read.
+ *
+ * <p>With an {@link AmazonDynamoDBAsync} client the prefetched requests are sent on the thread pool of the client
+ * instead, and the completion of a page sends the request of the next one, so no thread is held by a statement while
+ * its requests are in flight or its buffer is full.
+ */
 public abstract class AbstractDynamoDBEnumerator implements Enumerator<Object> {
+    /**
+     * Marker put into a page buffer by a background worker once it has no more pages to put into it.
+     */
+    private static final List<Map<String, AttributeValue>> END_OF_PAGES = Collections.emptyList();
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private static final Pattern ATTRIBUTE_ALIAS_PATTERN = Pattern.compile("#[A-Za-z0-9_]+");
+
     protected AmazonDynamoDBClient dynamoDBClient;
-    private AtomicBoolean cancelFlag;
-    private Map<String, AttributeValue> dynamoDBTableSchema;
+    protected AtomicBoolean cancelFlag;
+    private DynamoDBRowConverter rowConverter;
 
     protected String tableName;
     protected String projectionExpression;
     protected List<String> filterExpressions;
     protected List<String> keyConditionExpressions;
     protected Map<String, AttributeValue> expressionAttributeMap;
+    protected Map<String, String> attributeNameMap;
+
+    private final int prefetchPages;
+
+    /**
+     * Whether the requests only count the matching items, see {@link #count()}.
+     */
+    protected boolean selectCount = false;
+
+    /**
+     * Read capacity budget of the table, null if unlimited.
+     */
+    protected DynamoDBCapacityThrottle readThrottle = null;
+
+    private DynamoDBMetrics.RequestMetrics metrics = null;
+
+    private long offset = 0;
+    private long limit = -1;
+    private final AtomicLong fetchedRows = new AtomicLong();
+    private final AtomicLong scannedRows = new AtomicLong();
+    private long returnedRows;
 
     protected List<Map<String, AttributeValue>> cachedItems = null;
 
     private int currentItemIndex = -1;
+    private boolean finished;
+    private boolean fetchOnDemand;
 
-    public AbstractDynamoDBEnumerator(AtomicBoolean cancelFlag, AmazonDynamoDBClient dynamoDBClient, String tableName, Map<String, AttributeValue> dynamoDBTableSchema,
-                                      String projectionExpression, List<String> filterExpressions, List<String> keyConditionExpressions, Map<String, AttributeValue> expressionAttributeMap) {
+    private PageSource pagePipeline = null;
+    private int currentStream;
+    private Map<String, AttributeValue> exclusiveStartKey;
+
+    public AbstractDynamoDBEnumerator(AtomicBoolean cancelFlag, AmazonDynamoDBClient dynamoDBClient, String tableName, DynamoDBRowConverter rowConverter,
+                                      String projectionExpression, List<String> filterExpressions, List<String> keyConditionExpressions, Map<String, AttributeValue> expressionAttributeMap,
+                                      Map<String, String> attributeNameMap, int prefetchPages) {
         this.cancelFlag = cancelFlag;
         this.dynamoDBClient = dynamoDBClient;
         this.tableName = tableName;
-        this.dynamoDBTableSchema = dynamoDBTableSchema;
+        this.rowConverter = rowConverter;
 
         this.projectionExpression = projectionExpression;
         this.filterExpressions = filterExpressions;
         this.keyConditionExpressions = keyConditionExpressions;
         this.expressionAttributeMap = expressionAttributeMap;
+        this.attributeNameMap = attributeNameMap;
+
+        this.prefetchPages = prefetchPages;
 
+        getMetrics().recordStatement();
         reset();
     }
 
-    protected abstract void fetchItems();
+    /**
+     * A page of items returned by DynamoDB, how many items were read to return them, and the key to continue the
+     * stream from. A page of a {@code Select.COUNT} request only has the number of matching items.
+     */
+    protected static class Page {
+        final List<Map<String, AttributeValue>> items;
+        final Map<String, AttributeValue> lastEvaluatedKey;
+        final int scannedCount;
+        final int count;
+        Double consumedCapacity = null;
+
+        public Page(List<Map<String, AttributeValue>> items, Map<String, AttributeValue> lastEvaluatedKey) {
+            this(items, lastEvaluatedKey, items.size());
+        }
 
-    protected abstract boolean finished();
+        public Page(List<Map<String, AttributeValue>> items, Map<String, AttributeValue> lastEvaluatedKey, Integer scannedCount) {
+            this(items, lastEvaluatedKey, scannedCount, items.size());
+        }
 
-    protected abstract void prepareNextFetch();
+        private Page(List<Map<String, AttributeValue>> items, Map<String, AttributeValue> lastEvaluatedKey, Integer scannedCount, int count) {
+            this.items = items;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+            this.scannedCount = scannedCount == null ? count : scannedCount;
+            this.count = count;
+        }
 
-    protected abstract void resetStatus();
+        public static Page counted(Integer count, Map<String, AttributeValue> lastEvaluatedKey, Integer scannedCount) {
+            return new Page(Collections.emptyList(), lastEvaluatedKey, scannedCount, count == null ? 0 : count);
+        }
 
-    public Map<String, AttributeValue> next() {
-        if (currentItemIndex < cachedItems.size()) {
-            return cachedItems.get(currentItemIndex);
-        } else if (!finished()) {
-            currentItemIndex = 0;
+        /**
+         * Sets the read capacity units the request of the page consumed.
+         */
+        Page withConsumedCapacity(ConsumedCapacity consumedCapacity) {
+            if (consumedCapacity != null && consumedCapacity.getCapacityUnits() != null) {
+                this.consumedCapacity = (this.consumedCapacity == null ? 0 : this.consumedCapacity) + consumedCapacity.getCapacityUnits();
+            }
+            return this;
+        }
+
+        /**
+         * Returns the read capacity units the request consumed. If DynamoDB did not return them, every item read is
+         * taken as an eventually consistent read of up to 4 KB: half a unit.
+         */
+        double getConsumedCapacity() {
+            return consumedCapacity != null ? consumedCapacity : Math.max(1, scannedCount) * 0.5;
+        }
+
+        boolean isLast() {
+            return lastEvaluatedKey == null || lastEvaluatedKey.isEmpty();
+        }
+    }
+
+    /**
+     * Returns the attribute name placeholders the given expressions use, or null if they use none, as DynamoDB rejects
+     * placeholders a request does not use.
+     */
+    protected Map<String, String> getExpressionAttributeNames(String... expressions) {
+        Map<String, String> expressionAttributeNames = new HashMap<>();
+        for (String expression : expressions) {
+            if (expression == null) {
+                continue;
+            }
+
+            Matcher matcher = ATTRIBUTE_ALIAS_PATTERN.matcher(expression);
+            while (matcher.find()) {
+                String attributeName = attributeNameMap.get(matcher.group());
+                if (attributeName != null) {
+                    expressionAttributeNames.put(matcher.group(), attributeName);
+                }
+            }
+        }
+
+        return expressionAttributeNames.isEmpty() ? null : expressionAttributeNames;
+    }
 
-            prepareNextFetch();
-            fetchItems();
+    /**
+     * Returns the name of the DynamoDB operation of the requests, e.g. "Scan", which their metrics are recorded under.
+     */
+    protected abstract String getOperationName();
 
-            return next();
+    protected DynamoDBMetrics.RequestMetrics getMetrics() {
+        if (metrics == null) {
+            metrics = DynamoDBMetrics.getRequestMetrics(tableName, getOperationName());
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the number of independent page streams of this request.
+     */
+    protected abstract int getStreamCount();
+
+    /**
+     * Returns how many streams may be fetched at the same time. Streams fetched one at a time keep their order.
+     */
+    protected int getStreamParallelism() {
+        return 1;
+    }
+
+    /**
+     * Returns whether the pages of streams fetched in parallel are still returned in stream order.
+     */
+    protected boolean isStreamOrderPreserved() {
+        return false;
+    }
+
+    /**
+     * Fetches one page of the given stream, starting after {@code exclusiveStartKey} (null for the first page).
+     * It may be called from a background thread.
+     */
+    protected abstract Page fetchPage(int stream, Map<String, AttributeValue> exclusiveStartKey);
+
+    /**
+     * Sends the request of one page of the given stream with the async client, see {@link #fetchPage}.
+     */
+    protected abstract CompletableFuture<Page> fetchPageAsync(int stream, Map<String, AttributeValue> exclusiveStartKey);
+
+    /**
+     * Returns whether the requests are sent with the async client.
+     */
+    protected boolean isAsync() {
+        return dynamoDBClient instanceof AmazonDynamoDBAsync;
+    }
+
+    protected AmazonDynamoDBAsync getAsyncClient() {
+        return (AmazonDynamoDBAsync) dynamoDBClient;
+    }
+
+    /**
+     * Handler of an async request completing as a future, e.g.
+     * {@code getAsyncClient().scanAsync(scanRequest, result)}.
+     */
+    protected static class AsyncResult<REQUEST extends AmazonWebServiceRequest, RESULT> extends CompletableFuture<RESULT>
+            implements AsyncHandler<REQUEST, RESULT> {
+        public void onError(Exception e) {
+            completeExceptionally(e);
+        }
+
+        public void onSuccess(REQUEST request, RESULT result) {
+            complete(result);
+        }
+    }
+
+    /**
+     * Returns the exception a future failed with.
+     */
+    protected static Throwable getCause(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+    }
+
+    /**
+     * Skips the first {@code offset} rows and stops fetching pages once {@code offset + fetch} rows are read.
+     */
+    public void setLimit(long offset, long fetch) {
+        this.offset = offset;
+        this.limit = offset + fetch;
+    }
+
+    /**
+     * Limits the read capacity the requests consume per second.
+     */
+    public void setReadThrottle(DynamoDBCapacityThrottle readThrottle) {
+        this.readThrottle = readThrottle;
+    }
+
+    /**
+     * Returns the {@code Limit} of the next request, or null to let DynamoDB fill the page.
+     *
+     * <p>DynamoDB applies {@code Limit} before the {@code FilterExpression}, so a filtered request asks for as many
+     * more items as the filter has dropped so far. A throttled request also reads no more items than the read
+     * capacity budget allows per second.
+     */
+    protected Integer getPageLimit(boolean filtered) {
+        Integer rowPageLimit = getRowPageLimit(filtered);
+        if (readThrottle == null) {
+            return rowPageLimit;
+        }
+
+        int throttledPageLimit = readThrottle.getPageLimit();
+        return rowPageLimit == null ? throttledPageLimit : Math.min(rowPageLimit, throttledPageLimit);
+    }
+
+    private Integer getRowPageLimit(boolean filtered) {
+        if (limit < 0) {
+            return null;
+        }
+
+        long remainingRows = Math.max(1, limit - fetchedRows.get());
+        long pageLimit = remainingRows;
+        if (filtered && scannedRows.get() > 0) {
+            if (fetchedRows.get() == 0) {
+                // nothing passed the filter yet, read twice as many items as so far.
+                pageLimit = scannedRows.get() * 2;
+            } else {
+                pageLimit = (long) Math.ceil((double) remainingRows * scannedRows.get() / fetchedRows.get());
+            }
+        }
+
+        return (int) Math.min(Integer.MAX_VALUE, pageLimit);
+    }
+
+    private boolean isLimitReached() {
+        return limit >= 0 && fetchedRows.get() >= limit;
+    }
+
+    /**
+     * Fetches one page, within the read capacity budget, counts its rows towards the limit and records its metrics.
+     */
+    private Page fetchCountedPage(int stream, Map<String, AttributeValue> exclusiveStartKey) {
+        final double reservedUnits = acquireReadCapacity();
+
+        long startNanos = System.nanoTime();
+        Page page;
+        try {
+            page = fetchPage(stream, exclusiveStartKey);
+        } catch (RuntimeException e) {
+            getMetrics().recordError(System.nanoTime() - startNanos, e instanceof ProvisionedThroughputExceededException);
+            releaseReadCapacity(reservedUnits);
+            throw e;
+        }
+        countPage(page, System.nanoTime() - startNanos, reservedUnits);
+
+        return page;
+    }
+
+    /**
+     * Sends the request of one page with the async client, see {@link #fetchCountedPage}. Only waiting for read
+     * capacity blocks the calling thread.
+     */
+    private CompletableFuture<Page> fetchCountedPageAsync(int stream, Map<String, AttributeValue> exclusiveStartKey) {
+        final double reservedUnits = acquireReadCapacity();
+
+        final long startNanos = System.nanoTime();
+        return fetchPageAsync(stream, exclusiveStartKey).whenComplete((page, e) -> {
+            if (e != null) {
+                getMetrics().recordError(System.nanoTime() - startNanos, getCause(e) instanceof ProvisionedThroughputExceededException);
+                releaseReadCapacity(reservedUnits);
+            } else {
+                countPage(page, System.nanoTime() - startNanos, reservedUnits);
+            }
+        });
+    }
+
+    /**
+     * Waits for read capacity and reserves the estimated capacity of a page, see {@link DynamoDBCapacityThrottle}.
+     *
+     * @return the units reserved
+     */
+    private double acquireReadCapacity() {
+        if (readThrottle == null) {
+            return 0;
+        }
+
+        long waitStartNanos = System.nanoTime();
+        double reservedUnits = readThrottle.acquire(cancelFlag);
+        getMetrics().recordThrottledWait(System.nanoTime() - waitStartNanos);
+        return reservedUnits;
+    }
+
+    /**
+     * Gives the capacity reserved for a failed request back.
+     */
+    private void releaseReadCapacity(double reservedUnits) {
+        if (readThrottle != null) {
+            readThrottle.consume(0, 0, reservedUnits);
+        }
+    }
+
+    private void countPage(Page page, long latencyNanos, double reservedUnits) {
+        getMetrics().recordRequest(latencyNanos, page.scannedCount, page.count, page.consumedCapacity);
+
+        if (readThrottle != null) {
+            readThrottle.consume(page.getConsumedCapacity(), page.scannedCount, reservedUnits);
+        }
+        scannedRows.addAndGet(page.scannedCount);
+        fetchedRows.addAndGet(page.items.size());
+    }
+
+    /**
+     * Counts the matching items of all streams without transferring them, fetching up to
+     * {@link #getStreamParallelism()} streams at the same time.
+     */
+    public long count() {
+        selectCount = true;
+
+        final int streamCount = getStreamCount();
+        final AtomicInteger nextStream = new AtomicInteger();
+        final AtomicLong count = new AtomicLong();
+        Runnable worker = () -> {
+            int stream;
+            while (!cancelFlag.get() && (stream = nextStream.getAndIncrement()) < streamCount) {
+                Map<String, AttributeValue> startKey = null;
+                Page page;
+                do {
+                    page = fetchCountedPage(stream, startKey);
+                    count.addAndGet(page.count);
+                    startKey = page.lastEvaluatedKey;
+                } while (!page.isLast() && !cancelFlag.get());
+            }
+        };
+
+        // the calling thread is one of the workers, and the only one if the shared pool is busy.
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 1; i < Math.min(getStreamParallelism(), streamCount); i++) {
+            Future<?> future = DynamoDBExecutorUtil.trySubmit(worker);
+            if (future == null) {
+                break;
+            }
+            workers.add(future);
+        }
+
+        try {
+            worker.run();
+            for (Future<?> future : workers) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while counting items of table: " + tableName, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        } finally {
+            for (Future<?> future : workers) {
+                future.cancel(true);
+            }
+        }
+
+        return count.get();
+    }
+
+    public Map<String, AttributeValue> next() {
+        if (cachedItems != null && currentItemIndex < cachedItems.size()) {
+            return cachedItems.get(currentItemIndex);
         }
 
         return null;
@@ -64,75 +461,456 @@ public abstract class AbstractDynamoDBEnumerator implements Enumerator<Object> {
 
     @Override
     public Object current() {
-        return convertRow(next());
+        return rowConverter.convert(next());
     }
 
     @Override
     public boolean moveNext() {
         if (cancelFlag.get()) {
+            close();
             return false;
         }
 
-        if (currentItemIndex == -1) {
-            fetchItems();
+        while (limit < 0 || returnedRows < limit) {
+            if (!moveNextItem()) {
+                return false;
+            }
+
+            returnedRows++;
+            if (returnedRows > offset) {
+                return true;
+            }
         }
 
+        // the pages still being fetched will not be read.
+        close();
+        return false;
+    }
+
+    private boolean moveNextItem() {
         currentItemIndex++;
 
-        Map<String, AttributeValue> nextItem = next();
-        if (nextItem == null) {
-            return false;
-        } else {
-            return true;
+        while (cachedItems == null || currentItemIndex >= cachedItems.size()) {
+            if (finished) {
+                return false;
+            }
+
+            cachedItems = !fetchOnDemand && prefetchPages > 0 ? takePrefetchedPage() : fetchNextPage();
+            currentItemIndex = 0;
+
+            if (cachedItems == null) {
+                finished = true;
+                close();
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Fetches the next non-empty page on the calling thread, or returns null once all streams are exhausted.
+     */
+    private List<Map<String, AttributeValue>> fetchNextPage() {
+        while (currentStream < getStreamCount() && !cancelFlag.get() && !isLimitReached()) {
+            Page page = fetchCountedPage(currentStream, exclusiveStartKey);
+            if (page.isLast()) {
+                currentStream++;
+                exclusiveStartKey = null;
+            } else {
+                exclusiveStartKey = page.lastEvaluatedKey;
+            }
+
+            if (!page.items.isEmpty()) {
+                return page.items;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Takes the next non-empty page from the background workers, or returns null once all streams are exhausted.
+     */
+    private List<Map<String, AttributeValue>> takePrefetchedPage() {
+        if (pagePipeline == null) {
+            PageSource pipeline = isAsync() ? new AsyncPagePipeline() : new PagePipeline();
+            if (pipeline instanceof PagePipeline && ((PagePipeline) pipeline).workers.isEmpty()) {
+                // all the threads of the shared pool are busy, the pages are fetched by the consuming thread instead.
+                fetchOnDemand = true;
+                return fetchNextPage();
+            }
+            pagePipeline = pipeline;
+        }
+
+        try {
+            return pagePipeline.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for pages of table: " + tableName, e);
         }
     }
 
     @Override
     public void reset() {
-        currentItemIndex = -1;
+        close();
 
-        resetStatus();
+        cachedItems = null;
+        currentItemIndex = -1;
+        finished = false;
+        fetchOnDemand = false;
+        fetchedRows.set(0);
+        scannedRows.set(0);
+        returnedRows = 0;
+        currentStream = 0;
+        exclusiveStartKey = null;
     }
 
+    /**
+     * Cancels the pages still being fetched in the background and drops the buffered ones.
+     */
     @Override
     public void close() {
+        if (pagePipeline != null) {
+            pagePipeline.cancel();
+            pagePipeline = null;
+        }
+    }
 
+    /**
+     * Pages fetched ahead of the consumer.
+     */
+    private interface PageSource {
+        /**
+         * Returns the next non-empty page, or null once all streams are exhausted or the statement is cancelled.
+         */
+        List<Map<String, AttributeValue>> take() throws InterruptedException;
+
+        /**
+         * Stops fetching pages and drops the buffered ones.
+         */
+        void cancel();
     }
 
-    private Object convertRow(Map<String, AttributeValue> row) {
-        final Object[] objects = new Object[row.size()];
+    /**
+     * Background workers fetching the page streams into bounded buffers.
+     *
+     * <p>Without order, all workers share one buffer and pages are handed out as they arrive. With order, every stream
+     * has a buffer of its own which is drained in stream order, while the streams after the current one keep being
+     * fetched ahead.
+     */
+    private class PagePipeline implements PageSource {
+        private final int streamCount = getStreamCount();
+        private final boolean ordered = isStreamOrderPreserved();
+        private final BlockingQueue<List<Map<String, AttributeValue>>> pages;
+        private final List<BlockingQueue<List<Map<String, AttributeValue>>>> streamPages;
+        private final AtomicInteger nextStream = new AtomicInteger();
+        private final List<Future<?>> workers = new ArrayList<>();
+        private volatile RuntimeException failure = null;
+        private int finishedWorkers = 0;
+        private int currentStream = 0;
+
+        PagePipeline() {
+            int workerCount = Math.max(1, Math.min(getStreamParallelism(), streamCount));
+            int bufferedPages = prefetchPages;
+
+            if (ordered) {
+                pages = null;
+                streamPages = new ArrayList<>(streamCount);
+                for (int i = 0; i < streamCount; i++) {
+                    streamPages.add(new ArrayBlockingQueue<>(bufferedPages + 1));
+                }
+            } else {
+                pages = new ArrayBlockingQueue<>(bufferedPages * workerCount);
+                streamPages = null;
+            }
 
-        int index = 0;
-        for (Map.Entry<String, AttributeValue> rowField : row.entrySet()) {
-            String filedName = rowField.getKey();
-            ScalarAttributeType fieldType = ScalarAttributeType.valueOf(dynamoDBTableSchema.get(filedName).getS());
+            // fewer workers if the shared pool is busy.
+            for (int i = 0; i < workerCount; i++) {
+                Future<?> worker = DynamoDBExecutorUtil.trySubmit(this::fetchStreams);
+                if (worker == null) {
+                    break;
+                }
+                workers.add(worker);
+            }
+        }
 
-            Object filedValue;
-            AttributeValue attributeValue = row.get(filedName);
+        private void fetchStreams() {
+            int stream = -1;
+            try {
+                while (!cancelFlag.get() && failure == null && !isLimitReached()
+                        && (stream = nextStream.getAndIncrement()) < streamCount) {
+                    BlockingQueue<List<Map<String, AttributeValue>>> buffer = ordered ? streamPages.get(stream) : pages;
+
+                    Map<String, AttributeValue> startKey = null;
+                    Page page;
+                    do {
+                        page = fetchCountedPage(stream, startKey);
+                        if (!page.items.isEmpty()) {
+                            buffer.put(page.items);
+                        }
+                        startKey = page.lastEvaluatedKey;
+                    } while (!page.isLast() && !cancelFlag.get() && !isLimitReached());
+
+                    if (ordered) {
+                        buffer.put(END_OF_PAGES);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failure = e;
+            }
 
-            switch (fieldType) {
-                case N:
-                    filedValue = Double.valueOf(attributeValue.getN());
-                    break;
-                case S:
-                    filedValue = attributeValue.getS();
-                    break;
-                case B:
-                    filedValue = attributeValue.getB();
-                    break;
-                default:
-                    throw new IllegalArgumentException("Not supported DynamoDB type: " + fieldType + " for attribute: " + filedName);
+            try {
+                if (!ordered) {
+                    pages.put(END_OF_PAGES);
+                } else if (failure != null) {
+                    streamPages.get(stream).put(END_OF_PAGES);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
+        }
+
+        /**
+         * Waits for the next page of a buffer, or returns null if the statement is cancelled meanwhile.
+         */
+        private List<Map<String, AttributeValue>> poll(BlockingQueue<List<Map<String, AttributeValue>>> buffer) throws InterruptedException {
+            List<Map<String, AttributeValue>> page;
+            while ((page = buffer.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                if (cancelFlag.get()) {
+                    return null;
+                }
+            }
+
+            if (failure != null) {
+                throw failure;
+            }
+
+            return page;
+        }
 
-            objects[index] = filedValue;
+        public List<Map<String, AttributeValue>> take() throws InterruptedException {
+            if (ordered) {
+                while (currentStream < streamCount) {
+                    List<Map<String, AttributeValue>> page = poll(streamPages.get(currentStream));
+                    if (page == null) {
+                        return null;
+                    } else if (page == END_OF_PAGES) {
+                        // the buffer of a drained stream is not needed anymore.
+                        streamPages.set(currentStream, null);
+                        currentStream++;
+                    } else {
+                        return page;
+                    }
+                }
+            } else {
+                while (finishedWorkers < workers.size()) {
+                    List<Map<String, AttributeValue>> page = poll(pages);
+                    if (page == null) {
+                        return null;
+                    } else if (page == END_OF_PAGES) {
+                        finishedWorkers++;
+                    } else {
+                        return page;
+                    }
+                }
+            }
 
-            index++;
+            return null;
         }
 
-        if (objects.length == 1) {
-            return objects[0];
-        } else {
-            return objects;
+        public void cancel() {
+            for (Future<?> worker : workers) {
+                worker.cancel(true);
+            }
+
+            if (ordered) {
+                for (BlockingQueue<List<Map<String, AttributeValue>>> buffer : streamPages) {
+                    if (buffer != null) {
+                        buffer.clear();
+                    }
+                }
+            } else {
+                pages.clear();
+            }
+        }
+    }
+
+    /**
+     * Page streams fetched with the async client into bounded buffers, laid out as in {@link PagePipeline}.
+     *
+     * <p>Every stream has at most one request in flight. When a page arrives the request of the next page of its
+     * stream is sent at once if the buffer has room for it; otherwise the stream is parked until the consumer takes a
+     * page. When a stream is exhausted the next one is started in its place.
+     */
+    private class AsyncPagePipeline implements PageSource {
+        private final int streamCount = getStreamCount();
+        private final boolean ordered = isStreamOrderPreserved();
+        private final int bufferedPages;
+        private final Deque<List<Map<String, AttributeValue>>> pages;
+        private final List<Deque<List<Map<String, AttributeValue>>>> streamPages;
+        // the start keys of the streams waiting for room in their buffer.
+        private final Map<Integer, Map<String, AttributeValue>> parkedStreams = new LinkedHashMap<>();
+        private int nextStream = 0;
+        private int activeStreams = 0;
+        private int currentStream = 0;
+        private RuntimeException failure = null;
+        private boolean cancelled = false;
+
+        AsyncPagePipeline() {
+            int parallelism = Math.max(1, Math.min(getStreamParallelism(), streamCount));
+
+            if (ordered) {
+                bufferedPages = prefetchPages;
+                pages = null;
+                streamPages = new ArrayList<>(streamCount);
+                for (int i = 0; i < streamCount; i++) {
+                    streamPages.add(new ArrayDeque<>());
+                }
+            } else {
+                bufferedPages = prefetchPages * parallelism;
+                pages = new ArrayDeque<>();
+                streamPages = null;
+            }
+
+            List<Integer> streams = new ArrayList<>();
+            synchronized (this) {
+                while (streams.size() < parallelism && nextStream < streamCount) {
+                    streams.add(nextStream++);
+                    activeStreams++;
+                }
+            }
+            for (int stream : streams) {
+                request(stream, null);
+            }
+        }
+
+        private Deque<List<Map<String, AttributeValue>>> getBuffer(int stream) {
+            return ordered ? streamPages.get(stream) : pages;
+        }
+
+        private boolean hasRoom(int stream) {
+            return getBuffer(stream).size() < bufferedPages;
+        }
+
+        private boolean isStopped() {
+            return cancelled || failure != null || cancelFlag.get() || isLimitReached();
+        }
+
+        private void request(int stream, Map<String, AttributeValue> exclusiveStartKey) {
+            try {
+                fetchCountedPageAsync(stream, exclusiveStartKey).whenComplete((page, e) -> {
+                    if (e != null) {
+                        onFailure(getCause(e));
+                    } else {
+                        onPage(stream, page);
+                    }
+                });
+            } catch (RuntimeException e) {
+                onFailure(e);
+            }
+        }
+
+        private void onPage(int stream, Page page) {
+            int nextRequestStream = -1;
+            Map<String, AttributeValue> nextStartKey = null;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+
+                Deque<List<Map<String, AttributeValue>>> buffer = getBuffer(stream);
+                if (!page.items.isEmpty()) {
+                    buffer.add(page.items);
+                }
+
+                if (page.isLast() || isStopped()) {
+                    if (ordered) {
+                        buffer.add(END_OF_PAGES);
+                    }
+                    if (!isStopped() && nextStream < streamCount) {
+                        nextRequestStream = nextStream++;
+                    } else {
+                        activeStreams--;
+                    }
+                } else if (hasRoom(stream)) {
+                    nextRequestStream = stream;
+                    nextStartKey = page.lastEvaluatedKey;
+                } else {
+                    parkedStreams.put(stream, page.lastEvaluatedKey);
+                }
+
+                notifyAll();
+            }
+
+            if (nextRequestStream >= 0) {
+                request(nextRequestStream, nextStartKey);
+            }
+        }
+
+        private synchronized void onFailure(Throwable e) {
+            if (failure == null) {
+                failure = e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+            }
+            activeStreams--;
+            notifyAll();
+        }
+
+        public List<Map<String, AttributeValue>> take() throws InterruptedException {
+            List<Map.Entry<Integer, Map<String, AttributeValue>>> resumedStreams = new ArrayList<>();
+            List<Map<String, AttributeValue>> page = takePage(resumedStreams);
+
+            for (Map.Entry<Integer, Map<String, AttributeValue>> resumedStream : resumedStreams) {
+                request(resumedStream.getKey(), resumedStream.getValue());
+            }
+            return page;
+        }
+
+        /**
+         * Waits for the next page, and collects the parked streams its buffer has room for again.
+         */
+        private synchronized List<Map<String, AttributeValue>> takePage(List<Map.Entry<Integer, Map<String, AttributeValue>>> resumedStreams)
+                throws InterruptedException {
+            while (true) {
+                if (failure != null) {
+                    throw failure;
+                } else if (cancelFlag.get() || (ordered && currentStream >= streamCount)) {
+                    return null;
+                }
+
+                List<Map<String, AttributeValue>> page = getBuffer(currentStream).poll();
+                if (page == END_OF_PAGES) {
+                    currentStream++;
+                    continue;
+                } else if (page != null) {
+                    Iterator<Map.Entry<Integer, Map<String, AttributeValue>>> parked = parkedStreams.entrySet().iterator();
+                    while (parked.hasNext()) {
+                        Map.Entry<Integer, Map<String, AttributeValue>> parkedStream = parked.next();
+                        if (hasRoom(parkedStream.getKey())) {
+                            resumedStreams.add(new AbstractMap.SimpleImmutableEntry<>(parkedStream));
+                            parked.remove();
+                        }
+                    }
+                    return page;
+                } else if (activeStreams == 0 && (!ordered || currentStream >= nextStream)) {
+                    return null;
+                }
+
+                wait(POLL_INTERVAL_MILLIS);
+            }
+        }
+
+        public synchronized void cancel() {
+            cancelled = true;
+            parkedStreams.clear();
+            if (ordered) {
+                streamPages.forEach(Deque::clear);
+            } else {
+                pages.clear();
+            }
         }
     }
 }
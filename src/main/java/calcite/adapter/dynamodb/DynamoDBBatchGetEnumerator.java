@@ -0,0 +1,197 @@
+package calcite.adapter.dynamodb;
+
+import calcite.adapter.dynamodb.utils.DynamoDBExecutorUtil;
+import calcite.adapter.dynamodb.utils.DynamoDBRowConverter;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.*;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Reads items by their full primary key: a single key with GetItem, more keys with BatchGetItem calls of up to
+ * {@link #MAX_BATCH_GET_KEYS} keys. Every batch is a page stream of its own, so batches run in parallel.
+ */
+public class DynamoDBBatchGetEnumerator extends AbstractDynamoDBEnumerator {
+    static final int MAX_BATCH_GET_KEYS = 100;
+
+    static final int MAX_UNPROCESSED_KEYS_RETRIES = 10;
+    static final long BASE_BACKOFF_MILLIS = 25;
+    static final long MAX_BACKOFF_MILLIS = 2000;
+
+    private final List<List<Map<String, AttributeValue>>> batches = new ArrayList<>();
+    private final int batchParallelism;
+
+    public DynamoDBBatchGetEnumerator(AtomicBoolean cancelFlag, AmazonDynamoDBClient dynamoDBClient, String tableName, DynamoDBRowConverter rowConverter, String projectionExpression,
+                                      Map<String, String> attributeNameMap, List<Map<String, AttributeValue>> keys, int prefetchPages, int batchParallelism) {
+        super(cancelFlag, dynamoDBClient, tableName, rowConverter, projectionExpression, Collections.emptyList(), Collections.emptyList(), Collections.emptyMap(),
+                attributeNameMap, prefetchPages);
+
+        // BatchGetItem rejects duplicated keys.
+        List<Map<String, AttributeValue>> distinctKeys = new ArrayList<>(new LinkedHashSet<>(keys));
+        for (int i = 0; i < distinctKeys.size(); i += MAX_BATCH_GET_KEYS) {
+            batches.add(distinctKeys.subList(i, Math.min(i + MAX_BATCH_GET_KEYS, distinctKeys.size())));
+        }
+
+        this.batchParallelism = batchParallelism;
+    }
+
+    @Override
+    protected String getOperationName() {
+        return "BatchGetItem";
+    }
+
+    @Override
+    protected int getStreamCount() {
+        return batches.size();
+    }
+
+    @Override
+    protected int getStreamParallelism() {
+        return Math.min(batchParallelism, batches.size());
+    }
+
+    @Override
+    protected Page fetchPage(int batch, Map<String, AttributeValue> exclusiveStartKey) {
+        List<Map<String, AttributeValue>> keys = batches.get(batch);
+        if (keys.size() == 1) {
+            return toPage(dynamoDBClient.getItem(createGetItemRequest(keys.get(0))));
+        }
+
+        List<Map<String, AttributeValue>> items = new ArrayList<>(keys.size());
+        List<ConsumedCapacity> consumedCapacities = new ArrayList<>();
+        Map<String, KeysAndAttributes> requestItems = createRequestItems(keys);
+        for (int retry = 0; ; retry++) {
+            BatchGetItemResult batchGetItemResult = dynamoDBClient.batchGetItem(createBatchGetItemRequest(requestItems));
+            requestItems = addResponses(batchGetItemResult, items, consumedCapacities);
+            if (requestItems == null || requestItems.isEmpty()) {
+                break;
+            }
+
+            checkRetries(retry, requestItems);
+            getMetrics().recordRetry();
+            backoff(retry);
+        }
+
+        return toPage(items, consumedCapacities);
+    }
+
+    @Override
+    protected CompletableFuture<Page> fetchPageAsync(int batch, Map<String, AttributeValue> exclusiveStartKey) {
+        List<Map<String, AttributeValue>> keys = batches.get(batch);
+        if (keys.size() == 1) {
+            AsyncResult<GetItemRequest, GetItemResult> result = new AsyncResult<>();
+            getAsyncClient().getItemAsync(createGetItemRequest(keys.get(0)), result);
+            return result.thenApply(this::toPage);
+        }
+
+        return fetchBatchAsync(createRequestItems(keys), new ArrayList<>(keys.size()), new ArrayList<>(), 0);
+    }
+
+    /**
+     * Sends a BatchGetItem request with the async client, and again for its unprocessed keys once the backoff of the
+     * retry has elapsed on the scheduler.
+     */
+    private CompletableFuture<Page> fetchBatchAsync(Map<String, KeysAndAttributes> requestItems, List<Map<String, AttributeValue>> items,
+                                                    List<ConsumedCapacity> consumedCapacities, int retry) {
+        AsyncResult<BatchGetItemRequest, BatchGetItemResult> result = new AsyncResult<>();
+        getAsyncClient().batchGetItemAsync(createBatchGetItemRequest(requestItems), result);
+        return result.thenCompose(batchGetItemResult -> {
+            Map<String, KeysAndAttributes> unprocessedItems = addResponses(batchGetItemResult, items, consumedCapacities);
+            if (unprocessedItems == null || unprocessedItems.isEmpty()) {
+                return CompletableFuture.completedFuture(toPage(items, consumedCapacities));
+            }
+
+            checkRetries(retry, unprocessedItems);
+            getMetrics().recordRetry();
+            CompletableFuture<Void> backoff = new CompletableFuture<>();
+            DynamoDBExecutorUtil.getScheduledExecutorService().schedule(() -> backoff.complete(null), getBackoffMillis(retry), TimeUnit.MILLISECONDS);
+            return backoff.thenCompose(ignored -> fetchBatchAsync(unprocessedItems, items, consumedCapacities, retry + 1));
+        });
+    }
+
+    private GetItemRequest createGetItemRequest(Map<String, AttributeValue> key) {
+        GetItemRequest getItemRequest = new GetItemRequest(tableName, key);
+        if (!StringUtils.isBlank(projectionExpression)) {
+            getItemRequest.setProjectionExpression(projectionExpression);
+            getItemRequest.setExpressionAttributeNames(getExpressionAttributeNames(projectionExpression));
+        }
+
+        getItemRequest.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        return getItemRequest;
+    }
+
+    private Page toPage(GetItemResult getItemResult) {
+        Map<String, AttributeValue> item = getItemResult.getItem();
+        return new Page(item == null ? Collections.emptyList() : Collections.singletonList(item), null)
+                .withConsumedCapacity(getItemResult.getConsumedCapacity());
+    }
+
+    private Map<String, KeysAndAttributes> createRequestItems(List<Map<String, AttributeValue>> keys) {
+        KeysAndAttributes keysAndAttributes = new KeysAndAttributes().withKeys(keys);
+        if (!StringUtils.isBlank(projectionExpression)) {
+            keysAndAttributes.setProjectionExpression(projectionExpression);
+            keysAndAttributes.setExpressionAttributeNames(getExpressionAttributeNames(projectionExpression));
+        }
+
+        return Collections.singletonMap(tableName, keysAndAttributes);
+    }
+
+    private BatchGetItemRequest createBatchGetItemRequest(Map<String, KeysAndAttributes> requestItems) {
+        BatchGetItemRequest batchGetItemRequest = new BatchGetItemRequest(requestItems);
+        batchGetItemRequest.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        return batchGetItemRequest;
+    }
+
+    /**
+     * Adds the items and consumed capacity of a BatchGetItem result, and returns its unprocessed keys.
+     */
+    private Map<String, KeysAndAttributes> addResponses(BatchGetItemResult batchGetItemResult, List<Map<String, AttributeValue>> items,
+                                                        List<ConsumedCapacity> consumedCapacities) {
+        if (batchGetItemResult.getConsumedCapacity() != null) {
+            consumedCapacities.addAll(batchGetItemResult.getConsumedCapacity());
+        }
+        List<Map<String, AttributeValue>> responses = batchGetItemResult.getResponses().get(tableName);
+        if (responses != null) {
+            items.addAll(responses);
+        }
+
+        return batchGetItemResult.getUnprocessedKeys();
+    }
+
+    private Page toPage(List<Map<String, AttributeValue>> items, List<ConsumedCapacity> consumedCapacities) {
+        Page page = new Page(items, null);
+        for (ConsumedCapacity consumedCapacity : consumedCapacities) {
+            page.withConsumedCapacity(consumedCapacity);
+        }
+        return page;
+    }
+
+    private void checkRetries(int retry, Map<String, KeysAndAttributes> unprocessedItems) {
+        if (retry == MAX_UNPROCESSED_KEYS_RETRIES) {
+            throw new IllegalStateException("Gave up reading " + unprocessedItems.get(tableName).getKeys().size()
+                    + " unprocessed keys of table: " + tableName + " after " + retry + " retries");
+        }
+    }
+
+    /**
+     * Returns how long to wait before retrying unprocessed keys, exponentially longer on every retry, with full jitter.
+     */
+    private static long getBackoffMillis(int retry) {
+        long maxSleepMillis = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << retry);
+        return ThreadLocalRandom.current().nextLong(maxSleepMillis + 1);
+    }
+
+    private void backoff(int retry) {
+        try {
+            Thread.sleep(getBackoffMillis(retry));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying unprocessed keys of table: " + tableName, e);
+        }
+    }
+}
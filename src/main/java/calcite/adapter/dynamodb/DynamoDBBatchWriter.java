@@ -0,0 +1,204 @@
+package calcite.adapter.dynamodb;
+
+import calcite.adapter.dynamodb.utils.DynamoDBCapacityThrottle;
+import calcite.adapter.dynamodb.utils.DynamoDBMetrics;
+import calcite.adapter.dynamodb.utils.DynamoDBParallelSubmitter;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes items to a table with BatchWriteItem calls of up to {@link #MAX_BATCH_WRITE_ITEMS} items. Full batches are
+ * sent in the background, up to {@code writeParallelism} at a time; a writer adding to a full pipeline waits for a
+ * batch to complete. Unprocessed items are sent again after an exponential backoff with full jitter.
+ *
+ * <p>A batch holds at most one write of a key, as BatchWriteItem rejects duplicated keys: the last write of a key
+ * replaces the previous one. Two writes of the same key in different batches may be applied in any order.
+ */
+public class DynamoDBBatchWriter implements AutoCloseable {
+    static final int MAX_BATCH_WRITE_ITEMS = 25;
+
+    static final int MAX_UNPROCESSED_ITEMS_RETRIES = 10;
+    static final long BASE_BACKOFF_MILLIS = 25;
+    static final long MAX_BACKOFF_MILLIS = 2000;
+
+    private final AtomicBoolean cancelFlag;
+    private final AmazonDynamoDBClient dynamoDBClient;
+    private final String tableName;
+    private final List<String> keyNames;
+    private final DynamoDBParallelSubmitter submitter;
+    private final DynamoDBCapacityThrottle writeThrottle;
+    private final DynamoDBMetrics.RequestMetrics metrics;
+
+    private Map<Map<String, AttributeValue>, WriteRequest> batch = new LinkedHashMap<>();
+    private long writeCount = 0;
+    private boolean closed = false;
+
+    /**
+     * @param keyNames      the attributes of the primary key of the table
+     * @param writeThrottle the write capacity budget of the table, null if unlimited
+     */
+    public DynamoDBBatchWriter(AtomicBoolean cancelFlag, AmazonDynamoDBClient dynamoDBClient, String tableName, List<String> keyNames,
+                               int parallelism, DynamoDBCapacityThrottle writeThrottle) {
+        this.cancelFlag = cancelFlag;
+        this.dynamoDBClient = dynamoDBClient;
+        this.tableName = tableName;
+        this.keyNames = keyNames;
+        this.submitter = new DynamoDBParallelSubmitter(parallelism, "writing to table: " + tableName);
+        this.writeThrottle = writeThrottle;
+        this.metrics = DynamoDBMetrics.getRequestMetrics(tableName, "BatchWriteItem");
+        metrics.recordStatement();
+    }
+
+    public void put(Map<String, AttributeValue> item) {
+        write(getKey(item), new WriteRequest(new PutRequest(item)));
+    }
+
+    public void delete(Map<String, AttributeValue> key) {
+        write(getKey(key), new WriteRequest(new DeleteRequest(key)));
+    }
+
+    private Map<String, AttributeValue> getKey(Map<String, AttributeValue> item) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        for (String keyName : keyNames) {
+            AttributeValue value = item.get(keyName);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing key attribute " + keyName + " of table: " + tableName);
+            }
+            key.put(keyName, value);
+        }
+        return key;
+    }
+
+    private void write(Map<String, AttributeValue> key, WriteRequest writeRequest) {
+        if (closed) {
+            throw new IllegalStateException("Writer of table " + tableName + " is closed");
+        }
+        submitter.checkFailure();
+
+        batch.put(key, writeRequest);
+        writeCount++;
+        if (batch.size() == MAX_BATCH_WRITE_ITEMS) {
+            flush();
+        }
+    }
+
+    /**
+     * Sends the pending batch in the background, once one of the in-flight batches completed if there are already
+     * {@code writeParallelism} of them.
+     */
+    private void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final List<WriteRequest> writeRequests = new ArrayList<>(batch.values());
+        batch = new LinkedHashMap<>();
+
+        submitter.submit(() -> writeBatch(writeRequests));
+    }
+
+    private void writeBatch(List<WriteRequest> writeRequests) {
+        Map<String, List<WriteRequest>> requestItems = Collections.singletonMap(tableName, writeRequests);
+        for (int retry = 0; !cancelFlag.get(); retry++) {
+            int itemCount = requestItems.get(tableName).size();
+            double reservedUnits = writeThrottle == null ? 0
+                    : writeThrottle.acquire(cancelFlag, writeThrottle.estimateUnits(itemCount));
+
+            BatchWriteItemRequest batchWriteItemRequest = new BatchWriteItemRequest(requestItems)
+                    .withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+            long startNanos = System.nanoTime();
+            BatchWriteItemResult batchWriteItemResult;
+            try {
+                batchWriteItemResult = dynamoDBClient.batchWriteItem(batchWriteItemRequest);
+            } catch (RuntimeException e) {
+                metrics.recordError(System.nanoTime() - startNanos, e instanceof ProvisionedThroughputExceededException);
+                if (writeThrottle != null) {
+                    writeThrottle.consume(0, 0, reservedUnits);
+                }
+                throw e;
+            }
+
+            Double consumedCapacityUnits = null;
+            if (batchWriteItemResult.getConsumedCapacity() != null) {
+                consumedCapacityUnits = 0d;
+                for (ConsumedCapacity consumedCapacity : batchWriteItemResult.getConsumedCapacity()) {
+                    consumedCapacityUnits += consumedCapacity.getCapacityUnits() == null ? 0 : consumedCapacity.getCapacityUnits();
+                }
+            }
+
+            requestItems = batchWriteItemResult.getUnprocessedItems();
+            int unprocessedCount = requestItems == null || requestItems.get(tableName) == null ? 0 : requestItems.get(tableName).size();
+            int processedCount = itemCount - unprocessedCount;
+            metrics.recordRequest(System.nanoTime() - startNanos, itemCount, processedCount, consumedCapacityUnits);
+            if (writeThrottle != null) {
+                // a write of an item of up to 1 KB consumes one unit, if DynamoDB does not say.
+                writeThrottle.consume(consumedCapacityUnits == null ? processedCount : consumedCapacityUnits, processedCount,
+                        reservedUnits);
+            }
+
+            if (unprocessedCount == 0) {
+                return;
+            }
+
+            if (retry == MAX_UNPROCESSED_ITEMS_RETRIES) {
+                throw new IllegalStateException("Gave up writing " + unprocessedCount + " unprocessed items of table: "
+                        + tableName + " after " + retry + " retries");
+            }
+            metrics.recordRetry();
+            backoff(retry);
+        }
+    }
+
+    /**
+     * Returns how long to wait before retrying unprocessed items, exponentially longer on every retry, with full jitter.
+     */
+    static long getBackoffMillis(int retry) {
+        long maxSleepMillis = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << retry);
+        return ThreadLocalRandom.current().nextLong(maxSleepMillis + 1);
+    }
+
+    private void backoff(int retry) {
+        try {
+            Thread.sleep(getBackoffMillis(retry));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while retrying unprocessed items of table: " + tableName, e);
+        }
+    }
+
+    /**
+     * Sends the pending batch and waits for all the batches to complete.
+     *
+     * @throws RuntimeException the first error of a batch, once all the batches completed
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        try {
+            flush();
+        } finally {
+            closed = true;
+            submitter.awaitAll();
+        }
+        submitter.checkFailure();
+    }
+
+    /**
+     * Returns the number of writes requested, duplicates included.
+     */
+    public long getWriteCount() {
+        return writeCount;
+    }
+}
@@ -0,0 +1,145 @@
+package calcite.adapter.dynamodb;
+
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.KeySchemaElement;
+import com.amazonaws.services.dynamodbv2.model.KeyType;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.Projection;
+import com.amazonaws.services.dynamodbv2.model.ProjectionType;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import org.apache.calcite.util.trace.CalciteTrace;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Key schema of a way to query a table: the primary key of the table itself, or one of its global or local
+ * secondary indexes, together with the attributes projected into the index.
+ */
+public class DynamoDBIndex {
+    private static final Logger LOGGER = CalciteTrace.getPlannerTracer();
+
+    private final String name;
+    private final String hashKeyName;
+    private final String sortKeyName;
+    private final boolean global;
+    private final Set<String> projectedAttributes;
+
+    /**
+     * @param name                name of the index, null for the primary key of the table
+     * @param projectedAttributes attributes available in the index, null if all attributes are
+     */
+    public DynamoDBIndex(String name, String hashKeyName, String sortKeyName, boolean global, Set<String> projectedAttributes) {
+        this.name = name;
+        this.hashKeyName = hashKeyName;
+        this.sortKeyName = sortKeyName;
+        this.global = global;
+        this.projectedAttributes = projectedAttributes;
+    }
+
+    public static DynamoDBIndex primaryKey(List<KeySchemaElement> keySchema) {
+        return new DynamoDBIndex(null, getKeyName(keySchema, KeyType.HASH), getKeyName(keySchema, KeyType.RANGE), false, null);
+    }
+
+    /**
+     * Creates a secondary index of a table, which always projects the primary key of the table and its own keys.
+     */
+    public static DynamoDBIndex secondaryIndex(String name, List<KeySchemaElement> keySchema, Projection projection, boolean global,
+                                               DynamoDBIndex primaryKey) {
+        String hashKeyName = getKeyName(keySchema, KeyType.HASH);
+        String sortKeyName = getKeyName(keySchema, KeyType.RANGE);
+
+        Set<String> projectedAttributes = null;
+        if (!ProjectionType.ALL.toString().equals(projection.getProjectionType())) {
+            projectedAttributes = new HashSet<>();
+            addKeys(projectedAttributes, primaryKey.hashKeyName, primaryKey.sortKeyName, hashKeyName, sortKeyName);
+            if (projection.getNonKeyAttributes() != null) {
+                projectedAttributes.addAll(projection.getNonKeyAttributes());
+            }
+        }
+
+        return new DynamoDBIndex(name, hashKeyName, sortKeyName, global, projectedAttributes);
+    }
+
+    /**
+     * Returns the secondary indexes of a table that can be queried: its active global ones and its local ones.
+     */
+    public static List<DynamoDBIndex> secondaryIndexes(TableDescription tableDescription, DynamoDBIndex primaryKey) {
+        List<DynamoDBIndex> indexes = new ArrayList<>();
+
+        if (tableDescription.getGlobalSecondaryIndexes() != null) {
+            for (GlobalSecondaryIndexDescription index : tableDescription.getGlobalSecondaryIndexes()) {
+                if (index.getIndexStatus().equals("ACTIVE")) {
+                    indexes.add(secondaryIndex(index.getIndexName(), index.getKeySchema(), index.getProjection(), true, primaryKey));
+                } else {
+                    LOGGER.warn("Ignoring index " + index.getIndexName() + " of table " + tableDescription.getTableName()
+                            + " as the status is: " + index.getIndexStatus());
+                }
+            }
+        }
+
+        if (tableDescription.getLocalSecondaryIndexes() != null) {
+            for (LocalSecondaryIndexDescription index : tableDescription.getLocalSecondaryIndexes()) {
+                indexes.add(secondaryIndex(index.getIndexName(), index.getKeySchema(), index.getProjection(), false, primaryKey));
+            }
+        }
+
+        return indexes;
+    }
+
+    private static void addKeys(Set<String> attributes, String... keyNames) {
+        for (String keyName : keyNames) {
+            if (keyName != null) {
+                attributes.add(keyName);
+            }
+        }
+    }
+
+    private static String getKeyName(List<KeySchemaElement> keySchema, KeyType keyType) {
+        for (KeySchemaElement keySchemaElement : keySchema) {
+            if (keySchemaElement.getKeyType().equals(keyType.toString())) {
+                return keySchemaElement.getAttributeName();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the name to pass as {@code IndexName}, null for the primary key of the table.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean isPrimaryKey() {
+        return name == null;
+    }
+
+    public String getHashKeyName() {
+        return hashKeyName;
+    }
+
+    public String getSortKeyName() {
+        return sortKeyName;
+    }
+
+    /**
+     * Returns whether it is a global secondary index, which cannot fetch attributes it does not project from the
+     * table.
+     */
+    public boolean isGlobal() {
+        return global;
+    }
+
+    /**
+     * Returns whether all the given attributes can be read from the index without fetching them from the table.
+     */
+    public boolean covers(Collection<String> attributes) {
+        return projectedAttributes == null || projectedAttributes.containsAll(attributes);
+    }
+}
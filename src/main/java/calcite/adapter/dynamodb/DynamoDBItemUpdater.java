@@ -0,0 +1,134 @@
+package calcite.adapter.dynamodb;
+
+import calcite.adapter.dynamodb.utils.DynamoDBCapacityThrottle;
+import calcite.adapter.dynamodb.utils.DynamoDBMetrics;
+import calcite.adapter.dynamodb.utils.DynamoDBParallelSubmitter;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends UpdateItem requests in the background, up to {@code writeParallelism} at a time; a writer adding to a full
+ * pipeline waits for a request to complete. An update whose condition fails, e.g. as the item does not exist, updates
+ * nothing and is not counted.
+ */
+public class DynamoDBItemUpdater implements AutoCloseable {
+    private final AtomicBoolean cancelFlag;
+    private final AmazonDynamoDBClient dynamoDBClient;
+    private final String tableName;
+    private final DynamoDBParallelSubmitter submitter;
+    private final DynamoDBCapacityThrottle writeThrottle;
+    private final DynamoDBMetrics.RequestMetrics metrics;
+
+    private final AtomicLong updateCount = new AtomicLong();
+    private boolean closed = false;
+
+    /**
+     * @param writeThrottle the write capacity budget of the table, null if unlimited
+     */
+    public DynamoDBItemUpdater(AtomicBoolean cancelFlag, AmazonDynamoDBClient dynamoDBClient, String tableName, int parallelism,
+                               DynamoDBCapacityThrottle writeThrottle) {
+        this.cancelFlag = cancelFlag;
+        this.dynamoDBClient = dynamoDBClient;
+        this.tableName = tableName;
+        this.submitter = new DynamoDBParallelSubmitter(parallelism, "updating table: " + tableName);
+        this.writeThrottle = writeThrottle;
+        this.metrics = DynamoDBMetrics.getRequestMetrics(tableName, "UpdateItem");
+        metrics.recordStatement();
+    }
+
+    public void update(final UpdateItemRequest updateItemRequest) {
+        if (closed) {
+            throw new IllegalStateException("Updater of table " + tableName + " is closed");
+        }
+        submitter.checkFailure();
+
+        submitter.submit(() -> {
+            if (!cancelFlag.get()) {
+                updateItem(updateItemRequest);
+            }
+        });
+    }
+
+    private void updateItem(UpdateItemRequest updateItemRequest) {
+        final double reservedUnits = writeThrottle == null ? 0 : writeThrottle.acquire(cancelFlag, writeThrottle.estimateUnits(1));
+
+        updateItemRequest.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        long startNanos = System.nanoTime();
+        UpdateItemResult updateItemResult;
+        try {
+            updateItemResult = dynamoDBClient.updateItem(updateItemRequest);
+        } catch (AmazonServiceException e) {
+            if (isConditionalCheckFailed(e)) {
+                // a failed condition consumes capacity too, one unit for an item of up to 1 KB.
+                metrics.recordRequest(System.nanoTime() - startNanos, 1, 0, null);
+                if (writeThrottle != null) {
+                    writeThrottle.consume(1, 0, reservedUnits);
+                }
+                return;
+            }
+            metrics.recordError(System.nanoTime() - startNanos, e instanceof ProvisionedThroughputExceededException);
+            releaseWriteCapacity(reservedUnits);
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.recordError(System.nanoTime() - startNanos, e instanceof ProvisionedThroughputExceededException);
+            releaseWriteCapacity(reservedUnits);
+            throw e;
+        }
+
+        Double consumedCapacityUnits = updateItemResult.getConsumedCapacity() == null
+                ? null : updateItemResult.getConsumedCapacity().getCapacityUnits();
+        metrics.recordRequest(System.nanoTime() - startNanos, 1, 1, consumedCapacityUnits);
+        if (writeThrottle != null) {
+            writeThrottle.consume(consumedCapacityUnits == null ? 1 : consumedCapacityUnits, 1, reservedUnits);
+        }
+        updateCount.incrementAndGet();
+    }
+
+    /**
+     * Gives the capacity reserved for a failed request back.
+     */
+    private void releaseWriteCapacity(double reservedUnits) {
+        if (writeThrottle != null) {
+            writeThrottle.consume(0, 0, reservedUnits);
+        }
+    }
+
+    /**
+     * Returns whether an error is a failed condition, which some endpoints, e.g. DynamoDB Local, report with an error
+     * code the client does not unmarshall into a {@link ConditionalCheckFailedException}.
+     */
+    private static boolean isConditionalCheckFailed(AmazonServiceException e) {
+        return e instanceof ConditionalCheckFailedException || "ConditionalCheckFailedException".equals(e.getErrorCode());
+    }
+
+    /**
+     * Waits for all the requests to complete.
+     *
+     * @throws RuntimeException the first error of a request, once all the requests completed
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        submitter.awaitAll();
+        submitter.checkFailure();
+    }
+
+    /**
+     * Returns the number of items updated.
+     */
+    public long getUpdateCount() {
+        return updateCount.get();
+    }
+}
@@ -0,0 +1,153 @@
+package calcite.adapter.dynamodb;
+
+import org.apache.calcite.linq4j.Enumerator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Joins outer rows to the items of a table sharing their key. The outer rows are read in chunks, and the distinct
+ * keys of a chunk are looked up at once, so the requests of a chunk run in parallel and a key shared by several rows
+ * of a chunk is read once. A row whose key is null matches no item.
+ */
+public class DynamoDBLookupJoinEnumerator implements Enumerator<Object> {
+    private final AtomicBoolean cancelFlag;
+    private final Enumerator<Object> outer;
+    private final int[] outerKeys;
+    private final int[] innerKeys;
+    private final int innerFieldCount;
+    private final boolean leftJoin;
+    private final int chunkSize;
+    private final Function<List<List<Object>>, Enumerator<Object>> lookup;
+
+    private final Deque<Object[]> pendingRows = new ArrayDeque<>();
+    private Object[] current;
+    private boolean outerExhausted = false;
+
+    /**
+     * @param outerKeys       the ordinals of the key columns of the outer rows, which are arrays
+     * @param innerKeys       the ordinals of the same key columns in the rows of the items
+     * @param innerFieldCount the number of columns of the rows of the items
+     * @param leftJoin        whether an outer row matching no item is returned with null columns
+     * @param chunkSize       the number of outer rows whose keys are looked up at once
+     * @param lookup          returns the rows of the items of the given distinct keys
+     */
+    public DynamoDBLookupJoinEnumerator(AtomicBoolean cancelFlag, Enumerator<Object> outer, int[] outerKeys, int[] innerKeys,
+                                        int innerFieldCount, boolean leftJoin, int chunkSize,
+                                        Function<List<List<Object>>, Enumerator<Object>> lookup) {
+        this.cancelFlag = cancelFlag;
+        this.outer = outer;
+        this.outerKeys = outerKeys;
+        this.innerKeys = innerKeys;
+        this.innerFieldCount = innerFieldCount;
+        this.leftJoin = leftJoin;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.lookup = lookup;
+    }
+
+    @Override
+    public Object current() {
+        return current;
+    }
+
+    @Override
+    public boolean moveNext() {
+        while (pendingRows.isEmpty()) {
+            if (outerExhausted || cancelFlag.get()) {
+                return false;
+            }
+            joinChunk();
+        }
+
+        current = pendingRows.poll();
+        return true;
+    }
+
+    /**
+     * Reads the next chunk of outer rows, looks their distinct keys up and queues the joined rows.
+     */
+    private void joinChunk() {
+        final List<Object[]> outerRows = new ArrayList<>(chunkSize);
+        final Set<List<Object>> keys = new LinkedHashSet<>();
+        while (outerRows.size() < chunkSize && !cancelFlag.get()) {
+            if (!outer.moveNext()) {
+                outerExhausted = true;
+                break;
+            }
+
+            final Object outerValues = outer.current();
+            final Object[] outerRow = outerValues instanceof Object[] ? (Object[]) outerValues : new Object[]{outerValues};
+            outerRows.add(outerRow);
+            final List<Object> key = getKey(outerRow, outerKeys);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+
+        final Map<List<Object>, List<Object[]>> innerRowsByKey = new HashMap<>();
+        if (!keys.isEmpty()) {
+            try (Enumerator<Object> inner = lookup.apply(new ArrayList<>(keys))) {
+                while (inner.moveNext()) {
+                    final Object innerRow = inner.current();
+                    final Object[] values = innerRow instanceof Object[] ? (Object[]) innerRow : new Object[]{innerRow};
+                    innerRowsByKey.computeIfAbsent(getKey(values, innerKeys), key -> new ArrayList<>()).add(values);
+                }
+            }
+        }
+
+        for (Object[] outerRow : outerRows) {
+            final List<Object> key = getKey(outerRow, outerKeys);
+            final List<Object[]> innerRows = key == null ? null : innerRowsByKey.get(key);
+            if (innerRows != null) {
+                for (Object[] innerRow : innerRows) {
+                    pendingRows.add(concat(outerRow, innerRow));
+                }
+            } else if (leftJoin) {
+                pendingRows.add(concat(outerRow, new Object[innerFieldCount]));
+            }
+        }
+    }
+
+    /**
+     * Returns the values of the key columns of a row, or null if one of them is null.
+     */
+    private static List<Object> getKey(Object[] row, int[] keyOrdinals) {
+        final Object[] key = new Object[keyOrdinals.length];
+        for (int i = 0; i < keyOrdinals.length; i++) {
+            key[i] = row[keyOrdinals[i]];
+            if (key[i] == null) {
+                return null;
+            }
+        }
+        return Arrays.asList(key);
+    }
+
+    private static Object[] concat(Object[] outerRow, Object[] innerRow) {
+        final Object[] row = Arrays.copyOf(outerRow, outerRow.length + innerRow.length);
+        System.arraycopy(innerRow, 0, row, outerRow.length, innerRow.length);
+        return row;
+    }
+
+    @Override
+    public void reset() {
+        outer.reset();
+        pendingRows.clear();
+        current = null;
+        outerExhausted = false;
+    }
+
+    @Override
+    public void close() {
+        pendingRows.clear();
+        outer.close();
+    }
+}
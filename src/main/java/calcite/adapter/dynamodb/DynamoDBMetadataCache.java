@@ -0,0 +1,306 @@
+package calcite.adapter.dynamodb;
+
+import calcite.adapter.dynamodb.utils.DynamoDBExecutorUtil;
+import calcite.adapter.dynamodb.utils.DynamoDBMetrics;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GlobalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.LocalSecondaryIndexDescription;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import org.apache.calcite.util.trace.CalciteTrace;
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metadata of the tables listed in a meta table: their meta items and their descriptions. It is loaded once, then
+ * refreshed in the background whenever it is read after the refresh interval has passed, so reading it never waits
+ * for DynamoDB once it is loaded. A refresh keeps the metadata of the tables whose meta item and keys did not change,
+ * so the tables built from it are kept too.
+ *
+ * <p>Only the meta table is read up front; a table is described when a query first reads it. Eagerly described
+ * tables are described in parallel, and the inactive ones are left out.
+ *
+ * <p>The metadata is shared by the schemas of the JVM reading the same meta table through the same client, so with the
+ * same credentials.
+ */
+public class DynamoDBMetadataCache {
+    private static final Logger LOGGER = CalciteTrace.getPlannerTracer();
+
+    static final long DEFAULT_REFRESH_INTERVAL_MILLIS = 60 * 1000;
+    static final int DEFAULT_DESCRIBE_PARALLELISM = 8;
+
+    private static final Map<List<Object>, DynamoDBMetadataCache> sharedCaches = new HashMap<>();
+
+    /**
+     * Metadata of a table: the types of its columns from the meta table, and its description, read when first
+     * asked for.
+     */
+    public static class TableMetadata {
+        final String tableName;
+        final Map<String, AttributeValue> columns;
+        private final AmazonDynamoDBClient dynamoDBClient;
+        private TableDescription description;
+
+        TableMetadata(AmazonDynamoDBClient dynamoDBClient, String tableName, Map<String, AttributeValue> columns) {
+            this.dynamoDBClient = dynamoDBClient;
+            this.tableName = tableName;
+            this.columns = columns;
+        }
+
+        public synchronized TableDescription getDescription() {
+            if (description == null) {
+                DynamoDBMetrics.RequestMetrics metrics = DynamoDBMetrics.getRequestMetrics(tableName, "DescribeTable");
+                metrics.recordStatement();
+                long startNanos = System.nanoTime();
+                try {
+                    description = dynamoDBClient.describeTable(tableName).getTable();
+                } catch (RuntimeException e) {
+                    metrics.recordError(System.nanoTime() - startNanos, e instanceof ProvisionedThroughputExceededException);
+                    throw e;
+                }
+                metrics.recordRequest(System.nanoTime() - startNanos, 0, 0, null);
+            }
+            return description;
+        }
+
+        synchronized boolean isDescribed() {
+            return description != null;
+        }
+
+        /**
+         * Returns whether the columns, keys and indexes are the same as the ones of another metadata; the size and
+         * item count of the table do not matter.
+         */
+        boolean isSameTable(TableMetadata other) {
+            return columns.equals(other.columns) && getStructure(getDescription()).equals(getStructure(other.getDescription()));
+        }
+
+        private static List<Object> getStructure(TableDescription description) {
+            List<Object> indexes = new ArrayList<>();
+            if (description.getGlobalSecondaryIndexes() != null) {
+                for (GlobalSecondaryIndexDescription index : description.getGlobalSecondaryIndexes()) {
+                    indexes.add(Arrays.asList(index.getIndexName(), index.getKeySchema(), index.getProjection(), index.getIndexStatus()));
+                }
+            }
+            if (description.getLocalSecondaryIndexes() != null) {
+                for (LocalSecondaryIndexDescription index : description.getLocalSecondaryIndexes()) {
+                    indexes.add(Arrays.asList(index.getIndexName(), index.getKeySchema(), index.getProjection()));
+                }
+            }
+
+            return Arrays.asList(description.getKeySchema(), indexes);
+        }
+    }
+
+    private final AmazonDynamoDBClient dynamoDBClient;
+    private final String metaTableName;
+    private final long refreshIntervalNanos;
+    private final boolean describeEagerly;
+    private final int describeParallelism;
+
+    private volatile Map<String, TableMetadata> tables = null;
+    private volatile long loadedAtNanos;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final AtomicLong loadCount = new AtomicLong();
+
+    /**
+     * @param refreshIntervalMillis how old the metadata gets before it is refreshed, 0 to never refresh it
+     * @param describeEagerly       whether to describe all the tables when loading the metadata
+     * @param describeParallelism   how many tables are described at the same time
+     */
+    public DynamoDBMetadataCache(AmazonDynamoDBClient dynamoDBClient, String metaTableName, long refreshIntervalMillis,
+                                 boolean describeEagerly, int describeParallelism) {
+        this.dynamoDBClient = dynamoDBClient;
+        this.metaTableName = metaTableName;
+        this.refreshIntervalNanos = TimeUnit.MILLISECONDS.toNanos(refreshIntervalMillis);
+        this.describeEagerly = describeEagerly;
+        this.describeParallelism = Math.max(1, describeParallelism);
+    }
+
+    /**
+     * Returns the cache shared by the schemas reading the given meta table through the given client with the same
+     * options. The tables are described and refreshed with that client only.
+     */
+    public static synchronized DynamoDBMetadataCache getSharedCache(AmazonDynamoDBClient dynamoDBClient, String metaTableName,
+                                                                    long refreshIntervalMillis, boolean describeEagerly,
+                                                                    int describeParallelism) {
+        return sharedCaches.computeIfAbsent(Arrays.asList(dynamoDBClient, metaTableName, refreshIntervalMillis, describeEagerly, describeParallelism),
+                key -> new DynamoDBMetadataCache(dynamoDBClient, metaTableName, refreshIntervalMillis, describeEagerly, describeParallelism));
+    }
+
+    /**
+     * Returns the metadata of the tables by name, only the active ones if they are described eagerly. Only the first
+     * call waits for the metadata to be loaded; a later call finding it older than the refresh interval starts a
+     * refresh in the background and returns the current metadata.
+     */
+    public Map<String, TableMetadata> getTables() {
+        Map<String, TableMetadata> current = tables;
+        if (current == null) {
+            synchronized (this) {
+                if (tables == null) {
+                    tables = load(Collections.emptyMap());
+                    loadedAtNanos = System.nanoTime();
+                }
+                return tables;
+            }
+        }
+
+        if (refreshIntervalNanos > 0 && System.nanoTime() - loadedAtNanos > refreshIntervalNanos
+                && refreshing.compareAndSet(false, true) && DynamoDBExecutorUtil.trySubmit(this::refresh) == null) {
+            // the shared pool is busy, a later read tries again.
+            refreshing.set(false);
+        }
+        return current;
+    }
+
+    /**
+     * Reloads the metadata, keeping the metadata of the tables that did not change.
+     */
+    void refresh() {
+        try {
+            Map<String, TableMetadata> current = tables;
+            tables = load(current == null ? Collections.emptyMap() : current);
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to refresh the metadata of meta table " + metaTableName + ", will retry", e);
+        } finally {
+            // after a failure too, so a failing refresh is not retried on every read.
+            loadedAtNanos = System.nanoTime();
+            refreshing.set(false);
+        }
+    }
+
+    /**
+     * Returns how many times the metadata has been loaded from DynamoDB.
+     */
+    public long getLoadCount() {
+        return loadCount.get();
+    }
+
+    /**
+     * Reads the meta table, and describes the tables that are described eagerly or were described before, in
+     * parallel.
+     */
+    private Map<String, TableMetadata> load(Map<String, TableMetadata> previousTables) {
+        loadCount.incrementAndGet();
+
+        List<TableMetadata> tables = new ArrayList<>();
+        for (Map<String, AttributeValue> item : scanMetaTable()) {
+            String tableName = item.remove(DynamoDBSchema.META_TABLE_NAME).getS();
+            tables.add(new TableMetadata(dynamoDBClient, tableName, Collections.unmodifiableMap(item)));
+        }
+
+        List<TableMetadata> tablesToDescribe = new ArrayList<>();
+        for (TableMetadata table : tables) {
+            TableMetadata previousTable = previousTables.get(table.tableName);
+            if (describeEagerly || previousTable != null && previousTable.isDescribed()) {
+                tablesToDescribe.add(table);
+            }
+        }
+        describe(tablesToDescribe);
+
+        Map<String, TableMetadata> tableMap = new LinkedHashMap<>();
+        for (TableMetadata table : tables) {
+            if (describeEagerly && !table.getDescription().getTableStatus().equals("ACTIVE")) {
+                LOGGER.warn("Ignoring table " + table.tableName + " as the status is: " + table.getDescription().getTableStatus());
+                continue;
+            }
+
+            // a table described neither before nor now is only compared by its columns.
+            TableMetadata previousTable = previousTables.get(table.tableName);
+            boolean same = previousTable != null && (table.isDescribed()
+                    ? previousTable.isDescribed() && previousTable.isSameTable(table)
+                    : !previousTable.isDescribed() && previousTable.columns.equals(table.columns));
+            tableMap.put(table.tableName, same ? previousTable : table);
+        }
+
+        return Collections.unmodifiableMap(tableMap);
+    }
+
+    /**
+     * Describes tables, at most {@code describeParallelism} at the same time.
+     */
+    private void describe(List<TableMetadata> tables) {
+        if (tables.size() <= 1 || describeParallelism == 1) {
+            tables.forEach(TableMetadata::getDescription);
+            return;
+        }
+
+        Queue<TableMetadata> queue = new ConcurrentLinkedQueue<>(tables);
+        Runnable worker = () -> {
+            TableMetadata table;
+            while ((table = queue.poll()) != null) {
+                table.getDescription();
+            }
+        };
+
+        // the calling thread is one of the workers, and the only one if the shared pool is busy.
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 1; i < Math.min(describeParallelism, tables.size()); i++) {
+            Future<?> future = DynamoDBExecutorUtil.trySubmit(worker);
+            if (future == null) {
+                break;
+            }
+            workers.add(future);
+        }
+
+        try {
+            worker.run();
+            for (Future<?> future : workers) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while describing the tables of meta table: " + metaTableName, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private List<Map<String, AttributeValue>> scanMetaTable() {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        DynamoDBMetrics.RequestMetrics metrics = DynamoDBMetrics.getRequestMetrics(metaTableName, "Scan");
+        metrics.recordStatement();
+
+        ScanResult scanResult = null;
+        do {
+            ScanRequest scanRequest = new ScanRequest(metaTableName).withReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+            if (scanResult != null) {
+                scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+            }
+
+            long startNanos = System.nanoTime();
+            try {
+                scanResult = dynamoDBClient.scan(scanRequest);
+            } catch (RuntimeException e) {
+                metrics.recordError(System.nanoTime() - startNanos, e instanceof ProvisionedThroughputExceededException);
+                throw e;
+            }
+            metrics.recordRequest(System.nanoTime() - startNanos, scanResult.getScannedCount(), scanResult.getCount(),
+                    scanResult.getConsumedCapacity() == null ? null : scanResult.getConsumedCapacity().getCapacityUnits());
+            items.addAll(scanResult.getItems());
+        } while (scanResult.getLastEvaluatedKey() != null && !scanResult.getLastEvaluatedKey().isEmpty());
+
+        return items;
+    }
+}
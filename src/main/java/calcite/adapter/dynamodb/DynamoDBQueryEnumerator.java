@@ -1,37 +1,87 @@
 package calcite.adapter.dynamodb;
 
+import calcite.adapter.dynamodb.utils.DynamoDBRowConverter;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
+import com.amazonaws.services.dynamodbv2.model.Select;
 import org.apache.commons.lang.StringUtils;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Runs one query for every key condition expression: every query is a page stream of its own, and up to
+ * {@code queryParallelism} of them run at the same time.
+ */
 public class DynamoDBQueryEnumerator extends AbstractDynamoDBEnumerator {
-    private QueryResult queryResult = null;
-    private int queryIndex = 0;
+    private final String indexName;
+    private final int queryParallelism;
+    private final boolean orderedQueries;
+    private final boolean scanIndexForward;
 
-    public DynamoDBQueryEnumerator(AtomicBoolean cancelFlag, AmazonDynamoDBClient dynamoDBClient, String tableName, Map<String, AttributeValue> dynamoDBTableSchema, String projectionExpression, List<String> filterExpressions, List<String> keyConditionExpressions, Map<String, AttributeValue> expressionAttributeMap) {
-        super(cancelFlag, dynamoDBClient, tableName, dynamoDBTableSchema, projectionExpression, filterExpressions, keyConditionExpressions, expressionAttributeMap);
+    public DynamoDBQueryEnumerator(AtomicBoolean cancelFlag, AmazonDynamoDBClient dynamoDBClient, String tableName, DynamoDBRowConverter rowConverter, String projectionExpression, List<String> filterExpressions, List<String> keyConditionExpressions, Map<String, AttributeValue> expressionAttributeMap,
+                                   Map<String, String> attributeNameMap, String indexName, int prefetchPages, int queryParallelism, boolean orderedQueries, boolean scanIndexForward) {
+        super(cancelFlag, dynamoDBClient, tableName, rowConverter, projectionExpression, filterExpressions, keyConditionExpressions, expressionAttributeMap,
+                attributeNameMap, prefetchPages);
+
+        this.indexName = indexName;
+        this.queryParallelism = queryParallelism;
+        this.orderedQueries = orderedQueries;
+        this.scanIndexForward = scanIndexForward;
+    }
+
+    @Override
+    protected String getOperationName() {
+        return "Query";
+    }
+
+    @Override
+    protected int getStreamCount() {
+        return keyConditionExpressions.size();
+    }
+
+    @Override
+    protected int getStreamParallelism() {
+        return Math.min(queryParallelism, keyConditionExpressions.size());
+    }
+
+    @Override
+    protected boolean isStreamOrderPreserved() {
+        return orderedQueries;
+    }
+
+    @Override
+    protected Page fetchPage(int queryIndex, Map<String, AttributeValue> exclusiveStartKey) {
+        return toPage(dynamoDBClient.query(createQueryRequest(queryIndex, exclusiveStartKey)));
     }
 
     @Override
-    protected void fetchItems() {
+    protected CompletableFuture<Page> fetchPageAsync(int queryIndex, Map<String, AttributeValue> exclusiveStartKey) {
+        AsyncResult<QueryRequest, QueryResult> result = new AsyncResult<>();
+        getAsyncClient().queryAsync(createQueryRequest(queryIndex, exclusiveStartKey), result);
+        return result.thenApply(this::toPage);
+    }
+
+    private QueryRequest createQueryRequest(int queryIndex, Map<String, AttributeValue> exclusiveStartKey) {
         QueryRequest queryRequest = new QueryRequest(tableName);
-        if (queryResult != null) {
-            queryRequest.setExclusiveStartKey(queryResult.getLastEvaluatedKey());
-        }
+        queryRequest.setIndexName(indexName);
+        queryRequest.setExclusiveStartKey(exclusiveStartKey);
 
         String keyConditionExpression = keyConditionExpressions.get(queryIndex);
         String filterExpression = filterExpressions.get(queryIndex);
 
         queryRequest.setKeyConditionExpression(keyConditionExpression);
+        queryRequest.setScanIndexForward(scanIndexForward);
 
-        if (!StringUtils.isBlank(projectionExpression)) {
+        if (selectCount) {
+            queryRequest.setSelect(Select.COUNT);
+        } else if (!StringUtils.isBlank(projectionExpression)) {
             queryRequest.setProjectionExpression(projectionExpression);
         }
         if (!StringUtils.isBlank(filterExpression)) {
@@ -46,26 +96,19 @@ public class DynamoDBQueryEnumerator extends AbstractDynamoDBEnumerator {
             }
         }
         queryRequest.setExpressionAttributeValues(trimmedExpressionAttributeMap);
+        queryRequest.setExpressionAttributeNames(getExpressionAttributeNames(queryRequest.getProjectionExpression(), keyConditionExpression, filterExpression));
+        queryRequest.setLimit(getPageLimit(!StringUtils.isBlank(filterExpression)));
 
-        queryResult = dynamoDBClient.query(queryRequest);
-        cachedItems = queryResult.getItems();
-    }
-
-    @Override
-    protected boolean finished() {
-        return (queryResult.getLastEvaluatedKey() == null || queryResult.getLastEvaluatedKey().isEmpty())
-                && queryIndex == keyConditionExpressions.size() - 1;
-    }
-
-    @Override
-    protected void prepareNextFetch() {
-        queryIndex++;
+        queryRequest.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        return queryRequest;
     }
 
-    @Override
-    protected void resetStatus() {
-        queryIndex = 0;
-
-        queryResult = null;
+    private Page toPage(QueryResult queryResult) {
+        if (selectCount) {
+            return Page.counted(queryResult.getCount(), queryResult.getLastEvaluatedKey(), queryResult.getScannedCount())
+                    .withConsumedCapacity(queryResult.getConsumedCapacity());
+        }
+        return new Page(queryResult.getItems(), queryResult.getLastEvaluatedKey(), queryResult.getScannedCount())
+                .withConsumedCapacity(queryResult.getConsumedCapacity());
     }
 }
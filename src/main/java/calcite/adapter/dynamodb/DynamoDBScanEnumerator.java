@@ -1,30 +1,71 @@
 package calcite.adapter.dynamodb;
 
+import calcite.adapter.dynamodb.utils.DynamoDBRowConverter;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.Select;
 import org.apache.commons.lang.StringUtils;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Scans the table, optionally split into parallel segments: every segment is a page stream of its own.
+ */
 public class DynamoDBScanEnumerator extends AbstractDynamoDBEnumerator {
-    private ScanResult scanResult = null;
+    private final int totalSegments;
 
-    public DynamoDBScanEnumerator(AtomicBoolean cancelFlag, AmazonDynamoDBClient dynamoDBClient, String tableName, Map<String, AttributeValue> dynamoDBTableSchema, String projectionExpression, List<String> filterExpressions, List<String> keyConditionExpressions, Map<String, AttributeValue> expressionAttributeMap) {
-        super(cancelFlag, dynamoDBClient, tableName, dynamoDBTableSchema, projectionExpression, filterExpressions, keyConditionExpressions, expressionAttributeMap);
+    public DynamoDBScanEnumerator(AtomicBoolean cancelFlag, AmazonDynamoDBClient dynamoDBClient, String tableName, DynamoDBRowConverter rowConverter, String projectionExpression, List<String> filterExpressions, List<String> keyConditionExpressions, Map<String, AttributeValue> expressionAttributeMap,
+                                  Map<String, String> attributeNameMap, int prefetchPages, int totalSegments) {
+        super(cancelFlag, dynamoDBClient, tableName, rowConverter, projectionExpression, filterExpressions, keyConditionExpressions, expressionAttributeMap,
+                attributeNameMap, prefetchPages);
+
+        this.totalSegments = totalSegments;
+    }
+
+    @Override
+    protected String getOperationName() {
+        return "Scan";
+    }
+
+    @Override
+    protected int getStreamCount() {
+        return totalSegments;
+    }
+
+    @Override
+    protected int getStreamParallelism() {
+        return totalSegments;
+    }
+
+    @Override
+    protected Page fetchPage(int segment, Map<String, AttributeValue> exclusiveStartKey) {
+        return toPage(dynamoDBClient.scan(createScanRequest(segment, exclusiveStartKey)));
     }
 
     @Override
-    protected void fetchItems() {
+    protected CompletableFuture<Page> fetchPageAsync(int segment, Map<String, AttributeValue> exclusiveStartKey) {
+        AsyncResult<ScanRequest, ScanResult> result = new AsyncResult<>();
+        getAsyncClient().scanAsync(createScanRequest(segment, exclusiveStartKey), result);
+        return result.thenApply(this::toPage);
+    }
+
+    private ScanRequest createScanRequest(int segment, Map<String, AttributeValue> exclusiveStartKey) {
         ScanRequest scanRequest = new ScanRequest(tableName);
-        if (scanResult != null) {
-            scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+        scanRequest.setExclusiveStartKey(exclusiveStartKey);
+        if (totalSegments > 1) {
+            scanRequest.setSegment(segment);
+            scanRequest.setTotalSegments(totalSegments);
         }
 
-        if (!StringUtils.isBlank(projectionExpression)) {
+        if (selectCount) {
+            scanRequest.setSelect(Select.COUNT);
+        } else if (!StringUtils.isBlank(projectionExpression)) {
             scanRequest.setProjectionExpression(projectionExpression);
         }
         if (!filterExpressions.isEmpty()) {
@@ -34,25 +75,19 @@ public class DynamoDBScanEnumerator extends AbstractDynamoDBEnumerator {
                 scanRequest.setExpressionAttributeValues(expressionAttributeMap);
             }
         }
+        scanRequest.setExpressionAttributeNames(getExpressionAttributeNames(scanRequest.getProjectionExpression(), scanRequest.getFilterExpression()));
+        scanRequest.setLimit(getPageLimit(scanRequest.getFilterExpression() != null));
 
-        scanResult = dynamoDBClient.scan(scanRequest);
-        cachedItems = scanResult.getItems();
+        scanRequest.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        return scanRequest;
     }
 
-    @Override
-    protected boolean finished() {
-        return scanResult.getLastEvaluatedKey() == null || scanResult.getLastEvaluatedKey().isEmpty();
-    }
-
-    @Override
-    protected void prepareNextFetch() {
-
-    }
-
-    @Override
-    protected void resetStatus() {
-        scanResult = null;
+    private Page toPage(ScanResult scanResult) {
+        if (selectCount) {
+            return Page.counted(scanResult.getCount(), scanResult.getLastEvaluatedKey(), scanResult.getScannedCount())
+                    .withConsumedCapacity(scanResult.getConsumedCapacity());
+        }
+        return new Page(scanResult.getItems(), scanResult.getLastEvaluatedKey(), scanResult.getScannedCount())
+                .withConsumedCapacity(scanResult.getConsumedCapacity());
     }
-
-
 }
@@ -1,119 +1,198 @@
 package calcite.adapter.dynamodb;
 
+import calcite.adapter.dynamodb.utils.DynamoDBCapacityThrottle;
+import calcite.adapter.dynamodb.utils.DynamoDBResultCache;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.model.*;
 import com.google.common.collect.ImmutableMap;
 import org.apache.calcite.schema.Table;
 import org.apache.calcite.schema.impl.AbstractSchema;
-import org.apache.calcite.util.trace.CalciteTrace;
-import org.slf4j.Logger;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
-import java.util.NoSuchElementException;
 
 public class DynamoDBSchema extends AbstractSchema {
-    private static final Logger LOGGER = CalciteTrace.getPlannerTracer();
-
     public static final String META_TABLE_NAME = "TABLE_NAME";
 
+    /**
+     * Auto-tuned parallel scans use one segment for every 2 GB of table data.
+     */
+    static final long AUTO_SCAN_SEGMENT_BYTES = 2L * 1024 * 1024 * 1024;
+    static final int MAX_AUTO_SCAN_SEGMENTS = 32;
+
+    static final int DEFAULT_PREFETCH_PAGES = 1;
+    static final int DEFAULT_QUERY_PARALLELISM = 8;
+    static final int DEFAULT_WRITE_PARALLELISM = 8;
+
     private AmazonDynamoDBClient dynamoDBClient;
     private String metaTableName;
+    private Map<String, Object> operand;
+    private Map<String, Map<String, Object>> tableOptions;
+    private DynamoDBMetadataCache metadataCache;
+
+    // the metadata the tables were built from.
+    private Map<String, DynamoDBMetadataCache.TableMetadata> tableMetadata = null;
+    private Map<String, Table> tableMap = null;
 
     public DynamoDBSchema(AmazonDynamoDBClient dynamoDBClient, String metaTableName) {
-        this.dynamoDBClient = dynamoDBClient;
-        this.metaTableName = metaTableName;
+        this(dynamoDBClient, metaTableName, Collections.emptyMap());
     }
 
-    private Iterator<Map<String, AttributeValue>> getDynamoDBTableSchemas() {
-        return new Iterator<Map<String, AttributeValue>>() {
-            int currentIndex = 0;
-            ScanResult scanResult = null;
+    @SuppressWarnings("unchecked")
+    public DynamoDBSchema(AmazonDynamoDBClient dynamoDBClient, String metaTableName, Map<String, Object> operand) {
+        this.dynamoDBClient = dynamoDBClient;
+        this.metaTableName = metaTableName;
+        this.operand = operand;
 
-            private boolean scanFinished() {
-                return scanResult.getLastEvaluatedKey() == null || scanResult.getLastEvaluatedKey().isEmpty();
-            }
+        this.tableOptions = (Map<String, Map<String, Object>>) operand.get("tableOptions");
+        if (this.tableOptions == null) {
+            this.tableOptions = Collections.emptyMap();
+        }
 
-            private void scan() {
-                ScanRequest scanRequest = new ScanRequest(metaTableName);
-                if (scanResult != null) {
-                    scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
-                }
+        Number metadataRefreshSeconds = (Number) operand.get("metadataRefreshSeconds");
+        long metadataRefreshMillis = metadataRefreshSeconds == null
+                ? DynamoDBMetadataCache.DEFAULT_REFRESH_INTERVAL_MILLIS : (long) (metadataRefreshSeconds.doubleValue() * 1000);
+        boolean describeEagerly = "eager".equals(operand.get("describeTables"));
+        Number describeParallelism = (Number) operand.get("describeParallelism");
+        int describeThreads = describeParallelism == null
+                ? DynamoDBMetadataCache.DEFAULT_DESCRIBE_PARALLELISM : describeParallelism.intValue();
+        this.metadataCache = DynamoDBMetadataCache.getSharedCache(dynamoDBClient, metaTableName, metadataRefreshMillis,
+                describeEagerly, describeThreads);
+    }
 
-                scanResult = dynamoDBClient.scan(scanRequest);
-            }
+    private DynamoDBTable createTable(String tableName, DynamoDBMetadataCache.TableMetadata tableMetadata) {
+        Number scanSegments = (Number) getOption(tableName, "scanSegments");
 
-            @Override
-            public boolean hasNext() {
-                if (scanResult == null) {
-                    scan();
-                }
+        return new DynamoDBTable(tableMetadata.columns, tableName, tableMetadata::getDescription, dynamoDBClient,
+                getPrefetchPages(tableName), scanSegments == null ? 0 : Math.max(1, scanSegments.intValue()),
+                getQueryParallelism(tableName), Boolean.TRUE.equals(getOption(tableName, "orderedQueries")),
+                getResultCacheTtlMillis(tableName) > 0 ? getResultCache() : null, getResultCacheTtlMillis(tableName),
+                tableDescription -> getReadThrottle(tableName, tableDescription), getWriteParallelism(tableName),
+                tableDescription -> getWriteThrottle(tableName, tableDescription));
+    }
 
-                return currentIndex < scanResult.getItems().size() || !scanFinished();
-            }
+    /**
+     * Returns the read capacity budget of a table, shared with the other schemas of the same client: "readCapacityUnits" per second, or
+     * "readCapacityPercent" of the provisioned read capacity of the table. Returns null if there is none.
+     */
+    private DynamoDBCapacityThrottle getReadThrottle(String tableName, TableDescription tableDescription) {
+        Number readCapacityUnits = (Number) getOption(tableName, "readCapacityUnits");
+        Number readCapacityPercent = (Number) getOption(tableName, "readCapacityPercent");
+
+        double unitsPerSecond = 0;
+        if (readCapacityUnits != null) {
+            unitsPerSecond = readCapacityUnits.doubleValue();
+        } else if (readCapacityPercent != null && tableDescription.getProvisionedThroughput() != null
+                && tableDescription.getProvisionedThroughput().getReadCapacityUnits() != null) {
+            unitsPerSecond = tableDescription.getProvisionedThroughput().getReadCapacityUnits() * readCapacityPercent.doubleValue() / 100;
+        }
 
-            @Override
-            public Map<String, AttributeValue> next() {
-                if (currentIndex < scanResult.getItems().size()) {
-                    Map<String, AttributeValue> item = scanResult.getItems().get(currentIndex);
+        if (unitsPerSecond <= 0) {
+            return null;
+        }
+        return DynamoDBCapacityThrottle.getSharedThrottle(dynamoDBClient, tableName, unitsPerSecond);
+    }
 
-                    currentIndex++;
+    /**
+     * Returns the write capacity budget of a table, shared with the other schemas of the same client: "writeCapacityUnits" per second, or
+     * "writeCapacityPercent" of the provisioned write capacity of the table. Returns null if there is none.
+     */
+    private DynamoDBCapacityThrottle getWriteThrottle(String tableName, TableDescription tableDescription) {
+        Number writeCapacityUnits = (Number) getOption(tableName, "writeCapacityUnits");
+        Number writeCapacityPercent = (Number) getOption(tableName, "writeCapacityPercent");
+
+        double unitsPerSecond = 0;
+        if (writeCapacityUnits != null) {
+            unitsPerSecond = writeCapacityUnits.doubleValue();
+        } else if (writeCapacityPercent != null && tableDescription.getProvisionedThroughput() != null
+                && tableDescription.getProvisionedThroughput().getWriteCapacityUnits() != null) {
+            unitsPerSecond = tableDescription.getProvisionedThroughput().getWriteCapacityUnits() * writeCapacityPercent.doubleValue() / 100;
+        }
 
-                    return item;
-                } else if (!scanFinished()) {
-                    scan();
-                    currentIndex = 0;
+        if (unitsPerSecond <= 0) {
+            return null;
+        }
+        return DynamoDBCapacityThrottle.getSharedThrottle(dynamoDBClient, tableName + "/write", unitsPerSecond);
+    }
 
-                    return next();
-                }
+    /**
+     * Returns the value of an option for a table: an entry of the "tableOptions" operand for the table wins over
+     * the schema operand of the same name.
+     */
+    private Object getOption(String tableName, String optionName) {
+        Map<String, Object> tableOption = tableOptions.get(tableName);
+        if (tableOption != null && tableOption.get(optionName) != null) {
+            return tableOption.get(optionName);
+        }
 
-                throw new NoSuchElementException("Not more element to return.");
-            }
-        };
+        return operand.get(optionName);
     }
 
-    private DynamoDBTable createTable(Map<String, AttributeValue> dynamoDBTableSchema,
-                                      String tableName, String hashKeyName, String sortKeyName) {
-        return new DynamoDBTable(dynamoDBTableSchema, tableName, hashKeyName, sortKeyName, dynamoDBClient);
+    private int getPrefetchPages(String tableName) {
+        Number prefetchPages = (Number) getOption(tableName, "prefetchPages");
+        return prefetchPages == null ? DEFAULT_PREFETCH_PAGES : prefetchPages.intValue();
     }
 
-    @Override
-    protected Map<String, Table> getTableMap() {
-        final ImmutableMap.Builder<String, Table> builder = ImmutableMap.builder();
-
-        Iterator<Map<String, AttributeValue>> dynamoDBTableSchemas = getDynamoDBTableSchemas();
+    private int getQueryParallelism(String tableName) {
+        Number queryParallelism = (Number) getOption(tableName, "queryParallelism");
+        return queryParallelism == null ? DEFAULT_QUERY_PARALLELISM : Math.max(1, queryParallelism.intValue());
+    }
 
-        while (dynamoDBTableSchemas.hasNext()) {
-            Map<String, AttributeValue> dynamoDBTableSchema = dynamoDBTableSchemas.next();
+    private int getWriteParallelism(String tableName) {
+        Number writeParallelism = (Number) getOption(tableName, "writeParallelism");
+        return writeParallelism == null ? DEFAULT_WRITE_PARALLELISM : Math.max(1, writeParallelism.intValue());
+    }
 
-            String tableName = dynamoDBTableSchema.get(META_TABLE_NAME).getS();
+    private long getResultCacheTtlMillis(String tableName) {
+        Number resultCacheTtlSeconds = (Number) getOption(tableName, "resultCacheTtlSeconds");
+        return resultCacheTtlSeconds == null ? 0 : (long) (resultCacheTtlSeconds.doubleValue() * 1000);
+    }
 
-            TableDescription tableDescription = dynamoDBClient.describeTable(tableName).getTable();
+    /**
+     * Returns the result cache shared with the other schemas of the same client, i.e. the same client operands, with
+     * the same "resultCacheMaxBytes" budget.
+     */
+    private DynamoDBResultCache getResultCache() {
+        Number resultCacheMaxBytes = (Number) operand.get("resultCacheMaxBytes");
+        return DynamoDBResultCache.getSharedCache(dynamoDBClient,
+                resultCacheMaxBytes == null ? DynamoDBResultCache.DEFAULT_MAX_BYTES : resultCacheMaxBytes.longValue());
+    }
 
-            if (tableDescription.getTableStatus().equals("ACTIVE")) {
-                dynamoDBTableSchema.remove(META_TABLE_NAME);
+    /**
+     * Returns how many segments a full scan of a table is split into without a "scanSegments" option: one for every
+     * 2 GB of table data.
+     */
+    static int getAutoScanSegments(TableDescription tableDescription) {
+        long tableSizeBytes = tableDescription.getTableSizeBytes() == null ? 0 : tableDescription.getTableSizeBytes();
+        return (int) Math.min(MAX_AUTO_SCAN_SEGMENTS, Math.max(1, tableSizeBytes / AUTO_SCAN_SEGMENT_BYTES));
+    }
 
-                String hashKeyName = null;
-                String sortKeyName = null;
-                for (KeySchemaElement keySchemaElement : tableDescription.getKeySchema()) {
-                    if (keySchemaElement.getKeyType().equals("HASH")) {
-                        hashKeyName = keySchemaElement.getAttributeName();
-                    } else if (keySchemaElement.getKeyType().equals("RANGE")) {
-                        sortKeyName = keySchemaElement.getAttributeName();
-                    }
-                }
+    /**
+     * Returns the tables of the cached metadata. A table is only built again when its metadata changed.
+     */
+    @Override
+    protected synchronized Map<String, Table> getTableMap() {
+        Map<String, DynamoDBMetadataCache.TableMetadata> metadata = metadataCache.getTables();
+        if (metadata == tableMetadata) {
+            return tableMap;
+        }
 
-                DynamoDBTable table = createTable(dynamoDBTableSchema, tableName, hashKeyName, sortKeyName);
+        final ImmutableMap.Builder<String, Table> builder = ImmutableMap.builder();
+        for (Map.Entry<String, DynamoDBMetadataCache.TableMetadata> entry : metadata.entrySet()) {
+            String tableName = entry.getKey();
+            DynamoDBMetadataCache.TableMetadata table = entry.getValue();
 
-                builder.put(tableName, table);
+            if (tableMetadata != null && tableMetadata.get(tableName) == table) {
+                builder.put(tableName, tableMap.get(tableName));
             } else {
-                LOGGER.warn("Ignoring table " + tableName + " as the status is: " + tableDescription.getTableStatus());
+                builder.put(tableName, createTable(tableName, table));
             }
-
-
         }
 
-        return builder.build();
+        tableMap = builder.build();
+        tableMetadata = metadata;
+        return tableMap;
     }
 }
-
@@ -10,13 +10,9 @@ import java.util.Map;
 public class DynamoDBSchemaFactory implements SchemaFactory {
     @Override
     public Schema create(SchemaPlus parentSchema, String name, Map<String, Object> operand) {
-        String regionName = (String) operand.get("region");
         String metaTableName = (String) operand.get("meta");
-        Boolean local = (Boolean) operand.get("local");
-        if (local == null) {
-            local = false;
-        }
 
-        return new DynamoDBSchema(DynamoDBClientUtil.createAmazonDynamoDBClient(regionName, local), metaTableName);
+        // the schemas with the same client operands share a client, and its connection pool.
+        return new DynamoDBSchema(DynamoDBClientUtil.getSharedClient(operand), metaTableName, operand);
     }
 }
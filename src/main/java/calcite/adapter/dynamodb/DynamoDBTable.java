@@ -1,77 +1,643 @@
 package calcite.adapter.dynamodb;
 
 import calcite.adapter.dynamodb.rel.DynamoDBRel;
+import calcite.adapter.dynamodb.rel.DynamoDBRelMetadataProvider;
 import calcite.adapter.dynamodb.rel.DynamoDBTableScan;
+import calcite.adapter.dynamodb.rules.DynamoDBTableModifyRule;
+import calcite.adapter.dynamodb.utils.DynamoDBColumnType;
+import calcite.adapter.dynamodb.utils.DynamoDBItemConverter;
+import calcite.adapter.dynamodb.utils.DynamoDBCapacityThrottle;
+import calcite.adapter.dynamodb.utils.DynamoDBResultCache;
+import calcite.adapter.dynamodb.utils.DynamoDBRowConverter;
 import calcite.adapter.dynamodb.utils.DynamoDBTypeConverter;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
-import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import com.amazonaws.services.dynamodbv2.model.TableDescription;
+import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
+import com.google.common.collect.ImmutableList;
 import org.apache.calcite.DataContext;
 import org.apache.calcite.linq4j.*;
 import org.apache.calcite.linq4j.tree.Expression;
 import org.apache.calcite.plan.RelOptCluster;
 import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.prepare.Prepare;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.TableModify;
+import org.apache.calcite.rel.logical.LogicalTableModify;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rel.type.RelDataTypeFactory;
-import org.apache.calcite.schema.QueryableTable;
+import org.apache.calcite.schema.ModifiableTable;
 import org.apache.calcite.schema.SchemaPlus;
 import org.apache.calcite.schema.Schemas;
+import org.apache.calcite.schema.Statistic;
+import org.apache.calcite.schema.Statistics;
 import org.apache.calcite.schema.TranslatableTable;
 import org.apache.calcite.schema.impl.AbstractTable;
+import org.apache.calcite.util.ImmutableBitSet;
 import org.apache.calcite.util.Pair;
 
 import java.lang.reflect.Type;
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A DynamoDB table, read with Scan, Query and BatchGetItem requests, also to join rows to its items by their key,
+ * and written with BatchWriteItem and UpdateItem requests.
+ */
+public class DynamoDBTable extends AbstractTable implements ModifiableTable, TranslatableTable {
+    /**
+     * The row count Calcite assumes for a table of unknown size.
+     */
+    static final double DEFAULT_ROW_COUNT = 100d;
+    /**
+     * The item size assumed when the table reports no size, e.g. a new table whose size DynamoDB did not update yet.
+     */
+    static final double DEFAULT_ITEM_BYTES = 1024d;
+
+    private static final Pattern ATTRIBUTE_ALIAS_PATTERN = Pattern.compile("#[A-Za-z0-9_]+");
+    private static final Pattern VALUE_PLACEHOLDER_PATTERN = Pattern.compile(":[A-Za-z0-9_]+");
 
-public class DynamoDBTable extends AbstractTable implements QueryableTable, TranslatableTable {
     private Map<String, AttributeValue> dynamoDBTableSchema;
     private String tableName;
     private AmazonDynamoDBClient dynamoDBClient;
+    private Supplier<TableDescription> tableDescription;
+    private int prefetchPages;
+    private int scanSegments;
+    private int queryParallelism;
+    private boolean orderedQueries;
+    private DynamoDBResultCache resultCache;
+    private long resultCacheTtlMillis;
+    private Function<TableDescription, DynamoDBCapacityThrottle> readThrottleFactory;
+    private int writeParallelism;
+    private Function<TableDescription, DynamoDBCapacityThrottle> writeThrottleFactory;
+
+    // resolved from the table description when a query first reads the table.
     private String hashKeyName;
     private String sortKeyName;
+    private DynamoDBIndex primaryKey;
+    private List<DynamoDBIndex> secondaryIndexes;
+    private int resolvedScanSegments;
+    private DynamoDBCapacityThrottle readThrottle;
+    private DynamoDBCapacityThrottle writeThrottle;
+    private long itemCount;
+    private long tableSizeBytes;
 
-    public DynamoDBTable(Map<String, AttributeValue> dynamoDBTableSchema, String tableName, String hashKeyName, String sortKeyName, AmazonDynamoDBClient dynamoDBClient) {
+    /**
+     * @param tableDescription the description of the table, only asked for when a query first reads the table
+     * @param scanSegments     the number of segments of a full scan, 0 to derive it from the table size
+     * @param readThrottleFactory returns the read capacity budget of the table from its description, null if unlimited
+     * @param writeParallelism the number of BatchWriteItem requests an INSERT sends in parallel
+     * @param writeThrottleFactory returns the write capacity budget of the table from its description, null if unlimited
+     */
+    public DynamoDBTable(Map<String, AttributeValue> dynamoDBTableSchema, String tableName, Supplier<TableDescription> tableDescription,
+                         AmazonDynamoDBClient dynamoDBClient, int prefetchPages, int scanSegments, int queryParallelism, boolean orderedQueries,
+                         DynamoDBResultCache resultCache, long resultCacheTtlMillis,
+                         Function<TableDescription, DynamoDBCapacityThrottle> readThrottleFactory, int writeParallelism,
+                         Function<TableDescription, DynamoDBCapacityThrottle> writeThrottleFactory) {
         this.dynamoDBTableSchema = dynamoDBTableSchema;
         this.tableName = tableName;
-        this.hashKeyName = hashKeyName;
-        this.sortKeyName = sortKeyName;
+        this.tableDescription = tableDescription;
         this.dynamoDBClient = dynamoDBClient;
+        this.prefetchPages = prefetchPages;
+        this.scanSegments = scanSegments;
+        this.queryParallelism = queryParallelism;
+        this.orderedQueries = orderedQueries;
+        this.resultCache = resultCache;
+        this.resultCacheTtlMillis = resultCacheTtlMillis;
+        this.readThrottleFactory = readThrottleFactory;
+        this.writeParallelism = writeParallelism;
+        this.writeThrottleFactory = writeThrottleFactory;
+    }
+
+    /**
+     * Reads the keys, indexes, size and read and write capacity of the table from its description, once.
+     */
+    private synchronized void resolve() {
+        if (primaryKey != null) {
+            return;
+        }
+
+        TableDescription description = tableDescription.get();
+        if (!description.getTableStatus().equals("ACTIVE")) {
+            throw new IllegalStateException("Table " + tableName + " is not active, the status is: " + description.getTableStatus());
+        }
+
+        DynamoDBIndex primaryKey = DynamoDBIndex.primaryKey(description.getKeySchema());
+        this.hashKeyName = primaryKey.getHashKeyName();
+        this.sortKeyName = primaryKey.getSortKeyName();
+        this.secondaryIndexes = DynamoDBIndex.secondaryIndexes(description, primaryKey);
+        this.resolvedScanSegments = scanSegments > 0 ? scanSegments : DynamoDBSchema.getAutoScanSegments(description);
+        this.readThrottle = readThrottleFactory.apply(description);
+        this.writeThrottle = writeThrottleFactory.apply(description);
+        this.itemCount = description.getItemCount() == null ? 0 : description.getItemCount();
+        this.tableSizeBytes = description.getTableSizeBytes() == null ? 0 : description.getTableSizeBytes();
+        this.primaryKey = primaryKey;
+    }
+
+    /**
+     * Returns the ways to query the table: its primary key first, followed by its secondary indexes.
+     */
+    public List<DynamoDBIndex> getIndexes() {
+        resolve();
+
+        List<DynamoDBIndex> indexes = new ArrayList<>();
+        indexes.add(primaryKey);
+        indexes.addAll(secondaryIndexes);
+        return indexes;
+    }
+
+    /**
+     * Returns the number of items of the table, as last updated by DynamoDB about every six hours. A table reporting
+     * no items is of unknown size, so it gets the default row count of Calcite rather than looking free to read.
+     */
+    public double getRowCount() {
+        resolve();
+        return itemCount > 0 ? itemCount : DEFAULT_ROW_COUNT;
+    }
+
+    /**
+     * Returns the average size of the items of the table in bytes.
+     */
+    public double getAverageItemBytes() {
+        resolve();
+        return itemCount > 0 && tableSizeBytes > 0 ? (double) tableSizeBytes / itemCount : DEFAULT_ITEM_BYTES;
+    }
+
+    /**
+     * Returns the number of columns of the table.
+     */
+    public int getColumnCount() {
+        return dynamoDBTableSchema.size();
+    }
+
+    /**
+     * Returns the number of items expected to share a hash key of the given index: one for a primary key without sort
+     * key, as the hash key is then unique, otherwise the square root of the row count, DynamoDB having no statistics
+     * about the number of distinct keys.
+     */
+    public double getRowsPerHashKey(DynamoDBIndex index) {
+        if (index.isPrimaryKey() && index.getSortKeyName() == null) {
+            return 1d;
+        }
+        return Math.max(1d, Math.sqrt(getRowCount()));
+    }
+
+    /**
+     * Returns the row count of the table and its primary key, which is unique, to the planner.
+     */
+    @Override
+    public Statistic getStatistic() {
+        resolve();
+
+        List<String> fieldNames = new ArrayList<>(dynamoDBTableSchema.keySet());
+        List<ImmutableBitSet> keys = ImmutableList.of();
+        if (fieldNames.contains(hashKeyName) && (sortKeyName == null || fieldNames.contains(sortKeyName))) {
+            ImmutableBitSet.Builder key = ImmutableBitSet.builder().set(fieldNames.indexOf(hashKeyName));
+            if (sortKeyName != null) {
+                key.set(fieldNames.indexOf(sortKeyName));
+            }
+            keys = ImmutableList.of(key.build());
+        }
+
+        return Statistics.of(getRowCount(), keys);
+    }
+
+    /**
+     * Returns the attributes of the primary key of the table: the hash key, followed by the sort key if any.
+     */
+    public List<String> getKeyNames() {
+        resolve();
+        return sortKeyName == null ? Collections.singletonList(hashKeyName) : Arrays.asList(hashKeyName, sortKeyName);
+    }
+
+    /**
+     * Returns the keys of the items read by their full primary key: the lookup keys are the expression attribute
+     * names holding the hash key value, followed by the sort key value if the table has one, of every key.
+     */
+    private List<Map<String, AttributeValue>> toKeys(List<String> lookupKeys, Map<String, AttributeValue> expressionAttributeMap) {
+        final List<Map<String, AttributeValue>> keys = new ArrayList<>();
+        final int keyAttributeCount = sortKeyName == null ? 1 : 2;
+        for (int i = 0; i < lookupKeys.size(); i += keyAttributeCount) {
+            Map<String, AttributeValue> key = new HashMap<>();
+            key.put(hashKeyName, expressionAttributeMap.get(lookupKeys.get(i)));
+            if (sortKeyName != null) {
+                key.put(sortKeyName, expressionAttributeMap.get(lookupKeys.get(i + 1)));
+            }
+            keys.add(key);
+        }
+        return keys;
     }
 
     /**
      * <p>Called from generated code.
+     *
+     * @param attributeNames the attribute read by each column of the rows
+     * @param attributeAliases the placeholders standing for the attribute names in the expressions, e.g. "#a0"
+     * @param aliasedAttributeNames the attribute name of each placeholder
      */
-    public Enumerable<Object> scanOrQuery(final DataContext root, final String projectionExpression,
+    public Enumerable<Object> scanOrQuery(final DataContext root, final List<String> attributeNames, final String projectionExpression,
                                           final List<String> filterExpressions, final List<String> expressionAttributeNames,
-                                          final List<Object> expressionAttributeValues, final List<String> keyConditionExpressions) {
+                                          final List<Object> expressionAttributeValues, final List<String> attributeAliases,
+                                          final List<String> aliasedAttributeNames, final List<String> keyConditionExpressions,
+                                          final String indexName, final List<String> lookupKeys, final int offset, final int fetch,
+                                          final boolean scanIndexForward, final boolean count) {
         final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
+        resolve();
 
         Map<String, AttributeValue> expressionAttributeMap = new HashMap<>();
         for (int i = 0; i < expressionAttributeNames.size(); i++) {
             expressionAttributeMap.put(expressionAttributeNames.get(i), DynamoDBTypeConverter.toDynamoDBAttributeValue(expressionAttributeValues.get(i)));
         }
 
+        Map<String, String> attributeNameMap = new HashMap<>();
+        for (int i = 0; i < attributeAliases.size(); i++) {
+            attributeNameMap.put(attributeAliases.get(i), aliasedAttributeNames.get(i));
+        }
+
         final boolean scan = keyConditionExpressions.isEmpty();
+        final DynamoDBRowConverter rowConverter = count ? null : new DynamoDBRowConverter(attributeNames, dynamoDBTableSchema);
+
+        final List<Map<String, AttributeValue>> keys = toKeys(lookupKeys, expressionAttributeMap);
+
+        final Supplier<Enumerator<Object>> request = () -> {
+            AbstractDynamoDBEnumerator enumerator;
+            if (!keys.isEmpty()) {
+                enumerator = new DynamoDBBatchGetEnumerator(cancelFlag, dynamoDBClient, tableName, rowConverter, projectionExpression, attributeNameMap, keys,
+                        prefetchPages, queryParallelism);
+            } else if (scan) {
+                enumerator = new DynamoDBScanEnumerator(cancelFlag, dynamoDBClient, tableName, rowConverter, projectionExpression, filterExpressions, keyConditionExpressions,
+                        expressionAttributeMap, attributeNameMap, prefetchPages, resolvedScanSegments);
+            } else {
+                enumerator = new DynamoDBQueryEnumerator(cancelFlag, dynamoDBClient, tableName, rowConverter, projectionExpression, filterExpressions, keyConditionExpressions,
+                        expressionAttributeMap, attributeNameMap, indexName, prefetchPages, queryParallelism, orderedQueries, scanIndexForward);
+            }
+
+            enumerator.setReadThrottle(readThrottle);
+            if (count) {
+                return Linq4j.singletonEnumerator(enumerator.count());
+            }
+
+            if (fetch >= 0) {
+                enumerator.setLimit(offset, fetch);
+            }
+            return enumerator;
+        };
+
+        if (resultCache == null) {
+            return new AbstractEnumerable<Object>() {
+                public Enumerator<Object> enumerator() {
+                    return request.get();
+                }
+            };
+        }
+
+        final List<Object> cacheKey = Arrays.asList(tableName, attributeNames, projectionExpression, filterExpressions,
+                keyConditionExpressions, expressionAttributeMap, attributeNameMap, indexName, keys, offset, fetch,
+                scanIndexForward, count);
+        return new AbstractEnumerable<Object>() {
+            public Enumerator<Object> enumerator() {
+                return resultCache.enumerator(cacheKey, resultCacheTtlMillis, cancelFlag, request);
+            }
+        };
+    }
+
+    /**
+     * Joins outer rows, which are arrays, to the items of the table whose key columns equal the given outer columns,
+     * and returns the outer columns followed by the given columns of the items. When the outer columns hold the
+     * full primary key, the items are read with BatchGetItem calls, otherwise with a query per hash key.
+     *
+     * <p>Called from generated code.
+     *
+     * @param outerKeys the ordinals of the outer columns holding the hash key, followed by the sort key if any
+     * @param attributeNames the attribute read by each column of the items, including the key attributes
+     * @param leftJoin whether an outer row matching no item is returned with null columns
+     */
+    public Enumerable<Object> lookupJoin(final DataContext root, final Enumerable<Object> outer, final List<Integer> outerKeys,
+                                         final List<String> attributeNames, final boolean leftJoin) {
+        final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
+        resolve();
+
+        final List<String> keyNames = getKeyNames().subList(0, outerKeys.size());
+        final boolean batchGet = keyNames.size() == getKeyNames().size();
+        final DynamoDBRowConverter rowConverter = new DynamoDBRowConverter(attributeNames, dynamoDBTableSchema);
+        final DynamoDBItemConverter keyConverter = new DynamoDBItemConverter(keyNames, dynamoDBTableSchema);
+
+        final Map<String, String> attributeNameMap = new HashMap<>();
+        final List<String> attributeAliases = new ArrayList<>();
+        for (String attributeName : attributeNames) {
+            String attributeAlias = "#a" + attributeAliases.size();
+            attributeNameMap.put(attributeAlias, attributeName);
+            attributeAliases.add(attributeAlias);
+        }
+        final String projectionExpression = String.join(", ", attributeAliases);
+        attributeNameMap.put("#k", hashKeyName);
+
+        final Function<List<List<Object>>, Enumerator<Object>> lookup = keys -> {
+            AbstractDynamoDBEnumerator enumerator;
+            if (batchGet) {
+                List<Map<String, AttributeValue>> itemKeys = new ArrayList<>(keys.size());
+                for (List<Object> key : keys) {
+                    itemKeys.add(keyConverter.convert(key.toArray()));
+                }
+                enumerator = new DynamoDBBatchGetEnumerator(cancelFlag, dynamoDBClient, tableName, rowConverter, projectionExpression,
+                        attributeNameMap, itemKeys, prefetchPages, queryParallelism);
+            } else {
+                // the placeholders end with "_", so that none is a prefix of another one.
+                List<String> keyConditionExpressions = new ArrayList<>(keys.size());
+                Map<String, AttributeValue> expressionAttributeMap = new HashMap<>();
+                for (List<Object> key : keys) {
+                    String placeholder = ":k" + keyConditionExpressions.size() + "_";
+                    keyConditionExpressions.add("#k = " + placeholder);
+                    expressionAttributeMap.put(placeholder, keyConverter.convert(key.toArray()).get(hashKeyName));
+                }
+                enumerator = new DynamoDBQueryEnumerator(cancelFlag, dynamoDBClient, tableName, rowConverter, projectionExpression,
+                        Collections.nCopies(keys.size(), ""), keyConditionExpressions, expressionAttributeMap, attributeNameMap, null,
+                        prefetchPages, queryParallelism, false, true);
+            }
 
+            enumerator.setReadThrottle(readThrottle);
+            return enumerator;
+        };
+
+        final int[] outerKeyOrdinals = outerKeys.stream().mapToInt(Integer::intValue).toArray();
+        final int[] innerKeyOrdinals = keyNames.stream().mapToInt(attributeNames::indexOf).toArray();
+        // enough keys for every parallel batch of a chunk to be full.
+        final int chunkSize = DynamoDBBatchGetEnumerator.MAX_BATCH_GET_KEYS * Math.max(1, queryParallelism);
         return new AbstractEnumerable<Object>() {
             public Enumerator<Object> enumerator() {
-                if (scan) {
-                    return new DynamoDBScanEnumerator(cancelFlag, dynamoDBClient, tableName, dynamoDBTableSchema, projectionExpression, filterExpressions, keyConditionExpressions,
-                            expressionAttributeMap);
-                } else {
-                    return new DynamoDBQueryEnumerator(cancelFlag, dynamoDBClient, tableName, dynamoDBTableSchema, projectionExpression, filterExpressions, keyConditionExpressions,
-                            expressionAttributeMap);
+                return new DynamoDBLookupJoinEnumerator(cancelFlag, outer.enumerator(), outerKeyOrdinals, innerKeyOrdinals,
+                        attributeNames.size(), leftJoin, chunkSize, lookup);
+            }
+        };
+    }
+
+    /**
+     * Writes rows to the table, each an array of the values of the columns, or the value itself for a table of a
+     * single column, and returns the number of rows written. An item replaces the item of the same key, if any.
+     *
+     * <p>Called from generated code.
+     */
+    public Enumerable<Long> insert(final DataContext root, final Enumerable<Object> rows) {
+        resolve();
+
+        final DynamoDBItemConverter itemConverter = new DynamoDBItemConverter(new ArrayList<>(dynamoDBTableSchema.keySet()), dynamoDBTableSchema);
+        return writeItems(root, rows, (batchWriter, row) -> batchWriter.put(itemConverter.convert(row)));
+    }
+
+    /**
+     * Deletes the items of the given keys, each an array of the hash key and sort key values, or the hash key value
+     * itself for a table without sort key, and returns the number of items deleted.
+     *
+     * <p>Called from generated code.
+     */
+    public Enumerable<Long> delete(final DataContext root, final Enumerable<Object> keys) {
+        resolve();
+
+        final DynamoDBItemConverter keyConverter = new DynamoDBItemConverter(getKeyNames(), dynamoDBTableSchema);
+        return writeItems(root, keys, (batchWriter, key) -> batchWriter.delete(keyConverter.convert(key)));
+    }
+
+    private Enumerable<Long> writeItems(final DataContext root, final Enumerable<Object> rows,
+                                        final BiConsumer<DynamoDBBatchWriter, Object> write) {
+        final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
+        return new AbstractEnumerable<Long>() {
+            public Enumerator<Long> enumerator() {
+                final DynamoDBBatchWriter batchWriter = new DynamoDBBatchWriter(cancelFlag, dynamoDBClient, tableName, getKeyNames(),
+                        writeParallelism, writeThrottle);
+                try (Enumerator<Object> enumerator = rows.enumerator()) {
+                    while (!cancelFlag.get() && enumerator.moveNext()) {
+                        write.accept(batchWriter, enumerator.current());
+                    }
+                } finally {
+                    try {
+                        batchWriter.close();
+                    } finally {
+                        invalidateResultCache();
+                    }
+                }
+
+                return Linq4j.singletonEnumerator(batchWriter.getWriteCount());
+            }
+        };
+    }
+
+    /**
+     * Updates the items of the given rows, each the values of the columns of an item followed by the new values of
+     * the updated columns, with an UpdateItem request each, and returns the number of items updated. A null value
+     * removes the attribute. An item deleted since it was read is not created again.
+     *
+     * <p>Called from generated code.
+     */
+    public Enumerable<Long> update(final DataContext root, final Enumerable<Object> rows, final List<String> updateColumnNames) {
+        final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
+        resolve();
+
+        final List<String> keyNames = getKeyNames();
+        for (String updateColumnName : updateColumnNames) {
+            if (keyNames.contains(updateColumnName)) {
+                throw new IllegalArgumentException("Cannot update key attribute " + updateColumnName + " of table: " + tableName);
+            }
+        }
+
+        final List<String> columnNames = new ArrayList<>(dynamoDBTableSchema.keySet());
+        final DynamoDBItemConverter keyConverter = new DynamoDBItemConverter(keyNames, dynamoDBTableSchema);
+        final DynamoDBItemConverter valueConverter = new DynamoDBItemConverter(updateColumnNames, dynamoDBTableSchema);
+        final Map<String, String> attributeNameMap = new HashMap<>();
+        attributeNameMap.put("#k", hashKeyName);
+        for (int i = 0; i < updateColumnNames.size(); i++) {
+            attributeNameMap.put("#u" + i, updateColumnNames.get(i));
+        }
+
+        return new AbstractEnumerable<Long>() {
+            public Enumerator<Long> enumerator() {
+                final DynamoDBItemUpdater itemUpdater = new DynamoDBItemUpdater(cancelFlag, dynamoDBClient, tableName, writeParallelism, writeThrottle);
+                try (Enumerator<Object> enumerator = rows.enumerator()) {
+                    while (!cancelFlag.get() && enumerator.moveNext()) {
+                        Object[] row = (Object[]) enumerator.current();
+                        Object[] keyValues = new Object[keyNames.size()];
+                        for (int i = 0; i < keyValues.length; i++) {
+                            keyValues[i] = row[columnNames.indexOf(keyNames.get(i))];
+                        }
+                        Map<String, AttributeValue> values = valueConverter.convert(Arrays.copyOfRange(row, columnNames.size(), row.length));
+
+                        List<String> sets = new ArrayList<>();
+                        List<String> removes = new ArrayList<>();
+                        Map<String, AttributeValue> expressionAttributeMap = new HashMap<>();
+                        for (int i = 0; i < updateColumnNames.size(); i++) {
+                            AttributeValue value = values.get(updateColumnNames.get(i));
+                            if (value == null) {
+                                removes.add("#u" + i);
+                            } else {
+                                sets.add("#u" + i + " = :u" + i);
+                                expressionAttributeMap.put(":u" + i, value);
+                            }
+                        }
+
+                        itemUpdater.update(new UpdateItemRequest()
+                                .withTableName(tableName)
+                                .withKey(keyConverter.convert(keyValues))
+                                .withUpdateExpression(toUpdateExpression(sets, removes))
+                                .withConditionExpression("attribute_exists(#k)")
+                                .withExpressionAttributeNames(attributeNameMap)
+                                .withExpressionAttributeValues(expressionAttributeMap.isEmpty() ? null : expressionAttributeMap));
+                    }
+                } finally {
+                    try {
+                        itemUpdater.close();
+                    } finally {
+                        invalidateResultCache();
+                    }
+                }
+
+                return Linq4j.singletonEnumerator(itemUpdater.getUpdateCount());
+            }
+        };
+    }
+
+    /**
+     * Returns an update expression setting and removing the given attributes, e.g. "SET #u0 = :u0 REMOVE #u1".
+     */
+    public static String toUpdateExpression(List<String> sets, List<String> removes) {
+        StringBuilder updateExpression = new StringBuilder();
+        if (!sets.isEmpty()) {
+            updateExpression.append("SET ").append(String.join(", ", sets));
+        }
+        if (!removes.isEmpty()) {
+            updateExpression.append(updateExpression.length() > 0 ? " " : "").append("REMOVE ").append(String.join(", ", removes));
+        }
+        return updateExpression.toString();
+    }
+
+    /**
+     * Updates the items of the given keys with an UpdateItem request each, without reading them first, and returns
+     * the number of items updated. The condition of each key, if any, is checked by DynamoDB along with the existence
+     * of the item. A key given several times, e.g. by or clauses of different conditions, is updated once if any of
+     * its conditions holds, as the update expression may not be idempotent.
+     *
+     * <p>Called from generated code.
+     *
+     * @param lookupKeys the expression attribute names holding the key values, as in {@link #scanOrQuery}
+     * @param conditionExpressions the condition of each key, empty if none
+     */
+    public Enumerable<Long> updateItems(final DataContext root, final List<String> lookupKeys, final String updateExpression,
+                                        final List<String> conditionExpressions, final List<String> expressionAttributeNames,
+                                        final List<Object> expressionAttributeValues, final List<String> attributeAliases,
+                                        final List<String> aliasedAttributeNames) {
+        final AtomicBoolean cancelFlag = DataContext.Variable.CANCEL_FLAG.get(root);
+        resolve();
+
+        final Map<String, AttributeValue> expressionAttributeMap = new HashMap<>();
+        for (int i = 0; i < expressionAttributeNames.size(); i++) {
+            expressionAttributeMap.put(expressionAttributeNames.get(i), DynamoDBTypeConverter.toDynamoDBAttributeValue(expressionAttributeValues.get(i)));
+        }
+
+        final Map<String, String> attributeNameMap = new HashMap<>();
+        for (int i = 0; i < attributeAliases.size(); i++) {
+            attributeNameMap.put(attributeAliases.get(i), aliasedAttributeNames.get(i));
+        }
+        attributeNameMap.put("#k", hashKeyName);
+
+        final List<Map<String, AttributeValue>> keys = toKeys(lookupKeys, expressionAttributeMap);
+        final Map<Map<String, AttributeValue>, List<String>> keyConditions = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            List<String> conditions = keyConditions.computeIfAbsent(keys.get(i), key -> new ArrayList<>());
+            // an empty condition always holds.
+            if (conditionExpressions.get(i).isEmpty() || !conditions.isEmpty() && conditions.get(0).isEmpty()) {
+                conditions.clear();
+                conditions.add("");
+            } else {
+                conditions.add(conditionExpressions.get(i));
+            }
+        }
+
+        return new AbstractEnumerable<Long>() {
+            public Enumerator<Long> enumerator() {
+                final DynamoDBItemUpdater itemUpdater = new DynamoDBItemUpdater(cancelFlag, dynamoDBClient, tableName, writeParallelism, writeThrottle);
+                try {
+                    for (Map.Entry<Map<String, AttributeValue>, List<String>> keyCondition : keyConditions.entrySet()) {
+                        if (cancelFlag.get()) {
+                            break;
+                        }
+                        // DynamoDB rejects redundant parentheses, and each condition is already in some.
+                        List<String> conditions = keyCondition.getValue();
+                        String conditionExpression = conditions.get(0).isEmpty() ? "attribute_exists(#k)"
+                                : conditions.size() == 1 ? "attribute_exists(#k) and " + conditions.get(0)
+                                : "attribute_exists(#k) and (" + String.join(" or ", conditions) + ")";
+                        itemUpdater.update(new UpdateItemRequest()
+                                .withTableName(tableName)
+                                .withKey(keyCondition.getKey())
+                                .withUpdateExpression(updateExpression)
+                                .withConditionExpression(conditionExpression)
+                                .withExpressionAttributeNames(getReferenced(attributeNameMap, ATTRIBUTE_ALIAS_PATTERN, updateExpression, conditionExpression))
+                                .withExpressionAttributeValues(getReferenced(expressionAttributeMap, VALUE_PLACEHOLDER_PATTERN, updateExpression, conditionExpression)));
+                    }
+                } finally {
+                    try {
+                        itemUpdater.close();
+                    } finally {
+                        invalidateResultCache();
+                    }
                 }
+
+                return Linq4j.singletonEnumerator(itemUpdater.getUpdateCount());
             }
         };
     }
 
+    /**
+     * Returns the entries of a map of placeholders the given expressions use, or null if none, as DynamoDB rejects
+     * placeholders a request does not use.
+     */
+    private static <V> Map<String, V> getReferenced(Map<String, V> placeholders, Pattern pattern, String... expressions) {
+        Map<String, V> referenced = new HashMap<>();
+        for (String expression : expressions) {
+            Matcher matcher = pattern.matcher(expression);
+            while (matcher.find()) {
+                if (placeholders.containsKey(matcher.group())) {
+                    referenced.put(matcher.group(), placeholders.get(matcher.group()));
+                }
+            }
+        }
+        return referenced.isEmpty() ? null : referenced;
+    }
+
+    private void invalidateResultCache() {
+        if (resultCache != null) {
+            resultCache.invalidateTable(tableName);
+        }
+    }
+
+    /**
+     * Not supported: the rows are written by {@link #insert}, {@link #update} and {@link #delete}, see
+     * {@link DynamoDBTableModifyRule}.
+     */
+    @Override
+    public Collection getModifiableCollection() {
+        throw new UnsupportedOperationException("Table " + tableName + " is modified by DynamoDB requests");
+    }
+
+    @Override
+    public TableModify toModificationRel(RelOptCluster cluster, RelOptTable table, Prepare.CatalogReader catalogReader,
+                                         RelNode child, TableModify.Operation operation, List<String> updateColumnList,
+                                         boolean flattened) {
+        // an INSERT of VALUES reads no table scan registering the rules and metadata of the adapter.
+        cluster.getPlanner().addRule(DynamoDBTableModifyRule.INSTANCE);
+        DynamoDBRelMetadataProvider.installForModification(cluster);
+        return LogicalTableModify.create(table, catalogReader, child, operation, updateColumnList, flattened);
+    }
+
     public Expression getExpression(SchemaPlus schema, String tableName, Class clazz) {
         return Schemas.tableExpression(schema, getElementType(), tableName, clazz);
     }
@@ -87,9 +653,11 @@ public class DynamoDBTable extends AbstractTable implements QueryableTable, Tran
 
     @Override
     public RelNode toRel(RelOptTable.ToRelContext context, RelOptTable relOptTable) {
+        resolve();
+
         final RelOptCluster cluster = context.getCluster();
-        return new DynamoDBTableScan(context.getCluster(), cluster.traitSetOf(DynamoDBRel.CONVENTION), relOptTable, this, relOptTable.getRowType(),
-                hashKeyName, sortKeyName);
+        DynamoDBRelMetadataProvider.install(cluster);
+        return new DynamoDBTableScan(context.getCluster(), cluster.traitSetOf(DynamoDBRel.CONVENTION), relOptTable, this, relOptTable.getRowType());
     }
 
     @Override
@@ -99,20 +667,10 @@ public class DynamoDBTable extends AbstractTable implements QueryableTable, Tran
 
         for (Map.Entry<String, AttributeValue> fieldSchema : dynamoDBTableSchema.entrySet()) {
             String name = fieldSchema.getKey();
-            ScalarAttributeType type = ScalarAttributeType.valueOf(fieldSchema.getValue().getS());
-
-            switch (type) {
-                case N:
-                    types.add(typeFactory.createJavaType(Double.class));
-                    break;
-                case S:
-                    types.add(typeFactory.createJavaType(String.class));
-                    break;
-                case B:
-                    types.add(typeFactory.createJavaType(ByteBuffer.class));
-                    break;
-                default:
-                    throw new IllegalArgumentException("Not supported DynamoDB type: " + type + " for attribute: " + name);
+            try {
+                types.add(DynamoDBColumnType.parse(fieldSchema.getValue().getS()).toRelDataType(typeFactory));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(e.getMessage() + " for attribute: " + name, e);
             }
             names.add(name);
         }
@@ -0,0 +1,44 @@
+package calcite.adapter.dynamodb.rel;
+
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.util.ImmutableBitSet;
+
+import java.util.List;
+
+/**
+ * Implementation of {@code COUNT(*)} in DynamoDB: the requests use {@code Select.COUNT}, so only the number of
+ * matching items is transferred, and the {@code Count} of every page is summed up.
+ */
+public class DynamoDBAggregate extends Aggregate implements DynamoDBRel {
+    public DynamoDBAggregate(RelOptCluster cluster, RelTraitSet traitSet, RelNode input, boolean indicator,
+                             ImmutableBitSet groupSet, List<ImmutableBitSet> groupSets, List<AggregateCall> aggCalls) {
+        super(cluster, traitSet, input, indicator, groupSet, groupSets, aggCalls);
+        assert getConvention() == DynamoDBRel.CONVENTION;
+        assert getConvention() == input.getConvention();
+    }
+
+    @Override
+    public Aggregate copy(RelTraitSet traitSet, RelNode input, boolean indicator, ImmutableBitSet groupSet,
+                          List<ImmutableBitSet> groupSets, List<AggregateCall> aggCalls) {
+        return new DynamoDBAggregate(getCluster(), traitSet, input, indicator, groupSet, groupSets, aggCalls);
+    }
+
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner,
+                                      RelMetadataQuery mq) {
+        return super.computeSelfCost(planner, mq).multiplyBy(0.1);
+    }
+
+    public void implement(Implementor implementor) {
+        implementor.visitChild(0, getInput());
+
+        implementor.setCount(true);
+    }
+}
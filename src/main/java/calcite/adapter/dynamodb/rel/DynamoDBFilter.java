@@ -1,22 +1,34 @@
 package calcite.adapter.dynamodb.rel;
 
+import calcite.adapter.dynamodb.DynamoDBIndex;
+import calcite.adapter.dynamodb.DynamoDBTable;
 import com.google.common.collect.Iterators;
 import org.apache.calcite.plan.*;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.RelFieldCollation;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
 import org.apache.calcite.rel.core.Filter;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
-import org.apache.calcite.rel.type.RelDataTypeField;
+import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rex.RexCall;
 import org.apache.calcite.rex.RexInputRef;
 import org.apache.calcite.rex.RexLiteral;
 import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.sql.fun.SqlStdOperatorTable;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.calcite.sql.type.SqlTypeUtil;
 import org.apache.commons.lang.StringUtils;
 
 import java.util.*;
 import java.util.function.Function;
 
+/**
+ * Implementation of {@link org.apache.calcite.rel.core.Filter} relational expression in DynamoDB, reading the items
+ * through one access path: the primary key of the table or one of its secondary indexes.
+ */
 public class DynamoDBFilter extends Filter implements DynamoDBRel {
+    private final DynamoDBIndex index;
     private final String hashKeyName;
     private final String sortKeyName;
 
@@ -25,26 +37,137 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
             RelTraitSet traitSet,
             RelNode child,
             RexNode condition,
-            String hashKeyName,
-            String sortKeyName) {
+            DynamoDBIndex index) {
         super(cluster, traitSet, child, condition);
 
-        this.hashKeyName = hashKeyName;
-        this.sortKeyName = sortKeyName;
+        this.index = index;
+        this.hashKeyName = index.getHashKeyName();
+        this.sortKeyName = index.getSortKeyName();
     }
 
+    /**
+     * The rows of the cost are the rows of the filter weighted by its access path, the cpu the requests it sends and
+     * the io the bytes DynamoDB reads for it.
+     */
     @Override
     public RelOptCost computeSelfCost(RelOptPlanner planner,
                                       RelMetadataQuery mq) {
-        return super.computeSelfCost(planner, mq).multiplyBy(0.1);
+        final DynamoDBTable table = DynamoDBRel.findTable(getInput());
+        if (table == null) {
+            return super.computeSelfCost(planner, mq).multiplyBy(getCostFactor());
+        }
+
+        final double itemBytes = table.getAverageItemBytes();
+        final Translator.Result result = tryTranslate();
+        double requests;
+        double bytes;
+        if (result == null || result.hashKeyFilterCount != result.filters.size()) {
+            // a scan reads every item, whatever the filter expression drops.
+            bytes = table.getRowCount() * itemBytes;
+            requests = DynamoDBTableScan.getPageCount(bytes);
+        } else if (isPointLookup(result)) {
+            bytes = result.filters.size() * itemBytes;
+            requests = Math.ceil(result.filters.size() / (double) DynamoDBTableScan.BATCH_GET_KEYS);
+        } else {
+            // a query reads the items of its key condition, once per or clause.
+            bytes = estimateRows(table, index, result, true) * itemBytes;
+            requests = result.filters.size() - 1 + DynamoDBTableScan.getPageCount(bytes);
+        }
+
+        return planner.getCostFactory().makeCost(mq.getRowCount(this) * getCostFactor(), requests, bytes);
+    }
+
+    /**
+     * Point lookups are cheaper than queries, which are cheaper than scans. Restricting the sort key too makes a
+     * query cheaper, reading from a secondary index a little more expensive, and even more so if the attributes have
+     * to be fetched from the table.
+     */
+    private double getCostFactor() {
+        Translator.Result result = tryTranslate();
+        if (result == null || result.hashKeyFilterCount != result.filters.size()) {
+            return 0.1;
+        } else if (isPointLookup(result)) {
+            return 0.01;
+        }
+
+        double factor = 0.05;
+        if (result.filters.stream().allMatch(filter -> !filter.sortKeyFilters.isEmpty())) {
+            factor *= 0.5;
+        }
+        if (!index.isPrimaryKey()) {
+            factor *= index.covers(getAttributeNames()) ? 1.1 : 1.5;
+        }
+
+        return factor;
     }
 
     public DynamoDBFilter copy(RelTraitSet traitSet, RelNode input,
                                RexNode condition) {
-        return new DynamoDBFilter(getCluster(), traitSet, input, condition, hashKeyName, sortKeyName);
+        return new DynamoDBFilter(getCluster(), traitSet, input, condition, index);
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        return super.explainTerms(pw)
+                .itemIf("index", index.getName(), !index.isPrimaryKey());
+    }
+
+    /**
+     * Returns whether reading through the access path of this filter returns all the matching rows with all their
+     * columns. The primary key does whenever the condition translates. A secondary index only does if every or clause queries it, as the items
+     * without index keys are missing from the index, and a global one only if it projects all the columns.
+     */
+    public boolean isValidAccessPath() {
+        Translator.Result result = tryTranslate();
+        if (index.isPrimaryKey()) {
+            return result != null;
+        }
+
+        return result != null && result.hashKeyFilterCount == result.filters.size()
+                && (!index.isGlobal() || index.covers(getAttributeNames()));
     }
 
-    private String generateFilterExpression(List<Translator.AndFilters> orFilters, Function<Translator.AndFilters, Iterator<Translator.Filter>> getFilterIter) {
+    private List<String> getAttributeNames() {
+        return DynamoDBRel.getAttributeNames(getInput());
+    }
+
+    /**
+     * Returns whether a condition on the given columns can be translated into DynamoDB expressions, i.e. it only
+     * compares columns to literals.
+     */
+    public static boolean canTranslate(DynamoDBTable table, List<String> attributeNames, RexNode condition) {
+        final DynamoDBIndex primaryKey = table.getIndexes().get(0);
+        try {
+            new Translator(attributeNames, primaryKey.getHashKeyName(), primaryKey.getSortKeyName()).translateCondition(condition);
+            return true;
+        } catch (AssertionError | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether a cast computed by Calcite, e.g. in a projection, returns the value of its operand: see
+     * {@link Translator#isValuePreserving}, except that a string of no declared length cast to a length is truncated.
+     */
+    public static boolean isValuePreserving(RexCall cast) {
+        if (SqlTypeUtil.inCharFamily(cast.getType()) && cast.getType().getPrecision() >= 0
+                && cast.operands.get(0).getType().getPrecision() < 0) {
+            return false;
+        }
+        return Translator.isValuePreserving(cast);
+    }
+
+    static String generateFilterExpression(Implementor implementor, List<Translator.AndFilters> orFilters, Function<Translator.AndFilters, Iterator<Translator.Filter>> getFilterIter) {
+        return generateFilterExpression(implementor, orFilters, getFilterIter, false);
+    }
+
+    /**
+     * @param nullUnknown whether a comparison with a missing attribute is false, as in SQL: "&lt;&gt;" is true for a
+     *                    missing attribute in DynamoDB, so it also requires the attribute to exist
+     */
+    static String generateFilterExpression(Implementor implementor, List<Translator.AndFilters> orFilters,
+                                           Function<Translator.AndFilters, Iterator<Translator.Filter>> getFilterIter,
+                                           boolean nullUnknown) {
         StringBuilder orExpressionSb = new StringBuilder();
         for (Translator.AndFilters andFilers : orFilters) {
             StringBuilder addFilerExpressionSb = new StringBuilder();
@@ -56,7 +179,12 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
                         addFilerExpressionSb.append(" and ");
                     }
 
-                    addFilerExpressionSb.append(filter.name);
+                    if (nullUnknown && filter.op.equals("<>")) {
+                        addFilerExpressionSb.append("attribute_exists(");
+                        addFilerExpressionSb.append(implementor.aliasAttribute(filter.name));
+                        addFilerExpressionSb.append(") and ");
+                    }
+                    addFilerExpressionSb.append(implementor.aliasAttribute(filter.name));
                     addFilerExpressionSb.append(" ");
                     addFilerExpressionSb.append(filter.op);
                     addFilerExpressionSb.append(" ");
@@ -79,9 +207,9 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
         return orExpressionSb.toString();
     }
 
-    private String generateKeyConditionExpression(Translator.Filter hashKeyFilter, List<Translator.Filter> sortKeyFilters) {
+    static String generateKeyConditionExpression(Implementor implementor, Translator.Filter hashKeyFilter, List<Translator.Filter> sortKeyFilters) {
         StringBuilder keyConditionExpressionSb = new StringBuilder();
-        keyConditionExpressionSb.append(hashKeyFilter.name);
+        keyConditionExpressionSb.append(implementor.aliasAttribute(hashKeyFilter.name));
         keyConditionExpressionSb.append(" ");
         keyConditionExpressionSb.append(hashKeyFilter.op);
         keyConditionExpressionSb.append(" ");
@@ -90,7 +218,7 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
         if (sortKeyFilters.size() == 1) {
             keyConditionExpressionSb.append(" and ");
 
-            keyConditionExpressionSb.append(sortKeyFilters.get(0).name);
+            keyConditionExpressionSb.append(implementor.aliasAttribute(sortKeyFilters.get(0).name));
             keyConditionExpressionSb.append(" ");
             keyConditionExpressionSb.append(sortKeyFilters.get(0).op);
             keyConditionExpressionSb.append(" ");
@@ -99,7 +227,7 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
             // convert into BETWEEN
             keyConditionExpressionSb.append(" and ");
 
-            keyConditionExpressionSb.append(sortKeyFilters.get(0).name);
+            keyConditionExpressionSb.append(implementor.aliasAttribute(sortKeyFilters.get(0).name));
             keyConditionExpressionSb.append(" BETWEEN ");
             keyConditionExpressionSb.append(sortKeyFilters.get(0).expressionAttributeName);
             keyConditionExpressionSb.append(" AND ");
@@ -109,17 +237,131 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
         return keyConditionExpressionSb.toString();
     }
 
+    /**
+     * Returns whether every or clause binds each key attribute with "=" and nothing else.
+     */
+    private boolean isPointLookup(Translator.Result result) {
+        if (!index.isPrimaryKey()) {
+            return false;
+        }
+
+        for (Translator.AndFilters filter : result.filters) {
+            if (filter.hashKeyFilter == null || !filter.otherFilters.isEmpty()) {
+                return false;
+            }
+
+            if (sortKeyName == null) {
+                if (!filter.sortKeyFilters.isEmpty()) {
+                    return false;
+                }
+            } else if (filter.sortKeyFilters.size() != 1 || !filter.sortKeyFilters.get(0).op.equals("=")) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the fraction of the items of a table matching a condition on the given columns, read through the index
+     * narrowing it the most, or null if the condition cannot be translated into DynamoDB expressions.
+     */
+    static Double estimateSelectivity(DynamoDBTable table, List<String> attributeNames, RexNode condition) {
+        Double selectivity = null;
+        for (DynamoDBIndex index : table.getIndexes()) {
+            Translator.Result result;
+            try {
+                result = new Translator(attributeNames, index.getHashKeyName(), index.getSortKeyName()).translateCondition(condition);
+            } catch (AssertionError | IllegalArgumentException e) {
+                return null;
+            }
+
+            double indexSelectivity = estimateRows(table, index, result, false) / table.getRowCount();
+            selectivity = selectivity == null ? indexSelectivity : Math.min(selectivity, indexSelectivity);
+        }
+        return selectivity;
+    }
+
+    /**
+     * Returns the number of items matching a translated condition: the items sharing the hash key of each or clause,
+     * or all the items for a clause without one, narrowed by the other filters with the guesses of Calcite. A sort key
+     * bound with "=" leaves a single item of the primary key.
+     *
+     * @param keyConditionsOnly whether to only count the items the key conditions read, before the filter
+     *                          expressions drop some
+     */
+    static double estimateRows(DynamoDBTable table, DynamoDBIndex index, Translator.Result result, boolean keyConditionsOnly) {
+        final double tableRows = table.getRowCount();
+        double rows = 0;
+        for (Translator.AndFilters filter : result.filters) {
+            double andRows = filter.hashKeyFilter != null ? table.getRowsPerHashKey(index) : tableRows;
+            if (filter.hashKeyFilter != null || !keyConditionsOnly) {
+                for (Translator.Filter sortKeyFilter : filter.sortKeyFilters) {
+                    andRows = filter.hashKeyFilter != null && index.isPrimaryKey() && sortKeyFilter.op.equals("=")
+                            ? Math.min(andRows, 1d) : andRows * guessSelectivity(sortKeyFilter);
+                }
+            }
+            if (!keyConditionsOnly) {
+                for (Translator.Filter otherFilter : filter.otherFilters) {
+                    andRows *= guessSelectivity(otherFilter);
+                }
+            }
+            rows += andRows;
+        }
+
+        return Math.min(rows, tableRows);
+    }
+
+    /**
+     * The selectivity Calcite guesses for a comparison it has no statistics about.
+     */
+    private static double guessSelectivity(Translator.Filter filter) {
+        return filter.op.equals("=") ? 0.15 : 0.5;
+    }
+
+    /**
+     * Returns the translated condition, or null if it cannot be translated into DynamoDB expressions.
+     */
+    private Translator.Result tryTranslate() {
+        try {
+            return translate();
+        } catch (AssertionError | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Translator.Result translate() {
+        Translator translator = new Translator(getAttributeNames(), hashKeyName, sortKeyName);
+        return translator.translateCondition(condition);
+    }
+
+    /**
+     * Returns whether DynamoDB returns the rows of this filter in the given order by itself: the condition is a
+     * query on a single hash key, whose items are stored in sort key order, and the collation is on the sort key.
+     */
+    public boolean isSortKeyCollation(RelCollation collation) {
+        if (sortKeyName == null || collation.getFieldCollations().size() != 1) {
+            return false;
+        }
+
+        RelFieldCollation fieldCollation = collation.getFieldCollations().get(0);
+        if (fieldCollation.getDirection() != RelFieldCollation.Direction.ASCENDING
+                && fieldCollation.getDirection() != RelFieldCollation.Direction.DESCENDING) {
+            return false;
+        }
+        if (!sortKeyName.equals(getAttributeNames().get(fieldCollation.getFieldIndex()))) {
+            return false;
+        }
+
+        Translator.Result result = tryTranslate();
+        return result != null && result.filters.size() == 1 && result.hashKeyFilterCount == 1;
+    }
+
     @Override
     public void implement(Implementor implementor) {
         implementor.visitChild(0, getInput());
 
-        List<String> fieldNames = new ArrayList<>();
-        for (RelDataTypeField fieldType : getRowType().getFieldList()) {
-            fieldNames.add(fieldType.getKey());
-        }
-
-        Translator translator = new Translator(fieldNames, hashKeyName, sortKeyName);
-        Translator.Result result = translator.translateCondition(condition);
+        Translator.Result result = translate();
 
         // convert map into 2 lists, so it's easy to pass them into compiled code afterwards.
         for (Map.Entry<String, Object> expressionAttribute : result.expressionAttributeValues.entrySet()) {
@@ -127,18 +369,27 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
             implementor.addExpressionAttributeVaule(expressionAttribute.getValue());
         }
 
-        if (result.hashKeyFilterCount == result.filters.size()) {
+        if (isPointLookup(result)) {
+            // all filters bind the full primary key, so we can read the items by their keys.
+            for (Translator.AndFilters filter : result.filters) {
+                implementor.addLookupKey(filter.hashKeyFilter.expressionAttributeName);
+                if (sortKeyName != null) {
+                    implementor.addLookupKey(filter.sortKeyFilters.get(0).expressionAttributeName);
+                }
+            }
+        } else if (result.hashKeyFilterCount == result.filters.size()) {
             // all filters contain hashKey filter, so we can convert it into multiple queries.
+            implementor.setIndexName(index.getName());
             for (Translator.AndFilters filter : result.filters) {
-                String keyConditionExpression = generateKeyConditionExpression(filter.hashKeyFilter, filter.sortKeyFilters);
+                String keyConditionExpression = generateKeyConditionExpression(implementor, filter.hashKeyFilter, filter.sortKeyFilters);
                 implementor.addKeyConditionExpression(keyConditionExpression);
 
-                String filerExpression = generateFilterExpression(Arrays.asList(filter), andFilers -> andFilers.otherFilters.iterator());
+                String filerExpression = generateFilterExpression(implementor, Arrays.asList(filter), andFilers -> andFilers.otherFilters.iterator());
                 implementor.addFilterExpression(filerExpression);
             }
         } else {
             // convert into scan.
-            String filerExpression = generateFilterExpression(result.filters,
+            String filerExpression = generateFilterExpression(implementor, result.filters,
                     andFilers -> Iterators.concat(
                             Iterators.concat(andFilers.otherFilters.iterator(), Arrays.asList(andFilers.hashKeyFilter).iterator()),
                             andFilers.sortKeyFilters.iterator())
@@ -192,7 +443,7 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
             this.sortKeyName = sortKeyName;
         }
 
-        private Result translateCondition(RexNode condition) {
+        Result translateCondition(RexNode condition) {
             Result result = new Result();
 
             result.filters = translateOr(condition);
@@ -229,8 +480,17 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
             return andFilters;
         }
 
-        private static Object literalValue(RexLiteral literal) {
-            return literal.getValue2();
+        static Object literalValue(RexLiteral literal) {
+            switch (literal.getTypeName()) {
+                case DECIMAL:
+                case DOUBLE:
+                case FLOAT:
+                case REAL:
+                    // getValue2() returns the unscaled value of a decimal.
+                    return literal.getValue();
+                default:
+                    return literal.getValue2();
+            }
         }
 
         private Void translateMatch2(RexNode node) {
@@ -282,6 +542,10 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
                     return false;
             }
             final RexLiteral rightLiteral = (RexLiteral) right;
+            if (rightLiteral.getTypeName() == SqlTypeName.BOOLEAN) {
+                // a BOOLEAN column is also read from a number, which a BOOL value never equals.
+                return false;
+            }
             switch (left.getKind()) {
                 case INPUT_REF:
                     final RexInputRef left1 = (RexInputRef) left;
@@ -289,7 +553,7 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
                     translateOp2(op, name, rightLiteral);
                     return true;
                 case CAST:
-                    return translateBinary2(op, ((RexCall) left).operands.get(0), right);
+                    return isValuePreserving((RexCall) left) && translateBinary2(op, ((RexCall) left).operands.get(0), right);
                 case OTHER_FUNCTION:
                     String itemName = isItem((RexCall) left);
                     if (itemName != null) {
@@ -303,7 +567,8 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
         }
 
         private void translateOp2(String op, String name, RexLiteral right) {
-            String expressionAttributeName = ":val" + valCounter + "_" + name;
+            // the placeholder does not contain the attribute name, which may have characters placeholders cannot.
+            String expressionAttributeName = ":val" + valCounter + "_";
             valCounter++;
 
             expressionAttributeValues.put(expressionAttributeName, literalValue(right));
@@ -331,6 +596,33 @@ public class DynamoDBFilter extends Filter implements DynamoDBRel {
             }
         }
 
+        /**
+         * Returns whether a cast keeps the value of its operand, so the attribute can be compared instead: a cast to a
+         * string at least as long, or to a number of the same or a larger scale and integer digits. A cast to another
+         * type, e.g. of a number to a string, one truncating a string or rounding a number, or one padding a CHAR,
+         * compares differently.
+         *
+         * <p>The string attributes of a table have no declared length, so Calcite casts them to the length of the
+         * literal they are compared to, and does not truncate them when it evaluates the comparison itself.
+         */
+        static boolean isValuePreserving(RexCall cast) {
+            final RelDataType type = cast.getType();
+            final RelDataType operandType = cast.operands.get(0).getType();
+            if (SqlTypeUtil.inCharFamily(type) && SqlTypeUtil.inCharFamily(operandType)) {
+                return type.getSqlTypeName() != SqlTypeName.CHAR && operandType.getSqlTypeName() != SqlTypeName.CHAR
+                        && (operandType.getPrecision() < 0 || type.getPrecision() >= operandType.getPrecision());
+            }
+            if (SqlTypeUtil.isNumeric(type) && SqlTypeUtil.isNumeric(operandType)) {
+                if (SqlTypeUtil.isApproximateNumeric(type)) {
+                    return true;
+                }
+                return SqlTypeUtil.isExactNumeric(operandType) && type.getScale() >= operandType.getScale()
+                        && (operandType.getPrecision() < 0
+                        || type.getPrecision() - type.getScale() >= operandType.getPrecision() - operandType.getScale());
+            }
+            return type.getSqlTypeName() == operandType.getSqlTypeName();
+        }
+
         /**
          * Returns 'string' if it is a call to item['string'], null otherwise.
          */
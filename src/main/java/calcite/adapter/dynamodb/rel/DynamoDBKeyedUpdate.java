@@ -0,0 +1,269 @@
+package calcite.adapter.dynamodb.rel;
+
+import calcite.adapter.dynamodb.DynamoDBTable;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
+import org.apache.calcite.adapter.enumerable.EnumerableRelImplementor;
+import org.apache.calcite.adapter.enumerable.JavaRowFormat;
+import org.apache.calcite.adapter.enumerable.PhysType;
+import org.apache.calcite.adapter.enumerable.PhysTypeImpl;
+import org.apache.calcite.linq4j.tree.BlockBuilder;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.AbstractRelNode;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.sql.SqlKind;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Relational expression updating the items of an UPDATE whose condition binds the full primary key of every item,
+ * e.g. {@code UPDATE t SET c = c + 1 WHERE hashKey = 'a' AND sortKey = 'b' AND c < 10}, with an UpdateItem request
+ * each and no read first. The new values must be literals, columns, or sums and differences of them, so that DynamoDB
+ * computes them; the rest of the condition becomes the condition expression of the requests. It returns the number of
+ * items updated.
+ *
+ * <p>DynamoDB rejects an update expression reading a missing attribute, where SQL computes null, so the columns the
+ * new values read must not be null in the items updated: either by their type, or as every or clause of the
+ * condition compares them to a literal, which fails for a missing attribute. A "&lt;&gt;" comparison, true for a
+ * missing attribute in DynamoDB, also requires the attribute to exist, as {@code NULL <> 5} is not true in SQL.
+ */
+public class DynamoDBKeyedUpdate extends AbstractRelNode implements EnumerableRel {
+    private final RelOptTable table;
+    private final DynamoDBTable dynamoDBTable;
+    private final List<String> fieldNames;
+    private final RexNode condition;
+    private final List<String> updateColumnList;
+    private final List<RexNode> sourceExpressionList;
+
+    public DynamoDBKeyedUpdate(RelOptCluster cluster, RelTraitSet traitSet, RelOptTable table, List<String> fieldNames,
+                               RexNode condition, List<String> updateColumnList, List<RexNode> sourceExpressionList,
+                               RelDataType rowType) {
+        super(cluster, traitSet);
+        this.table = table;
+        this.dynamoDBTable = table.unwrap(DynamoDBTable.class);
+        this.fieldNames = fieldNames;
+        this.condition = condition;
+        this.updateColumnList = updateColumnList;
+        this.sourceExpressionList = sourceExpressionList;
+        this.rowType = rowType;
+
+        assert getConvention() == EnumerableConvention.INSTANCE;
+        assert dynamoDBTable != null;
+    }
+
+    /**
+     * Returns whether an update of the given columns to the given expressions, of the rows matching a condition on
+     * the given columns of a table, can be sent as UpdateItem requests.
+     */
+    public static boolean isKeyedUpdate(DynamoDBTable table, List<String> fieldNames, RexNode condition,
+                                        List<String> updateColumnList, List<RexNode> sourceExpressionList) {
+        final DynamoDBFilter.Translator.Result result = translateKeys(table, fieldNames, condition);
+        return result != null
+                && translateUpdate(new DynamoDBRel.Implementor(), table.getKeyNames(), fieldNames,
+                getNotNullAttributes(table.getKeyNames(), result), updateColumnList, sourceExpressionList) != null;
+    }
+
+    /**
+     * Returns the translated condition if every or clause binds the full primary key with "=", otherwise null.
+     */
+    private static DynamoDBFilter.Translator.Result translateKeys(DynamoDBTable table, List<String> fieldNames, RexNode condition) {
+        final List<String> keyNames = table.getKeyNames();
+        final DynamoDBFilter.Translator.Result result;
+        try {
+            result = new DynamoDBFilter.Translator(fieldNames, keyNames.get(0), keyNames.size() == 1 ? null : keyNames.get(1))
+                    .translateCondition(condition);
+        } catch (AssertionError | IllegalArgumentException e) {
+            return null;
+        }
+
+        for (DynamoDBFilter.Translator.AndFilters filter : result.filters) {
+            if (filter.hashKeyFilter == null || !filter.hashKeyFilter.op.equals("=")
+                    || filter.sortKeyFilters.size() != keyNames.size() - 1) {
+                return null;
+            }
+            if (!filter.sortKeyFilters.isEmpty() && !filter.sortKeyFilters.get(0).op.equals("=")) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the attributes every item matching the condition has: the keys, and the attributes every or clause
+     * compares to a literal.
+     */
+    private static Set<String> getNotNullAttributes(List<String> keyNames, DynamoDBFilter.Translator.Result result) {
+        Set<String> notNullAttributes = null;
+        for (DynamoDBFilter.Translator.AndFilters filter : result.filters) {
+            final Set<String> compared = new HashSet<>();
+            for (DynamoDBFilter.Translator.Filter otherFilter : filter.otherFilters) {
+                compared.add(otherFilter.name);
+            }
+            if (notNullAttributes == null) {
+                notNullAttributes = compared;
+            } else {
+                notNullAttributes.retainAll(compared);
+            }
+        }
+
+        notNullAttributes.addAll(keyNames);
+        return notNullAttributes;
+    }
+
+    /**
+     * Returns the update expression setting the columns to the new values, e.g. "SET #a0 = #a0 + :u1", and removing
+     * the ones set to null, or null if a key is updated or a value cannot be computed by DynamoDB.
+     */
+    private static String translateUpdate(DynamoDBRel.Implementor implementor, List<String> keyNames, List<String> fieldNames,
+                                          Set<String> notNullAttributes, List<String> updateColumnList,
+                                          List<RexNode> sourceExpressionList) {
+        final List<String> sets = new ArrayList<>();
+        final List<String> removes = new ArrayList<>();
+        for (int i = 0; i < updateColumnList.size(); i++) {
+            if (keyNames.contains(updateColumnList.get(i))) {
+                return null;
+            }
+
+            final RexNode source = stripCasts(sourceExpressionList.get(i));
+            final String attribute = implementor.aliasAttribute(updateColumnList.get(i));
+            if (RexUtil.isNullLiteral(source, true)) {
+                removes.add(attribute);
+                continue;
+            }
+
+            final String value;
+            if (source.isA(SqlKind.PLUS) || source.isA(SqlKind.MINUS)) {
+                final List<RexNode> operands = ((RexCall) source).getOperands();
+                final String left = translateOperand(implementor, fieldNames, notNullAttributes, operands.get(0));
+                final String right = translateOperand(implementor, fieldNames, notNullAttributes, operands.get(1));
+                value = left == null || right == null ? null
+                        : left + (source.isA(SqlKind.PLUS) ? " + " : " - ") + right;
+            } else {
+                value = translateOperand(implementor, fieldNames, notNullAttributes, source);
+            }
+            if (value == null) {
+                return null;
+            }
+            sets.add(attribute + " = " + value);
+        }
+
+        return DynamoDBTable.toUpdateExpression(sets, removes);
+    }
+
+    private static String translateOperand(DynamoDBRel.Implementor implementor, List<String> fieldNames,
+                                           Set<String> notNullAttributes, RexNode operand) {
+        operand = stripCasts(operand);
+        if (operand instanceof RexInputRef) {
+            final String name = fieldNames.get(((RexInputRef) operand).getIndex());
+            if (operand.getType().isNullable() && !notNullAttributes.contains(name)) {
+                return null;
+            }
+            return implementor.aliasAttribute(name);
+        } else if (operand instanceof RexLiteral && !RexLiteral.isNullLiteral(operand)) {
+            final String expressionAttributeName = ":u" + implementor.getExpressionAttributeNames().size();
+            implementor.addExpressionAttributeName(expressionAttributeName);
+            implementor.addExpressionAttributeVaule(DynamoDBFilter.Translator.literalValue((RexLiteral) operand));
+            return expressionAttributeName;
+        }
+
+        return null;
+    }
+
+    /**
+     * Strips the casts Calcite adds between numeric types, e.g. of an integer literal to the DOUBLE of an N column. A
+     * cast changing the value, e.g. rounding a decimal to an integer, has to be computed by Calcite.
+     */
+    private static RexNode stripCasts(RexNode node) {
+        while (node.isA(SqlKind.CAST) && DynamoDBFilter.Translator.isValuePreserving((RexCall) node)) {
+            node = ((RexCall) node).getOperands().get(0);
+        }
+        return node;
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        assert inputs.isEmpty();
+        return new DynamoDBKeyedUpdate(getCluster(), traitSet, table, fieldNames, condition, updateColumnList,
+                sourceExpressionList, rowType);
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        return super.explainTerms(pw)
+                .item("table", table.getQualifiedName())
+                .item("condition", condition)
+                .item("updateColumnList", updateColumnList)
+                .item("sourceExpressionList", sourceExpressionList);
+    }
+
+    @Override
+    public double estimateRowCount(RelMetadataQuery mq) {
+        return 1d;
+    }
+
+    /**
+     * One request per key, for the item of the key only.
+     */
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+        final DynamoDBFilter.Translator.Result result = translateKeys(dynamoDBTable, fieldNames, condition);
+        final double keys = result == null ? 1d : result.filters.size();
+        return planner.getCostFactory().makeCost(keys * .01, keys, keys * dynamoDBTable.getAverageItemBytes());
+    }
+
+    public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+        final DynamoDBRel.Implementor dynamoDBImplementor = new DynamoDBRel.Implementor();
+        final DynamoDBFilter.Translator.Result result = translateKeys(dynamoDBTable, fieldNames, condition);
+        final String updateExpression = translateUpdate(dynamoDBImplementor, dynamoDBTable.getKeyNames(), fieldNames,
+                getNotNullAttributes(dynamoDBTable.getKeyNames(), result), updateColumnList, sourceExpressionList);
+        assert result != null && updateExpression != null;
+
+        for (Map.Entry<String, Object> expressionAttribute : result.expressionAttributeValues.entrySet()) {
+            dynamoDBImplementor.addExpressionAttributeName(expressionAttribute.getKey());
+            dynamoDBImplementor.addExpressionAttributeVaule(expressionAttribute.getValue());
+        }
+
+        final List<String> conditionExpressions = new ArrayList<>();
+        for (DynamoDBFilter.Translator.AndFilters filter : result.filters) {
+            dynamoDBImplementor.addLookupKey(filter.hashKeyFilter.expressionAttributeName);
+            if (!filter.sortKeyFilters.isEmpty()) {
+                dynamoDBImplementor.addLookupKey(filter.sortKeyFilters.get(0).expressionAttributeName);
+            }
+            conditionExpressions.add(DynamoDBFilter.generateFilterExpression(dynamoDBImplementor, Collections.singletonList(filter),
+                    andFilters -> andFilters.otherFilters.iterator(), true));
+        }
+
+        final BlockBuilder builder = new BlockBuilder();
+        builder.add(Expressions.return_(null,
+                Expressions.call(table.getExpression(DynamoDBTable.class), "updateItems", implementor.getRootExpression(),
+                        DynamoDBToEnumerableConverter.constantArrayList(dynamoDBImplementor.getLookupKeys(), String.class),
+                        Expressions.constant(updateExpression),
+                        DynamoDBToEnumerableConverter.constantArrayList(conditionExpressions, String.class),
+                        DynamoDBToEnumerableConverter.constantArrayList(dynamoDBImplementor.getExpressionAttributeNames(), String.class),
+                        DynamoDBToEnumerableConverter.constantArrayList(dynamoDBImplementor.getExpressionAttributeValues(), Object.class),
+                        DynamoDBToEnumerableConverter.constantArrayList(dynamoDBImplementor.getAttributeAliases(), String.class),
+                        DynamoDBToEnumerableConverter.constantArrayList(dynamoDBImplementor.getAliasedAttributeNames(), String.class))));
+
+        final PhysType physType = PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(),
+                pref == Prefer.ARRAY ? JavaRowFormat.ARRAY : JavaRowFormat.SCALAR);
+        return implementor.result(physType, builder.toBlock());
+    }
+}
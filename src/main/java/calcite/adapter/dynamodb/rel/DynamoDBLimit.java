@@ -0,0 +1,63 @@
+package calcite.adapter.dynamodb.rel;
+
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.SingleRel;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.rex.RexNode;
+
+import java.util.List;
+
+/**
+ * Implementation of limits in DynamoDB: the requests ask for no more items than needed and the enumerator stops
+ * paging once enough rows are read.
+ */
+public class DynamoDBLimit extends SingleRel implements DynamoDBRel {
+    public final RexNode offset;
+    public final RexNode fetch;
+
+    public DynamoDBLimit(RelOptCluster cluster, RelTraitSet traitSet,
+                         RelNode input, RexNode offset, RexNode fetch) {
+        super(cluster, traitSet, input);
+        this.offset = offset;
+        this.fetch = fetch;
+        assert getConvention() == DynamoDBRel.CONVENTION;
+        assert getConvention() == input.getConvention();
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new DynamoDBLimit(getCluster(), traitSet, sole(inputs), offset, fetch);
+    }
+
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner,
+                                      RelMetadataQuery mq) {
+        // only the rows up to the limit are fetched
+        double rowCount = RexLiteral.intValue(fetch);
+        if (offset != null) {
+            rowCount += RexLiteral.intValue(offset);
+        }
+        rowCount = Math.min(rowCount, mq.getRowCount(getInput()));
+
+        return planner.getCostFactory().makeCost(rowCount, rowCount, 0).multiplyBy(0.1);
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        return super.explainTerms(pw)
+                .itemIf("offset", offset, offset != null)
+                .item("fetch", fetch);
+    }
+
+    public void implement(Implementor implementor) {
+        implementor.visitChild(0, getInput());
+
+        implementor.setLimit(offset == null ? 0 : RexLiteral.intValue(offset), RexLiteral.intValue(fetch));
+    }
+}
@@ -0,0 +1,128 @@
+package calcite.adapter.dynamodb.rel;
+
+import calcite.adapter.dynamodb.DynamoDBTable;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
+import org.apache.calcite.adapter.enumerable.EnumerableRelImplementor;
+import org.apache.calcite.adapter.enumerable.JavaRowFormat;
+import org.apache.calcite.adapter.enumerable.PhysType;
+import org.apache.calcite.adapter.enumerable.PhysTypeImpl;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.tree.BlockBuilder;
+import org.apache.calcite.linq4j.tree.Expression;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.RelWriter;
+import org.apache.calcite.rel.SingleRel;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.util.ImmutableBitSet;
+import org.apache.calcite.util.Util;
+
+import java.util.List;
+
+/**
+ * Relational expression joining its input to the items of a DynamoDB table whose key equals columns of the input,
+ * an index nested loop join: the items of the keys of the input rows are read by their key, rather than the whole
+ * table being scanned. A join on the full primary key reads the items with BatchGetItem calls, a join on the hash
+ * key only of a table with a sort key queries every hash key. Only inner and left joins are supported.
+ */
+public class DynamoDBLookupJoin extends SingleRel implements EnumerableRel {
+    private final RelOptTable table;
+    private final DynamoDBTable dynamoDBTable;
+    private final List<Integer> outerKeys;
+    private final List<String> attributeNames;
+    private final JoinRelType joinType;
+
+    /**
+     * @param outerKeys      the ordinals of the input columns holding the hash key, followed by the sort key if any
+     * @param attributeNames the attribute read by each column of the items
+     */
+    public DynamoDBLookupJoin(RelOptCluster cluster, RelTraitSet traitSet, RelNode input, RelOptTable table,
+                              List<Integer> outerKeys, List<String> attributeNames, JoinRelType joinType, RelDataType rowType) {
+        super(cluster, traitSet, input);
+        this.table = table;
+        this.dynamoDBTable = table.unwrap(DynamoDBTable.class);
+        this.outerKeys = outerKeys;
+        this.attributeNames = attributeNames;
+        this.joinType = joinType;
+        this.rowType = rowType;
+
+        assert getConvention() == EnumerableConvention.INSTANCE;
+        assert dynamoDBTable != null;
+        assert joinType == JoinRelType.INNER || joinType == JoinRelType.LEFT;
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new DynamoDBLookupJoin(getCluster(), traitSet, sole(inputs), table, outerKeys, attributeNames, joinType, rowType);
+    }
+
+    /**
+     * Returns whether the items are read with BatchGetItem calls, the input holding the full primary key.
+     */
+    private boolean isBatchGet() {
+        return outerKeys.size() == dynamoDBTable.getKeyNames().size();
+    }
+
+    @Override
+    public RelWriter explainTerms(RelWriter pw) {
+        return super.explainTerms(pw)
+                .item("table", table.getQualifiedName())
+                .item("keys", outerKeys)
+                .item("joinType", joinType.name().toLowerCase())
+                .item("lookup", isBatchGet() ? "BatchGetItem" : "Query");
+    }
+
+    /**
+     * Returns the number of items of a key: one for the full primary key, otherwise the items of a hash key.
+     */
+    private double getRowsPerKey() {
+        return isBatchGet() ? 1d : dynamoDBTable.getRowsPerHashKey(dynamoDBTable.getIndexes().get(0));
+    }
+
+    @Override
+    public double estimateRowCount(RelMetadataQuery mq) {
+        final double outerRows = mq.getRowCount(getInput());
+        final double rows = outerRows * getRowsPerKey();
+        return joinType == JoinRelType.LEFT ? Math.max(outerRows, rows) : rows;
+    }
+
+    /**
+     * A lookup reads the items of the distinct keys of the input only, in batches of 100 keys or one query per key.
+     */
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+        final Double distinctKeys = mq.getDistinctRowCount(getInput(), ImmutableBitSet.of(outerKeys), null);
+        final double keys = Util.first(distinctKeys, mq.getRowCount(getInput()));
+        final double requests = isBatchGet() ? Math.ceil(keys / DynamoDBTableScan.BATCH_GET_KEYS) : keys;
+        final double bytes = keys * getRowsPerKey() * dynamoDBTable.getAverageItemBytes();
+        return planner.getCostFactory().makeCost(mq.getRowCount(this) * .1, requests, bytes);
+    }
+
+    public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+        final BlockBuilder builder = new BlockBuilder();
+        final Result result = implementor.visitChild(this, 0, (EnumerableRel) getInput(), Prefer.ARRAY);
+        final Expression childExp = builder.append("child", result.block);
+
+        // the input rows are read as arrays, whatever their format; a single column stays the value itself, which the
+        // enumerator wraps.
+        final Expression rowsExp = result.physType.convertTo(childExp,
+                PhysTypeImpl.of(implementor.getTypeFactory(), getInput().getRowType(), JavaRowFormat.ARRAY, false));
+        builder.add(Expressions.return_(null,
+                Expressions.call(table.getExpression(DynamoDBTable.class), "lookupJoin", implementor.getRootExpression(),
+                        Expressions.convert_(rowsExp, Enumerable.class),
+                        DynamoDBToEnumerableConverter.constantArrayList(outerKeys, Integer.class),
+                        DynamoDBToEnumerableConverter.constantArrayList(attributeNames, String.class),
+                        Expressions.constant(joinType == JoinRelType.LEFT))));
+
+        final PhysType physType = PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(), JavaRowFormat.ARRAY, false);
+        return implementor.result(physType, builder.toBlock());
+    }
+}
@@ -9,13 +9,14 @@ import org.apache.calcite.rel.core.Project;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.rex.RexNode;
-import org.apache.calcite.util.Pair;
 
 import java.util.List;
 
 /**
  * Implementation of {@link org.apache.calcite.rel.core.Project}
- * relational expression in DynamoDB.
+ * relational expression in DynamoDB. It only selects columns, expressions are computed by the enumerable
+ * layer above; the attributes to request are the ones the whole DynamoDB part of the plan returns, see
+ * {@link DynamoDBToEnumerableConverter}.
  */
 public class DynamoDBProject extends Project implements DynamoDBRel {
     public DynamoDBProject(RelOptCluster cluster, RelTraitSet traitSet,
@@ -40,9 +41,5 @@ public class DynamoDBProject extends Project implements DynamoDBRel {
 
     public void implement(Implementor implementor) {
         implementor.visitChild(0, getInput());
-
-        for (Pair<RexNode, String> namedProject : getNamedProjects()) {
-            implementor.addAttributeToGet(namedProject.getValue());
-        }
     }
 }
\ No newline at end of file
@@ -1,11 +1,24 @@
 package calcite.adapter.dynamodb.rel;
 
+import calcite.adapter.dynamodb.DynamoDBTable;
 import org.apache.calcite.plan.Convention;
 import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.volcano.RelSubset;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rel.core.Sort;
+import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.util.Util;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Relational expression that uses DynamoDB calling convention.
@@ -18,16 +31,65 @@ public interface DynamoDBRel extends RelNode {
      */
     Convention CONVENTION = new Convention.Impl("DynamoDB", DynamoDBRel.class);
 
+    /**
+     * Returns the DynamoDB attribute each column of a relational expression reads, following the columns through
+     * filters, sorts, limits and projects down to the table. A column computed by a project has no attribute and is
+     * null.
+     */
+    static List<String> getAttributeNames(RelNode rel) {
+        if (rel instanceof RelSubset) {
+            RelSubset subset = (RelSubset) rel;
+            return getAttributeNames(Util.first(subset.getBest(), subset.getOriginal()));
+        } else if (rel instanceof TableScan) {
+            return rel.getRowType().getFieldNames();
+        } else if (rel instanceof Project) {
+            List<String> inputAttributeNames = getAttributeNames(((Project) rel).getInput());
+            List<String> attributeNames = new ArrayList<>();
+            for (RexNode project : ((Project) rel).getProjects()) {
+                attributeNames.add(project instanceof RexInputRef
+                        ? inputAttributeNames.get(((RexInputRef) project).getIndex()) : null);
+            }
+            return attributeNames;
+        } else if (rel instanceof Filter || rel instanceof Sort || rel instanceof DynamoDBLimit) {
+            return getAttributeNames(rel.getInput(0));
+        }
+
+        return rel.getRowType().getFieldNames();
+    }
+
+    /**
+     * Returns the table read by a relational expression, or null if it does not read a single DynamoDB table.
+     */
+    static DynamoDBTable findTable(RelNode rel) {
+        if (rel instanceof RelSubset) {
+            return findTable(((RelSubset) rel).getOriginal());
+        } else if (rel instanceof DynamoDBTableScan) {
+            return ((DynamoDBTableScan) rel).getDynamoDBTable();
+        } else if (rel.getInputs().size() == 1) {
+            return findTable(rel.getInput(0));
+        }
+
+        return null;
+    }
+
     /**
      * Callback for the implementation process that converts a tree of
      * {@link DynamoDBRel} nodes into a MongoDB query.
      */
     class Implementor {
-        private final List<String> attributesToGet = new ArrayList<>();
+        // a column may be selected twice, DynamoDB rejects duplicated attributes.
+        private final Set<String> attributesToGet = new LinkedHashSet<>();
         private final List<String> filterExpressions = new ArrayList<>();
         private final List<String> keyConditionExpressions = new ArrayList<>();
         private final List<String> expressionAttributeNames = new ArrayList<>();
         private final List<Object> expressionAttributeValues = new ArrayList<>();
+        private final List<String> lookupKeys = new ArrayList<>();
+        private final Map<String, String> attributeAliases = new LinkedHashMap<>();
+        private String indexName = null;
+        private int offset = 0;
+        private int fetch = -1;
+        private boolean scanIndexForward = true;
+        private boolean count = false;
 
         RelOptTable table;
 
@@ -51,6 +113,96 @@ public interface DynamoDBRel extends RelNode {
             return keyConditionExpressions;
         }
 
+        /**
+         * Adds the expression attribute name holding the value of a key attribute, for items read by their
+         * full primary key: the hash key value first, followed by the sort key value if the table has one.
+         */
+        public void addLookupKey(String expressionAttributeName) {
+            lookupKeys.add(expressionAttributeName);
+        }
+
+        public List<String> getLookupKeys() {
+            return lookupKeys;
+        }
+
+        public void setIndexName(String indexName) {
+            this.indexName = indexName;
+        }
+
+        /**
+         * Returns the secondary index to query, or null to query the table itself.
+         */
+        public String getIndexName() {
+            return indexName;
+        }
+
+        /**
+         * Applies a limit to the rows of the limits already set, so that an outer limit can only skip and cut rows
+         * of an inner one, e.g. "limit 3 offset 1" of "limit 2" returns the second row only.
+         */
+        public void setLimit(int offset, int fetch) {
+            if (this.fetch >= 0) {
+                fetch = Math.max(0, Math.min(this.fetch - offset, fetch));
+            }
+            this.offset += offset;
+            this.fetch = fetch;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        /**
+         * Returns the maximum number of rows to return, or -1 if unlimited.
+         */
+        public int getFetch() {
+            return fetch;
+        }
+
+        public void setScanIndexForward(boolean scanIndexForward) {
+            this.scanIndexForward = scanIndexForward;
+        }
+
+        /**
+         * Returns whether queries read the items in ascending sort key order, false to read them backwards.
+         */
+        public boolean isScanIndexForward() {
+            return scanIndexForward;
+        }
+
+        public void setCount(boolean count) {
+            this.count = count;
+        }
+
+        /**
+         * Returns whether the only row to return is the number of matching items.
+         */
+        public boolean isCount() {
+            return count;
+        }
+
+        /**
+         * Returns the placeholder standing for an attribute name in the expressions, e.g. "#a0", so that attributes
+         * named after reserved words or containing special characters can be used.
+         */
+        public String aliasAttribute(String attributeName) {
+            String alias = attributeAliases.get(attributeName);
+            if (alias == null) {
+                alias = "#a" + attributeAliases.size();
+                attributeAliases.put(attributeName, alias);
+            }
+
+            return alias;
+        }
+
+        public List<String> getAliasedAttributeNames() {
+            return new ArrayList<>(attributeAliases.keySet());
+        }
+
+        public List<String> getAttributeAliases() {
+            return new ArrayList<>(attributeAliases.values());
+        }
+
         public String getProjectionExpression() {
             StringBuilder sb = new StringBuilder();
             for (String attribute : attributesToGet) {
@@ -0,0 +1,39 @@
+package calcite.adapter.dynamodb.rel;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.core.Values;
+import org.apache.calcite.rel.metadata.BuiltInMetadata;
+import org.apache.calcite.rel.metadata.MetadataDef;
+import org.apache.calcite.rel.metadata.MetadataHandler;
+import org.apache.calcite.rel.metadata.RelMdCollation;
+import org.apache.calcite.rel.metadata.ReflectiveRelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.util.BuiltInMethod;
+
+/**
+ * Collations of the rows written by an INSERT. Calcite derives a collation of the VALUES rows for every column they
+ * happen to be sorted on, and a projection reordering the columns into the ones of the table then breaks the order
+ * the composite collation trait asserts. The rows are written in no particular order, so VALUES of a query modifying
+ * a DynamoDB table report none; the VALUES of any other query keep their collations.
+ */
+public class DynamoDBRelMdCollation implements MetadataHandler<BuiltInMetadata.Collation> {
+    public static final RelMetadataProvider SOURCE =
+            ReflectiveRelMetadataProvider.reflectiveSource(
+                    BuiltInMethod.COLLATIONS.method, new DynamoDBRelMdCollation());
+
+    private DynamoDBRelMdCollation() {
+    }
+
+    public MetadataDef<BuiltInMetadata.Collation> getDef() {
+        return BuiltInMetadata.Collation.DEF;
+    }
+
+    public ImmutableList<RelCollation> collations(Values rel, RelMetadataQuery mq) {
+        if (DynamoDBRelMetadataProvider.isModification(rel.getCluster())) {
+            return ImmutableList.of();
+        }
+        return ImmutableList.copyOf(RelMdCollation.values(mq, rel.getRowType(), rel.getTuples()));
+    }
+}
@@ -0,0 +1,39 @@
+package calcite.adapter.dynamodb.rel;
+
+import org.apache.calcite.rel.metadata.BuiltInMetadata;
+import org.apache.calcite.rel.metadata.MetadataDef;
+import org.apache.calcite.rel.metadata.MetadataHandler;
+import org.apache.calcite.rel.metadata.ReflectiveRelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexLiteral;
+import org.apache.calcite.util.BuiltInMethod;
+
+/**
+ * Row counts of the DynamoDB relational expressions Calcite does not know: a limit returns no more than its fetch.
+ * The row count of a table comes from its statistic, and the one of a filter from the selectivity of its condition.
+ */
+public class DynamoDBRelMdRowCount implements MetadataHandler<BuiltInMetadata.RowCount> {
+    public static final RelMetadataProvider SOURCE =
+            ReflectiveRelMetadataProvider.reflectiveSource(
+                    BuiltInMethod.ROW_COUNT.method, new DynamoDBRelMdRowCount());
+
+    private DynamoDBRelMdRowCount() {
+    }
+
+    public MetadataDef<BuiltInMetadata.RowCount> getDef() {
+        return BuiltInMetadata.RowCount.DEF;
+    }
+
+    public Double getRowCount(DynamoDBLimit rel, RelMetadataQuery mq) {
+        Double rowCount = mq.getRowCount(rel.getInput());
+        if (rowCount == null) {
+            return null;
+        }
+
+        if (rel.offset != null) {
+            rowCount = Math.max(0d, rowCount - RexLiteral.intValue(rel.offset));
+        }
+        return Math.min(rowCount, RexLiteral.intValue(rel.fetch));
+    }
+}
@@ -0,0 +1,46 @@
+package calcite.adapter.dynamodb.rel;
+
+import org.apache.calcite.plan.volcano.RelSubset;
+import org.apache.calcite.rel.metadata.BuiltInMetadata;
+import org.apache.calcite.rel.metadata.MetadataDef;
+import org.apache.calcite.rel.metadata.MetadataHandler;
+import org.apache.calcite.rel.metadata.ReflectiveRelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMdUtil;
+import org.apache.calcite.rel.metadata.RelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.util.BuiltInMethod;
+import org.apache.calcite.util.Util;
+
+/**
+ * Estimates the fraction of the items of a DynamoDB table a condition selects from the keys it binds and the size of
+ * the table, instead of the fixed guesses of Calcite, which know nothing about keys.
+ */
+public class DynamoDBRelMdSelectivity implements MetadataHandler<BuiltInMetadata.Selectivity> {
+    public static final RelMetadataProvider SOURCE =
+            ReflectiveRelMetadataProvider.reflectiveSource(
+                    BuiltInMethod.SELECTIVITY.method, new DynamoDBRelMdSelectivity());
+
+    private DynamoDBRelMdSelectivity() {
+    }
+
+    public MetadataDef<BuiltInMetadata.Selectivity> getDef() {
+        return BuiltInMetadata.Selectivity.DEF;
+    }
+
+    public Double getSelectivity(DynamoDBTableScan rel, RelMetadataQuery mq, RexNode predicate) {
+        if (predicate == null) {
+            return 1d;
+        }
+
+        Double selectivity = DynamoDBFilter.estimateSelectivity(rel.getDynamoDBTable(), rel.getRowType().getFieldNames(), predicate);
+        return selectivity != null ? selectivity : RelMdUtil.guessSelectivity(predicate);
+    }
+
+    /**
+     * Filters are planned on the subset of the table scan, which Calcite only looks through for row counts.
+     */
+    public Double getSelectivity(RelSubset rel, RelMetadataQuery mq, RexNode predicate) {
+        return mq.getSelectivity(Util.first(rel.getBest(), rel.getOriginal()), predicate);
+    }
+}
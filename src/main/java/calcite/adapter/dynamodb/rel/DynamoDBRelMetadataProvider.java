@@ -0,0 +1,94 @@
+package calcite.adapter.dynamodb.rel;
+
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.rel.metadata.ChainedRelMetadataProvider;
+import org.apache.calcite.rel.metadata.JaninoRelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.runtime.Hook;
+import org.apache.calcite.tools.Program;
+import org.apache.calcite.tools.Programs;
+import org.apache.calcite.util.Holder;
+import org.apache.calcite.util.Util;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Metadata of the DynamoDB relational expressions, ahead of the metadata a cluster had.
+ */
+public class DynamoDBRelMetadataProvider extends ChainedRelMetadataProvider {
+    private final RelMetadataProvider previousProvider;
+    private final JaninoRelMetadataProvider previousThreadProvider;
+    private volatile boolean modification = false;
+
+    private DynamoDBRelMetadataProvider(RelMetadataProvider previousProvider, JaninoRelMetadataProvider previousThreadProvider) {
+        super(ImmutableList.of(DynamoDBRelMdRowCount.SOURCE, DynamoDBRelMdSelectivity.SOURCE,
+                DynamoDBRelMdCollation.SOURCE, previousProvider));
+        this.previousProvider = previousProvider;
+        this.previousThreadProvider = previousThreadProvider;
+    }
+
+    /**
+     * Makes the planning of a query reading DynamoDB tables use the DynamoDB metadata. The tables are converted
+     * into relational expressions after the query compiled the metadata of its cluster, so the compiled metadata of
+     * the thread is replaced too, until the query is optimized: its program gives the cluster and the thread their
+     * metadata back, whether it plans the query, e.g. of an EXPLAIN, or fails. Chains of the same providers are
+     * equal, so the code compiled for them is reused from one query to the next.
+     */
+    public static void install(final RelOptCluster cluster) {
+        if (cluster.getMetadataProvider() instanceof DynamoDBRelMetadataProvider) {
+            return;
+        }
+
+        DynamoDBRelMetadataProvider provider =
+                new DynamoDBRelMetadataProvider(cluster.getMetadataProvider(), RelMetadataQuery.THREAD_PROVIDERS.get());
+        cluster.setMetadataProvider(provider);
+        RelMetadataQuery.THREAD_PROVIDERS.set(JaninoRelMetadataProvider.of(provider));
+
+        final AtomicReference<Hook.Closeable> hook = new AtomicReference<>();
+        hook.set(Hook.PROGRAM.addThread((Function<Holder<Program>, Void>) holder -> {
+            hook.get().close();
+            final Program program = Util.first(holder.get(), Programs.standard());
+            holder.set((planner, rel, requiredOutputTraits, materializations, lattices) -> {
+                try {
+                    return program.run(planner, rel, requiredOutputTraits, materializations, lattices);
+                } finally {
+                    restore(cluster);
+                }
+            });
+            return null;
+        }));
+    }
+
+    /**
+     * Makes the planning of a query modifying a DynamoDB table use the DynamoDB metadata, see
+     * {@link DynamoDBRelMdCollation}.
+     */
+    public static void installForModification(RelOptCluster cluster) {
+        install(cluster);
+        ((DynamoDBRelMetadataProvider) cluster.getMetadataProvider()).modification = true;
+    }
+
+    /**
+     * Returns whether a cluster plans a query modifying a DynamoDB table.
+     */
+    static boolean isModification(RelOptCluster cluster) {
+        return cluster.getMetadataProvider() instanceof DynamoDBRelMetadataProvider
+                && ((DynamoDBRelMetadataProvider) cluster.getMetadataProvider()).modification;
+    }
+
+    /**
+     * Gives a cluster and its thread back the metadata they had before {@link #install}.
+     */
+    private static void restore(RelOptCluster cluster) {
+        if (!(cluster.getMetadataProvider() instanceof DynamoDBRelMetadataProvider)) {
+            return;
+        }
+
+        DynamoDBRelMetadataProvider provider = (DynamoDBRelMetadataProvider) cluster.getMetadataProvider();
+        cluster.setMetadataProvider(provider.previousProvider);
+        RelMetadataQuery.THREAD_PROVIDERS.set(provider.previousThreadProvider);
+    }
+}
@@ -0,0 +1,44 @@
+package calcite.adapter.dynamodb.rel;
+
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelCollation;
+import org.apache.calcite.rel.RelFieldCollation;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Sort;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rex.RexNode;
+
+/**
+ * Implementation of sorts by the sort key in DynamoDB: a query returns the items of a hash key ordered by their
+ * sort key, forwards or backwards depending on {@code ScanIndexForward}, so no rows need to be sorted in memory.
+ */
+public class DynamoDBSort extends Sort implements DynamoDBRel {
+    public DynamoDBSort(RelOptCluster cluster, RelTraitSet traitSet,
+                        RelNode input, RelCollation collation) {
+        super(cluster, traitSet, input, collation, null, null);
+        assert getConvention() == DynamoDBRel.CONVENTION;
+        assert getConvention() == input.getConvention();
+    }
+
+    @Override
+    public Sort copy(RelTraitSet traitSet, RelNode input,
+                     RelCollation newCollation, RexNode offset, RexNode fetch) {
+        return new DynamoDBSort(getCluster(), traitSet, input, newCollation);
+    }
+
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner,
+                                      RelMetadataQuery mq) {
+        return super.computeSelfCost(planner, mq).multiplyBy(0.1);
+    }
+
+    public void implement(Implementor implementor) {
+        implementor.visitChild(0, getInput());
+
+        RelFieldCollation fieldCollation = getCollation().getFieldCollations().get(0);
+        implementor.setScanIndexForward(fieldCollation.getDirection() == RelFieldCollation.Direction.ASCENDING);
+    }
+}
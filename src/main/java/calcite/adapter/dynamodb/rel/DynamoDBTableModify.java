@@ -0,0 +1,80 @@
+package calcite.adapter.dynamodb.rel;
+
+import calcite.adapter.dynamodb.DynamoDBTable;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
+import org.apache.calcite.adapter.enumerable.EnumerableRelImplementor;
+import org.apache.calcite.adapter.enumerable.JavaRowFormat;
+import org.apache.calcite.adapter.enumerable.PhysType;
+import org.apache.calcite.adapter.enumerable.PhysTypeImpl;
+import org.apache.calcite.linq4j.Enumerable;
+import org.apache.calcite.linq4j.tree.BlockBuilder;
+import org.apache.calcite.linq4j.tree.Expression;
+import org.apache.calcite.linq4j.tree.Expressions;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptCost;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelOptTable;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.prepare.Prepare;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.TableModify;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+
+import java.util.List;
+
+/**
+ * Relational expression modifying a DynamoDB table with the rows of its input: the rows to insert, the keys of the
+ * items to delete, both written with batched writes, or the items to update, followed by their new values, each
+ * updated with an UpdateItem request. It returns the number of rows modified.
+ */
+public class DynamoDBTableModify extends TableModify implements EnumerableRel {
+    public DynamoDBTableModify(RelOptCluster cluster, RelTraitSet traitSet, RelOptTable table, Prepare.CatalogReader catalogReader,
+                               RelNode input, Operation operation, List<String> updateColumnList, boolean flattened) {
+        super(cluster, traitSet, table, catalogReader, input, operation, updateColumnList, flattened);
+
+        assert getConvention() == EnumerableConvention.INSTANCE;
+        assert table.unwrap(DynamoDBTable.class) != null;
+    }
+
+    @Override
+    public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
+        return new DynamoDBTableModify(getCluster(), traitSet, getTable(), getCatalogReader(), sole(inputs), getOperation(),
+                getUpdateColumnList(), isFlattened());
+    }
+
+    @Override
+    public RelOptCost computeSelfCost(RelOptPlanner planner, RelMetadataQuery mq) {
+        // up to 25 rows per request, rather than a collection of the whole table.
+        return super.computeSelfCost(planner, mq).multiplyBy(.1);
+    }
+
+    public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
+        final BlockBuilder builder = new BlockBuilder();
+        final Result result = implementor.visitChild(this, 0, (EnumerableRel) getInput(), Prefer.ARRAY);
+        final Expression childExp = builder.append("child", result.block);
+
+        final Expression tableExp = table.getExpression(DynamoDBTable.class);
+        final Expression rowsExp = Expressions.convert_(childExp, Enumerable.class);
+        final Expression modifyExp;
+        switch (getOperation()) {
+            case INSERT:
+                modifyExp = Expressions.call(tableExp, "insert", implementor.getRootExpression(), rowsExp);
+                break;
+            case DELETE:
+                modifyExp = Expressions.call(tableExp, "delete", implementor.getRootExpression(), rowsExp);
+                break;
+            case UPDATE:
+                modifyExp = Expressions.call(tableExp, "update", implementor.getRootExpression(), rowsExp,
+                        DynamoDBToEnumerableConverter.constantArrayList(getUpdateColumnList(), String.class));
+                break;
+            default:
+                throw new AssertionError(getOperation());
+        }
+        builder.add(Expressions.return_(null, modifyExp));
+
+        final PhysType physType = PhysTypeImpl.of(implementor.getTypeFactory(), getRowType(),
+                pref == Prefer.ARRAY ? JavaRowFormat.ARRAY : JavaRowFormat.SCALAR);
+        return implementor.result(physType, builder.toBlock());
+    }
+}
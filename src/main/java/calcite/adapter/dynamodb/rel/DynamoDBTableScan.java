@@ -1,38 +1,53 @@
 package calcite.adapter.dynamodb.rel;
 
 import calcite.adapter.dynamodb.DynamoDBTable;
+import calcite.adapter.dynamodb.rules.DynamoDBAggregateRule;
+import calcite.adapter.dynamodb.rules.DynamoDBFilterProjectTransposeRule;
 import calcite.adapter.dynamodb.rules.DynamoDBFilterRule;
+import calcite.adapter.dynamodb.rules.DynamoDBKeyedUpdateRule;
+import calcite.adapter.dynamodb.rules.DynamoDBLimitRule;
+import calcite.adapter.dynamodb.rules.DynamoDBLookupJoinRule;
 import calcite.adapter.dynamodb.rules.DynamoDBProjectRule;
+import calcite.adapter.dynamodb.rules.DynamoDBProjectSplitRule;
+import calcite.adapter.dynamodb.rules.DynamoDBSortRule;
+import calcite.adapter.dynamodb.rules.DynamoDBTableModifyRule;
 import calcite.adapter.dynamodb.rules.DynamoDBToEnumerableConverterRule;
 import org.apache.calcite.plan.*;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.core.TableScan;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.rel.rules.FilterProjectTransposeRule;
 import org.apache.calcite.rel.type.RelDataType;
 
 import java.util.List;
 
 public class DynamoDBTableScan extends TableScan implements DynamoDBRel {
+    /**
+     * The most bytes of items a Scan or Query returns in one page.
+     */
+    static final double PAGE_BYTES = 1024 * 1024;
+    /**
+     * The most keys a BatchGetItem request reads.
+     */
+    static final int BATCH_GET_KEYS = 100;
+
     final DynamoDBTable dynamoDBTable;
     final RelDataType projectRowType;
 
-    private String hashKeyName;
-    private String sortKeyName;
-
     public DynamoDBTableScan(RelOptCluster cluster, RelTraitSet traitSet,
-                             RelOptTable table, DynamoDBTable dynamoDBTable, RelDataType projectRowType,
-                             String hashKeyName, String sortKeyName) {
+                             RelOptTable table, DynamoDBTable dynamoDBTable, RelDataType projectRowType) {
         super(cluster, traitSet, table);
         this.dynamoDBTable = dynamoDBTable;
         this.projectRowType = projectRowType;
 
-        this.hashKeyName = hashKeyName;
-        this.sortKeyName = sortKeyName;
-
         assert dynamoDBTable != null;
         assert getConvention() == DynamoDBRel.CONVENTION;
     }
 
+    public DynamoDBTable getDynamoDBTable() {
+        return dynamoDBTable;
+    }
+
     @Override
     public RelNode copy(RelTraitSet traitSet, List<RelNode> inputs) {
         assert inputs.isEmpty();
@@ -50,14 +65,36 @@ public class DynamoDBTableScan extends TableScan implements DynamoDBRel {
         // scans with a small project list are cheaper
         final float f = projectRowType == null ? 1f
                 : (float) projectRowType.getFieldCount() / 100f;
-        return super.computeSelfCost(planner, mq).multiplyBy(.1 * f);
+        // a full scan reads every item of the table, in pages of 1 MB
+        final double rows = mq.getRowCount(this);
+        final double bytes = rows * dynamoDBTable.getAverageItemBytes();
+        return planner.getCostFactory().makeCost(rows * .1 * f, getPageCount(bytes), bytes);
+    }
+
+    /**
+     * Returns the number of pages DynamoDB returns the given bytes of items in, at least one.
+     */
+    static double getPageCount(double bytes) {
+        return Math.max(1d, Math.ceil(bytes / PAGE_BYTES));
     }
 
     @Override
     public void register(RelOptPlanner planner) {
         planner.addRule(DynamoDBToEnumerableConverterRule.INSTANCE);
         planner.addRule(DynamoDBProjectRule.INSTANCE);
-        planner.addRule(DynamoDBFilterRule.getInstance(hashKeyName, sortKeyName));
+        planner.addRule(DynamoDBProjectSplitRule.INSTANCE);
+        planner.addRule(DynamoDBFilterRule.INSTANCE);
+        planner.addRule(DynamoDBLimitRule.INSTANCE);
+        planner.addRule(DynamoDBSortRule.INSTANCE);
+        planner.addRule(DynamoDBAggregateRule.INSTANCE);
+        // an UPDATE or DELETE is not converted by the table, see DynamoDBTable#toModificationRel.
+        planner.addRule(DynamoDBTableModifyRule.INSTANCE);
+        planner.addRule(DynamoDBKeyedUpdateRule.INSTANCE);
+        planner.addRule(DynamoDBLookupJoinRule.INSTANCE);
+        planner.addRule(DynamoDBLookupJoinRule.PROJECT_INSTANCE);
+        if (planner.removeRule(FilterProjectTransposeRule.INSTANCE)) {
+            planner.addRule(DynamoDBFilterProjectTransposeRule.INSTANCE);
+        }
     }
 
     public void implement(Implementor implementor) {
@@ -13,6 +13,7 @@ import org.apache.calcite.rel.convert.ConverterImpl;
 import org.apache.calcite.rel.metadata.RelMetadataQuery;
 import org.apache.calcite.util.BuiltInMethod;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -37,13 +38,31 @@ public class DynamoDBToEnumerableConverter
     @Override
     public RelOptCost computeSelfCost(RelOptPlanner planner,
                                       RelMetadataQuery mq) {
-        return super.computeSelfCost(planner, mq).multiplyBy(.1);
+        // the fewer columns DynamoDB returns, the fewer attributes it reads and transfers.
+        final RelOptCost cost = super.computeSelfCost(planner, mq).multiplyBy(.1 * getRowType().getFieldCount());
+        final DynamoDBTable table = DynamoDBRel.findTable(getInput());
+        if (table == null) {
+            return cost;
+        }
+
+        // the io is the bytes of the columns transferred, their share of the average item
+        final double columnShare = Math.min(1d, (double) getRowType().getFieldCount() / table.getColumnCount());
+        return planner.getCostFactory().makeCost(cost.getRows(), cost.getCpu(),
+                mq.getRowCount(this) * table.getAverageItemBytes() * columnShare);
     }
 
     public Result implement(EnumerableRelImplementor implementor, Prefer pref) {
         final DynamoDBRel.Implementor dynamoDBImplementor = new DynamoDBRel.Implementor();
         dynamoDBImplementor.visitChild(0, getInput());
 
+        // only the attributes of the columns are requested, whatever the expressions computed from them above.
+        final List<String> attributeNames = DynamoDBRel.getAttributeNames(getInput());
+        if (!dynamoDBImplementor.isCount()) {
+            for (String attributeName : attributeNames) {
+                dynamoDBImplementor.addAttributeToGet(dynamoDBImplementor.aliasAttribute(attributeName));
+            }
+        }
+
         PhysType physType =
                 PhysTypeImpl.of(
                         implementor.getTypeFactory(),
@@ -52,6 +71,9 @@ public class DynamoDBToEnumerableConverter
 
 
         final BlockBuilder blockBuilder = new BlockBuilder();
+        final Expression fieldNames =
+                blockBuilder.append("fieldNames",
+                        constantArrayList(attributeNames, String.class));
         final Expression filterExpressions =
                 blockBuilder.append("filterExpressions",
                         constantArrayList(dynamoDBImplementor.getFilterExpressions(), String.class));
@@ -61,17 +83,35 @@ public class DynamoDBToEnumerableConverter
         final Expression expressionAttributeValues =
                 blockBuilder.append("expressionAttributeValues",
                         constantArrayList(dynamoDBImplementor.getExpressionAttributeValues(), Object.class));
+        final Expression attributeAliases =
+                blockBuilder.append("attributeAliases",
+                        constantArrayList(dynamoDBImplementor.getAttributeAliases(), String.class));
+        final Expression aliasedAttributeNames =
+                blockBuilder.append("aliasedAttributeNames",
+                        constantArrayList(dynamoDBImplementor.getAliasedAttributeNames(), String.class));
         final Expression keyConditionExpressions =
                 blockBuilder.append("keyConditionExpressions",
                         constantArrayList(dynamoDBImplementor.getKeyConditionExpressions(), String.class));
+        final Expression lookupKeys =
+                blockBuilder.append("lookupKeys",
+                        constantArrayList(dynamoDBImplementor.getLookupKeys(), String.class));
 
         blockBuilder.add(Expressions.call(dynamoDBImplementor.table.getExpression(DynamoDBTable.class),
                 "scanOrQuery", implementor.getRootExpression(),
+                fieldNames,
                 Expressions.constant(dynamoDBImplementor.getProjectionExpression()),
                 filterExpressions,
                 expressionAttributeNames,
                 expressionAttributeValues,
-                keyConditionExpressions
+                attributeAliases,
+                aliasedAttributeNames,
+                keyConditionExpressions,
+                Expressions.constant(dynamoDBImplementor.getIndexName(), String.class),
+                lookupKeys,
+                Expressions.constant(dynamoDBImplementor.getOffset()),
+                Expressions.constant(dynamoDBImplementor.getFetch()),
+                Expressions.constant(dynamoDBImplementor.isScanIndexForward()),
+                Expressions.constant(dynamoDBImplementor.isCount())
         ));
 
         return implementor.result(
@@ -83,7 +123,7 @@ public class DynamoDBToEnumerableConverter
      * E.g. {@code constantArrayList("x", "y")} returns
      * "Arrays.asList('x', 'y')".
      */
-    private static <T> MethodCallExpression constantArrayList(List<T> values,
+    static <T> MethodCallExpression constantArrayList(List<T> values,
                                                               Class clazz) {
         return Expressions.call(
                 BuiltInMethod.ARRAYS_AS_LIST.method,
@@ -96,6 +136,18 @@ public class DynamoDBToEnumerableConverter
      */
     private static <T> List<Expression> constantList(List<T> values) {
         return Lists.transform(values,
-                a0 -> Expressions.constant(a0));
+                DynamoDBToEnumerableConverter::constant);
+    }
+
+    /**
+     * linq4j writes a decimal constant with a fraction as a call to a constructor that does not exist, so decimals
+     * are created from their string instead.
+     */
+    private static Expression constant(Object value) {
+        if (value instanceof BigDecimal) {
+            return Expressions.new_(BigDecimal.class, Expressions.constant(((BigDecimal) value).toPlainString()));
+        }
+
+        return Expressions.constant(value);
     }
 }
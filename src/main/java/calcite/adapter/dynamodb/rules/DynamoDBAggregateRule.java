@@ -0,0 +1,53 @@
+package calcite.adapter.dynamodb.rules;
+
+import calcite.adapter.dynamodb.rel.DynamoDBAggregate;
+import calcite.adapter.dynamodb.rel.DynamoDBRel;
+import org.apache.calcite.plan.Convention;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.convert.ConverterRule;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.logical.LogicalAggregate;
+import org.apache.calcite.sql.SqlKind;
+
+/**
+ * Rule to convert a {@link LogicalAggregate} computing a single {@code COUNT(*)} without grouping into a
+ * {@link DynamoDBAggregate}.
+ */
+public class DynamoDBAggregateRule extends ConverterRule {
+    public static final DynamoDBAggregateRule INSTANCE =
+            new DynamoDBAggregateRule();
+
+    private DynamoDBAggregateRule() {
+        super(LogicalAggregate.class, DynamoDBAggregateRule::isCountAll,
+                Convention.NONE, DynamoDBRel.CONVENTION, "DynamoDBAggregateRule");
+    }
+
+    private static boolean isCountAll(LogicalAggregate aggregate) {
+        if (aggregate.getGroupType() != Aggregate.Group.SIMPLE || aggregate.getGroupCount() != 0
+                || aggregate.getAggCallList().size() != 1) {
+            return false;
+        }
+
+        AggregateCall aggregateCall = aggregate.getAggCallList().get(0);
+        return aggregateCall.getAggregation().getKind() == SqlKind.COUNT
+                && aggregateCall.getArgList().isEmpty()
+                && !aggregateCall.isDistinct()
+                && aggregateCall.filterArg < 0;
+    }
+
+    @Override
+    public RelNode convert(RelNode rel) {
+        final LogicalAggregate aggregate = (LogicalAggregate) rel;
+        // DynamoDB counts all matching items, a limit below would be ignored.
+        if (DynamoDBLimitRule.isLimited(aggregate.getInput())) {
+            return null;
+        }
+
+        final RelTraitSet traitSet = aggregate.getTraitSet().replace(DynamoDBRel.CONVENTION);
+        return new DynamoDBAggregate(rel.getCluster(), traitSet,
+                convert(aggregate.getInput(), DynamoDBRel.CONVENTION), aggregate.indicator,
+                aggregate.getGroupSet(), aggregate.getGroupSets(), aggregate.getAggCallList());
+    }
+}
@@ -0,0 +1,29 @@
+package calcite.adapter.dynamodb.rules;
+
+import calcite.adapter.dynamodb.rel.DynamoDBProject;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rel.core.RelFactories;
+import org.apache.calcite.rel.rules.FilterProjectTransposeRule;
+
+/**
+ * {@link FilterProjectTransposeRule} replacing its default instance, which matches any filter and project and would
+ * copy a {@link DynamoDBProject} onto the logical filter above it, which DynamoDB cannot read from. A filter is only
+ * pushed below a DynamoDB project when it is a DynamoDB filter too.
+ */
+public class DynamoDBFilterProjectTransposeRule extends FilterProjectTransposeRule {
+    public static final DynamoDBFilterProjectTransposeRule INSTANCE =
+            new DynamoDBFilterProjectTransposeRule();
+
+    private DynamoDBFilterProjectTransposeRule() {
+        super(Filter.class, Project.class, true, true, RelFactories.LOGICAL_BUILDER);
+    }
+
+    @Override
+    public boolean matches(RelOptRuleCall call) {
+        final Filter filter = call.rel(0);
+        final Project project = call.rel(1);
+        return !(project instanceof DynamoDBProject) || filter.getConvention() == project.getConvention();
+    }
+}
@@ -1,41 +1,108 @@
 package calcite.adapter.dynamodb.rules;
 
+import calcite.adapter.dynamodb.DynamoDBIndex;
+import calcite.adapter.dynamodb.DynamoDBTable;
 import calcite.adapter.dynamodb.rel.DynamoDBFilter;
 import calcite.adapter.dynamodb.rel.DynamoDBRel;
-import org.apache.calcite.plan.Convention;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.plan.RelTraitSet;
 import org.apache.calcite.rel.RelNode;
-import org.apache.calcite.rel.convert.ConverterRule;
 import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.util.ImmutableBitSet;
 
-public class DynamoDBFilterRule extends ConverterRule {
-    private String hashKeyName;
-    private String sortKeyName;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
-    private static DynamoDBFilterRule INSTANCE = null;
+/**
+ * Rule to convert a {@link LogicalFilter} into a {@link DynamoDBFilter} for every access path of the table: its
+ * primary key and each secondary index the condition can query. The planner picks the cheapest one.
+ *
+ * <p>The conjunctions DynamoDB cannot evaluate, e.g. functions or comparisons of two columns, or only alone, e.g. a
+ * second range of the sort key, stay in a {@link LogicalFilter} above, so the others, key conditions first, are still
+ * pushed down.
+ */
+public class DynamoDBFilterRule extends RelOptRule {
+    public static final DynamoDBFilterRule INSTANCE =
+            new DynamoDBFilterRule();
 
-    public static DynamoDBFilterRule getInstance(String hashKeyName, String sortKeyName) {
-        if (INSTANCE == null) {
-            INSTANCE = new DynamoDBFilterRule(hashKeyName, sortKeyName);
+    private DynamoDBFilterRule() {
+        super(operand(LogicalFilter.class, any()), "DynamoDBFilterRule");
+    }
+
+    @Override
+    public void onMatch(RelOptRuleCall call) {
+        final LogicalFilter filter = call.rel(0);
+        final DynamoDBTable table = DynamoDBRel.findTable(filter.getInput());
+        if (table == null || DynamoDBLimitRule.isLimited(filter.getInput())) {
+            return;
+        }
+
+        final List<String> attributeNames = DynamoDBRel.getAttributeNames(filter.getInput());
+        final RexBuilder rexBuilder = filter.getCluster().getRexBuilder();
+        final List<RexNode> conjunctions = new ArrayList<>(RelOptUtil.conjunctions(filter.getCondition()));
+        conjunctions.sort(Comparator.comparingInt(node -> getKeyRank(table, attributeNames, node)));
+
+        // some conditions only translate alone, e.g. a second range of the sort key, so they stay in the residual.
+        final List<RexNode> pushed = new ArrayList<>();
+        final List<RexNode> residual = new ArrayList<>();
+        for (RexNode node : conjunctions) {
+            pushed.add(node);
+            if (toTranslatable(table, attributeNames, rexBuilder, pushed) == null) {
+                pushed.remove(pushed.size() - 1);
+                residual.add(node);
+            }
+        }
+        if (pushed.isEmpty()) {
+            return;
+        }
+        final RexNode condition = toTranslatable(table, attributeNames, rexBuilder, pushed);
+
+        final RelTraitSet traitSet = filter.getTraitSet().replace(DynamoDBRel.CONVENTION);
+        final RelNode input = convert(filter.getInput(), DynamoDBRel.CONVENTION);
+        for (DynamoDBIndex index : table.getIndexes()) {
+            DynamoDBFilter dynamoDBFilter = new DynamoDBFilter(filter.getCluster(), traitSet, input, condition, index);
+            if (dynamoDBFilter.isValidAccessPath()) {
+                call.transformTo(residual.isEmpty() ? dynamoDBFilter
+                        : LogicalFilter.create(dynamoDBFilter, RexUtil.composeConjunction(rexBuilder, residual, false)));
+            }
         }
-        return INSTANCE;
     }
 
-    private DynamoDBFilterRule(String hashKeyName, String sortKeyName) {
-        super(LogicalFilter.class, Convention.NONE, DynamoDBRel.CONVENTION, "DynamoDBFilterRule");
+    /**
+     * Returns the conjunction of the given conditions in a form the translator reads, or null if it cannot translate
+     * it. The translator reads an or of ands, not an and of ors.
+     */
+    private static RexNode toTranslatable(DynamoDBTable table, List<String> attributeNames, RexBuilder rexBuilder,
+                                          List<RexNode> conjunctions) {
+        final RexNode condition = RexUtil.composeConjunction(rexBuilder, conjunctions, false);
+        if (DynamoDBFilter.canTranslate(table, attributeNames, condition)) {
+            return condition;
+        }
 
-        this.hashKeyName = hashKeyName;
-        this.sortKeyName = sortKeyName;
+        final RexNode dnf = RexUtil.toDnf(rexBuilder, condition);
+        return DynamoDBFilter.canTranslate(table, attributeNames, dnf) ? dnf : null;
     }
 
-    @Override
-    public RelNode convert(RelNode rel) {
-        final LogicalFilter filter = (LogicalFilter) rel;
-        final RelTraitSet traitSet = filter.getTraitSet().replace(DynamoDBRel.CONVENTION);
-        return new DynamoDBFilter(
-                rel.getCluster(),
-                traitSet,
-                convert(filter.getInput(), DynamoDBRel.CONVENTION),
-                filter.getCondition(), hashKeyName, sortKeyName);
+    /**
+     * Ranks a condition on the hash key first, then one on the sort key, then the others.
+     */
+    private static int getKeyRank(DynamoDBTable table, List<String> attributeNames, RexNode node) {
+        final DynamoDBIndex primaryKey = table.getIndexes().get(0);
+        final ImmutableBitSet columns = RelOptUtil.InputFinder.bits(node);
+        if (columns.cardinality() != 1) {
+            return 2;
+        }
+
+        final String attributeName = attributeNames.get(columns.nth(0));
+        if (attributeName.equals(primaryKey.getHashKeyName())) {
+            return 0;
+        }
+        return attributeName.equals(primaryKey.getSortKeyName()) ? 1 : 2;
     }
-}
\ No newline at end of file
+}
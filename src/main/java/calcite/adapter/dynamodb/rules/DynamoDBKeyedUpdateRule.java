@@ -0,0 +1,69 @@
+package calcite.adapter.dynamodb.rules;
+
+import calcite.adapter.dynamodb.DynamoDBTable;
+import calcite.adapter.dynamodb.rel.DynamoDBKeyedUpdate;
+import calcite.adapter.dynamodb.rel.DynamoDBTableScan;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rel.logical.LogicalTableModify;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUtil;
+
+import java.util.List;
+
+/**
+ * Rule to convert an UPDATE of a DynamoDB table whose condition binds the full primary key of every item, i.e. a
+ * {@link LogicalTableModify} of a {@link LogicalProject} computing the new values of a {@link LogicalFilter} of the
+ * table, into a {@link DynamoDBKeyedUpdate}, which does not read the items first.
+ */
+public class DynamoDBKeyedUpdateRule extends RelOptRule {
+    public static final DynamoDBKeyedUpdateRule INSTANCE =
+            new DynamoDBKeyedUpdateRule();
+
+    private DynamoDBKeyedUpdateRule() {
+        super(operand(LogicalTableModify.class,
+                operand(LogicalProject.class,
+                        operand(LogicalFilter.class,
+                                operand(DynamoDBTableScan.class, none())))),
+                "DynamoDBKeyedUpdateRule");
+    }
+
+    @Override
+    public boolean matches(RelOptRuleCall call) {
+        final LogicalTableModify modify = call.rel(0);
+        final DynamoDBTableScan scan = call.rel(3);
+        return modify.isUpdate() && modify.getTable().unwrap(DynamoDBTable.class) != null
+                && DynamoDBKeyedUpdate.isKeyedUpdate(scan.getDynamoDBTable(), scan.getRowType().getFieldNames(),
+                getCondition(call), modify.getUpdateColumnList(), getSourceExpressionList(call));
+    }
+
+    /**
+     * Returns the condition of the filter as an OR of ANDs, e.g. of the key of each item for an IN list of keys.
+     */
+    private static RexNode getCondition(RelOptRuleCall call) {
+        final LogicalFilter filter = call.rel(2);
+        return RexUtil.toDnf(filter.getCluster().getRexBuilder(), filter.getCondition());
+    }
+
+    /**
+     * Returns the new values of the updated columns, which follow the current values of all the columns.
+     */
+    private static List<RexNode> getSourceExpressionList(RelOptRuleCall call) {
+        final LogicalTableModify modify = call.rel(0);
+        final List<RexNode> projects = ((LogicalProject) call.rel(1)).getProjects();
+        return projects.subList(projects.size() - modify.getUpdateColumnList().size(), projects.size());
+    }
+
+    @Override
+    public void onMatch(RelOptRuleCall call) {
+        final LogicalTableModify modify = call.rel(0);
+        final DynamoDBTableScan scan = call.rel(3);
+
+        call.transformTo(new DynamoDBKeyedUpdate(modify.getCluster(), modify.getTraitSet().replace(EnumerableConvention.INSTANCE),
+                modify.getTable(), scan.getRowType().getFieldNames(), getCondition(call), modify.getUpdateColumnList(),
+                getSourceExpressionList(call), modify.getRowType()));
+    }
+}
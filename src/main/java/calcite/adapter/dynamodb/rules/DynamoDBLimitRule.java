@@ -0,0 +1,75 @@
+package calcite.adapter.dynamodb.rules;
+
+import calcite.adapter.dynamodb.rel.DynamoDBLimit;
+import calcite.adapter.dynamodb.rel.DynamoDBRel;
+import org.apache.calcite.adapter.enumerable.EnumerableLimit;
+import org.apache.calcite.plan.Convention;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.plan.volcano.RelSubset;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.convert.ConverterRule;
+import org.apache.calcite.rel.core.Sort;
+import org.apache.calcite.rel.logical.LogicalSort;
+import org.apache.calcite.rex.RexLiteral;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Rule to convert a {@link LogicalSort} with a literal fetch into a {@link DynamoDBLimit}. If the sort has sort keys,
+ * the limit only applies when DynamoDB returns its input in that order, see {@link DynamoDBSortRule}.
+ */
+public class DynamoDBLimitRule extends ConverterRule {
+    public static final DynamoDBLimitRule INSTANCE =
+            new DynamoDBLimitRule();
+
+    private DynamoDBLimitRule() {
+        super(LogicalSort.class,
+                (LogicalSort sort) -> sort.fetch instanceof RexLiteral
+                        && (sort.offset == null || sort.offset instanceof RexLiteral),
+                Convention.NONE, DynamoDBRel.CONVENTION, "DynamoDBLimitRule");
+    }
+
+    /**
+     * Returns whether a limit sits anywhere below the given input. DynamoDB applies filters before limits, so
+     * relational expressions above a limit must not be pushed into the same request.
+     */
+    public static boolean isLimited(RelNode input) {
+        return isLimited(input, new HashSet<>());
+    }
+
+    private static boolean isLimited(RelNode rel, Set<RelNode> visited) {
+        if (!visited.add(rel)) {
+            return false;
+        }
+
+        if (rel instanceof DynamoDBLimit || rel instanceof EnumerableLimit
+                || rel instanceof Sort && (((Sort) rel).fetch != null || ((Sort) rel).offset != null)) {
+            return true;
+        }
+
+        Iterable<RelNode> inputs = rel instanceof RelSubset ? ((RelSubset) rel).getRelList() : rel.getInputs();
+        for (RelNode input : inputs) {
+            if (isLimited(input, visited)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public RelNode convert(RelNode rel) {
+        final LogicalSort sort = (LogicalSort) rel;
+        final RelTraitSet traitSet = sort.getTraitSet().replace(DynamoDBRel.CONVENTION);
+
+        // a sorted limit needs its input sorted in DynamoDB, i.e. a DynamoDBSort.
+        RelNode input = sort.getInput();
+        if (!sort.getCollation().getFieldCollations().isEmpty()) {
+            input = sort.copy(sort.getTraitSet(), input, sort.getCollation(), null, null);
+        }
+
+        return new DynamoDBLimit(rel.getCluster(), traitSet,
+                convert(input, input.getTraitSet().replace(DynamoDBRel.CONVENTION)), sort.offset, sort.fetch);
+    }
+}
@@ -0,0 +1,162 @@
+package calcite.adapter.dynamodb.rules;
+
+import calcite.adapter.dynamodb.rel.DynamoDBFilter;
+import calcite.adapter.dynamodb.rel.DynamoDBLookupJoin;
+import calcite.adapter.dynamodb.rel.DynamoDBTableScan;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptRuleOperand;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rex.RexCall;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.type.SqlTypeUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rule to convert a {@link LogicalJoin} of rows to a DynamoDB table, or to a selection of its columns, on the hash
+ * key of the table, and its sort key if any, into a {@link DynamoDBLookupJoin}, which reads the items of the keys
+ * of the rows rather than the whole table. The other conditions of an inner join are applied above it.
+ */
+public class DynamoDBLookupJoinRule extends RelOptRule {
+    public static final DynamoDBLookupJoinRule INSTANCE =
+            new DynamoDBLookupJoinRule(
+                    operand(LogicalJoin.class,
+                            operand(RelNode.class, any()),
+                            operand(DynamoDBTableScan.class, none())),
+                    "DynamoDBLookupJoinRule");
+
+    public static final DynamoDBLookupJoinRule PROJECT_INSTANCE =
+            new DynamoDBLookupJoinRule(
+                    operand(LogicalJoin.class,
+                            operand(RelNode.class, any()),
+                            operand(LogicalProject.class,
+                                    operand(DynamoDBTableScan.class, none()))),
+                    "DynamoDBLookupJoinRule:project");
+
+    private DynamoDBLookupJoinRule(RelOptRuleOperand operand, String description) {
+        super(operand, description);
+    }
+
+    @Override
+    public void onMatch(RelOptRuleCall call) {
+        final LogicalJoin join = call.rel(0);
+        final DynamoDBTableScan scan = call.rel(call.getRelList().size() - 1);
+        if (join.getJoinType() != JoinRelType.INNER && join.getJoinType() != JoinRelType.LEFT) {
+            return;
+        }
+
+        final List<String> attributeNames = getAttributeNames(call);
+        if (attributeNames == null) {
+            return;
+        }
+
+        final List<String> keyNames = scan.getDynamoDBTable().getKeyNames();
+        final Integer[] outerKeys = new Integer[keyNames.size()];
+        final List<RexNode> residuals = new ArrayList<>();
+        for (RexNode condition : RelOptUtil.conjunctions(join.getCondition())) {
+            if (!bindKey(join, condition, attributeNames, keyNames, outerKeys)) {
+                residuals.add(condition);
+            }
+        }
+
+        // a left join returns the rows the other conditions do not match, with null columns.
+        if (outerKeys[0] == null || !residuals.isEmpty() && join.getJoinType() == JoinRelType.LEFT) {
+            return;
+        }
+
+        final List<Integer> keys = outerKeys.length == 1 || outerKeys[1] == null
+                ? Arrays.asList(outerKeys[0]) : Arrays.asList(outerKeys);
+        final RelNode left = join.getLeft();
+        final RelNode lookupJoin = new DynamoDBLookupJoin(join.getCluster(), join.getTraitSet().replace(EnumerableConvention.INSTANCE),
+                convert(left, left.getTraitSet().replace(EnumerableConvention.INSTANCE)), scan.getTable(), keys, attributeNames,
+                join.getJoinType(), join.getRowType());
+        call.transformTo(residuals.isEmpty() ? lookupJoin
+                : LogicalFilter.create(lookupJoin, RexUtil.composeConjunction(join.getCluster().getRexBuilder(), residuals, false)));
+    }
+
+    /**
+     * Returns the attribute read by each column of the right side of the join, or null if a column is computed. A
+     * cast returning the value of the attribute, e.g. to a longer string, reads the attribute as is.
+     */
+    private static List<String> getAttributeNames(RelOptRuleCall call) {
+        final DynamoDBTableScan scan = call.rel(call.getRelList().size() - 1);
+        if (call.getRelList().size() == 3) {
+            return scan.getRowType().getFieldNames();
+        }
+
+        final LogicalProject project = call.rel(2);
+        final List<String> attributeNames = new ArrayList<>();
+        for (RexNode node : project.getProjects()) {
+            node = stripCasts(node);
+            if (!(node instanceof RexInputRef)) {
+                return null;
+            }
+            attributeNames.add(scan.getRowType().getFieldNames().get(((RexInputRef) node).getIndex()));
+        }
+        return attributeNames;
+    }
+
+    /**
+     * Binds a key attribute of the table to a column of the left side of the join if the condition is their
+     * equality, and returns whether it did.
+     */
+    private static boolean bindKey(LogicalJoin join, RexNode condition, List<String> attributeNames, List<String> keyNames,
+                                   Integer[] outerKeys) {
+        if (!condition.isA(SqlKind.EQUALS)) {
+            return false;
+        }
+
+        final RexNode left = stripCasts(((RexCall) condition).getOperands().get(0));
+        final RexNode right = stripCasts(((RexCall) condition).getOperands().get(1));
+        if (!(left instanceof RexInputRef) || !(right instanceof RexInputRef)) {
+            return false;
+        }
+
+        final int leftCount = join.getLeft().getRowType().getFieldCount();
+        final int outer = Math.min(((RexInputRef) left).getIndex(), ((RexInputRef) right).getIndex());
+        final int inner = Math.max(((RexInputRef) left).getIndex(), ((RexInputRef) right).getIndex()) - leftCount;
+        if (outer >= leftCount || inner < 0) {
+            return false;
+        }
+
+        final int keyIndex = keyNames.indexOf(attributeNames.get(inner));
+        if (keyIndex < 0 || outerKeys[keyIndex] != null) {
+            return false;
+        }
+
+        // the values of both sides must compare equal in Java, e.g. strings of any precision.
+        final RelDataType outerType = join.getLeft().getRowType().getFieldList().get(outer).getType();
+        final RelDataType innerType = join.getRight().getRowType().getFieldList().get(inner).getType();
+        if (!SqlTypeUtil.equalSansNullability(join.getCluster().getTypeFactory(), outerType, innerType)
+                && !(SqlTypeUtil.inCharFamily(outerType) && SqlTypeUtil.inCharFamily(innerType))) {
+            return false;
+        }
+
+        outerKeys[keyIndex] = outer;
+        return true;
+    }
+
+    /**
+     * Strips the casts returning the value of their operand, e.g. the ones Calcite adds to compare strings of
+     * different precisions. A cast truncating or padding a string, or rounding a number, is computed by Calcite.
+     */
+    private static RexNode stripCasts(RexNode node) {
+        while (node.isA(SqlKind.CAST) && DynamoDBFilter.isValuePreserving((RexCall) node)) {
+            node = ((RexCall) node).getOperands().get(0);
+        }
+        return node;
+    }
+}
@@ -7,13 +7,30 @@ import org.apache.calcite.plan.RelTraitSet;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.convert.ConverterRule;
 import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
 
+/**
+ * Rule to convert a {@link LogicalProject} that only selects columns into a {@link DynamoDBProject}. Projects
+ * computing expressions stay in the enumerable layer, see {@link DynamoDBProjectSplitRule}.
+ */
 public class DynamoDBProjectRule extends ConverterRule {
     public static final DynamoDBProjectRule INSTANCE =
             new DynamoDBProjectRule();
 
     private DynamoDBProjectRule() {
-        super(LogicalProject.class, Convention.NONE, DynamoDBRel.CONVENTION, "DynamoDBProjectRule");
+        super(LogicalProject.class, DynamoDBProjectRule::isColumnSelection,
+                Convention.NONE, DynamoDBRel.CONVENTION, "DynamoDBProjectRule");
+    }
+
+    static boolean isColumnSelection(LogicalProject project) {
+        for (RexNode node : project.getProjects()) {
+            if (!(node instanceof RexInputRef)) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     @Override
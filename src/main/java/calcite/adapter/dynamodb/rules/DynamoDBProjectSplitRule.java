@@ -0,0 +1,66 @@
+package calcite.adapter.dynamodb.rules;
+
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.logical.LogicalProject;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexShuttle;
+import org.apache.calcite.util.ImmutableBitSet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rule to split a {@link LogicalProject} computing expressions into a project of the columns it references, which
+ * can be pushed down to DynamoDB, and a project computing the expressions from them, e.g.
+ * {@code SELECT numberCol * 2 AS x} reads only {@code numberCol}.
+ */
+public class DynamoDBProjectSplitRule extends RelOptRule {
+    public static final DynamoDBProjectSplitRule INSTANCE =
+            new DynamoDBProjectSplitRule();
+
+    private DynamoDBProjectSplitRule() {
+        super(operand(LogicalProject.class, any()), "DynamoDBProjectSplitRule");
+    }
+
+    @Override
+    public boolean matches(RelOptRuleCall call) {
+        final LogicalProject project = call.rel(0);
+        final int referencedCount = RelOptUtil.InputFinder.bits(project.getProjects(), null).cardinality();
+        return !DynamoDBProjectRule.isColumnSelection(project)
+                && referencedCount > 0 && referencedCount < project.getInput().getRowType().getFieldCount();
+    }
+
+    @Override
+    public void onMatch(RelOptRuleCall call) {
+        final LogicalProject project = call.rel(0);
+        final RelNode input = project.getInput();
+        final RexBuilder rexBuilder = project.getCluster().getRexBuilder();
+        final List<Integer> referenced = RelOptUtil.InputFinder.bits(project.getProjects(), null).asList();
+
+        final List<RexNode> columns = new ArrayList<>();
+        final List<String> columnNames = new ArrayList<>();
+        for (int index : referenced) {
+            columns.add(rexBuilder.makeInputRef(input, index));
+            columnNames.add(input.getRowType().getFieldNames().get(index));
+        }
+        final RelNode columnProject = LogicalProject.create(input, columns, columnNames);
+
+        final RexShuttle shuttle = new RexShuttle() {
+            @Override
+            public RexNode visitInputRef(RexInputRef inputRef) {
+                return new RexInputRef(referenced.indexOf(inputRef.getIndex()), inputRef.getType());
+            }
+        };
+        final List<RexNode> expressions = new ArrayList<>();
+        for (RexNode node : project.getProjects()) {
+            expressions.add(node.accept(shuttle));
+        }
+
+        call.transformTo(LogicalProject.create(columnProject, expressions, project.getRowType()));
+    }
+}
@@ -0,0 +1,42 @@
+package calcite.adapter.dynamodb.rules;
+
+import calcite.adapter.dynamodb.rel.DynamoDBFilter;
+import calcite.adapter.dynamodb.rel.DynamoDBRel;
+import calcite.adapter.dynamodb.rel.DynamoDBSort;
+import calcite.adapter.dynamodb.rel.DynamoDBToEnumerableConverter;
+import org.apache.calcite.plan.RelOptRule;
+import org.apache.calcite.plan.RelOptRuleCall;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.core.Sort;
+
+/**
+ * Rule to push a sort by the sort key below a query on a single hash key, as a {@link DynamoDBSort}.
+ *
+ * <p>Matches the enumerable sort on top of the converter, because the input of the logical sort lives in another
+ * convention than the {@link DynamoDBFilter}.
+ */
+public class DynamoDBSortRule extends RelOptRule {
+    public static final DynamoDBSortRule INSTANCE =
+            new DynamoDBSortRule();
+
+    private DynamoDBSortRule() {
+        super(operand(Sort.class,
+                operand(DynamoDBToEnumerableConverter.class,
+                        operand(DynamoDBFilter.class, any()))),
+                "DynamoDBSortRule");
+    }
+
+    @Override
+    public void onMatch(RelOptRuleCall call) {
+        final Sort sort = call.rel(0);
+        final DynamoDBFilter filter = call.rel(2);
+
+        // limits are pushed down by DynamoDBLimitRule, on top of the sort.
+        if (sort.offset != null || sort.fetch != null || !filter.isSortKeyCollation(sort.getCollation())) {
+            return;
+        }
+
+        final RelTraitSet traitSet = sort.getTraitSet().replace(DynamoDBRel.CONVENTION);
+        call.transformTo(new DynamoDBSort(sort.getCluster(), traitSet, filter, sort.getCollation()));
+    }
+}
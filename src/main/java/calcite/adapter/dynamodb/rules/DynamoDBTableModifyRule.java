@@ -0,0 +1,51 @@
+package calcite.adapter.dynamodb.rules;
+
+import calcite.adapter.dynamodb.DynamoDBTable;
+import calcite.adapter.dynamodb.rel.DynamoDBTableModify;
+import org.apache.calcite.adapter.enumerable.EnumerableConvention;
+import org.apache.calcite.plan.Convention;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.convert.ConverterRule;
+import org.apache.calcite.rel.logical.LogicalTableModify;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rule to convert an INSERT, UPDATE or DELETE of a DynamoDB table into a {@link DynamoDBTableModify}. A DELETE only
+ * reads the keys of the items to delete. An UPDATE of items by their full primary key is converted by
+ * {@link DynamoDBKeyedUpdateRule} instead.
+ */
+public class DynamoDBTableModifyRule extends ConverterRule {
+    public static final DynamoDBTableModifyRule INSTANCE =
+            new DynamoDBTableModifyRule();
+
+    private DynamoDBTableModifyRule() {
+        super(LogicalTableModify.class,
+                (LogicalTableModify modify) -> (modify.isInsert() || modify.isDelete() || modify.isUpdate())
+                        && modify.getTable().unwrap(DynamoDBTable.class) != null,
+                Convention.NONE, EnumerableConvention.INSTANCE, "DynamoDBTableModifyRule");
+    }
+
+    @Override
+    public RelNode convert(RelNode rel) {
+        final LogicalTableModify modify = (LogicalTableModify) rel;
+        final RelTraitSet traitSet = modify.getTraitSet().replace(EnumerableConvention.INSTANCE);
+
+        RelNode input = modify.getInput();
+        if (modify.isDelete()) {
+            // only the keys of the items to delete are read, e.g. with a keys-only query.
+            final List<String> fieldNames = input.getRowType().getFieldNames();
+            final List<Integer> keyOrdinals = new ArrayList<>();
+            for (String keyName : modify.getTable().unwrap(DynamoDBTable.class).getKeyNames()) {
+                keyOrdinals.add(fieldNames.indexOf(keyName));
+            }
+            input = RelOptUtil.createProject(input, keyOrdinals);
+        }
+
+        return new DynamoDBTableModify(modify.getCluster(), traitSet, modify.getTable(), modify.getCatalogReader(),
+                convert(input, traitSet), modify.getOperation(), modify.getUpdateColumnList(), modify.isFlattened());
+    }
+}
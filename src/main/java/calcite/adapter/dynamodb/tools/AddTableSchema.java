@@ -1,6 +1,7 @@
 package calcite.adapter.dynamodb.tools;
 
 import calcite.adapter.dynamodb.utils.DynamoDBClientUtil;
+import calcite.adapter.dynamodb.utils.DynamoDBColumnType;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.model.*;
 
@@ -15,22 +16,37 @@ public class AddTableSchema {
         AmazonDynamoDBClient client = DynamoDBClientUtil.createAmazonDynamoDBClient(regionName, false);
 
         String tableName = "SALES";
-        Map<String, ScalarAttributeType> tableSchema = new HashMap<>();
-        tableSchema.put("id", ScalarAttributeType.S);
-        tableSchema.put("f1S", ScalarAttributeType.S);
-        tableSchema.put("f2N", ScalarAttributeType.N);
-        tableSchema.put("f3B", ScalarAttributeType.B);
-
-        addTableSchema(client, metaTableName, tableName, tableSchema);
+        Map<String, DynamoDBColumnType> tableSchema = new HashMap<>();
+        tableSchema.put("id", DynamoDBColumnType.of(ScalarAttributeType.S));
+        tableSchema.put("f1S", DynamoDBColumnType.of(ScalarAttributeType.S));
+        tableSchema.put("f2N", DynamoDBColumnType.of(ScalarAttributeType.N));
+        tableSchema.put("f3B", DynamoDBColumnType.of(ScalarAttributeType.B));
+        tableSchema.put("f4Bigint", DynamoDBColumnType.BIGINT);
+        tableSchema.put("f5Decimal", DynamoDBColumnType.decimal(12, 2));
+        tableSchema.put("f6Timestamp", DynamoDBColumnType.TIMESTAMP);
+
+        addTypedTableSchema(client, metaTableName, tableName, tableSchema);
     }
 
     public static void addTableSchema(AmazonDynamoDBClient client, String metaTableName, String tableName, Map<String, ScalarAttributeType> tableSchema) {
+        Map<String, DynamoDBColumnType> columnTypes = new HashMap<>();
+        for (Map.Entry<String, ScalarAttributeType> filed : tableSchema.entrySet()) {
+            columnTypes.put(filed.getKey(), DynamoDBColumnType.of(filed.getValue()));
+        }
+
+        addTypedTableSchema(client, metaTableName, tableName, columnTypes);
+    }
+
+    /**
+     * Stores the columns of a table into the meta table, with logical types such as BIGINT or DECIMAL(p,s).
+     */
+    public static void addTypedTableSchema(AmazonDynamoDBClient client, String metaTableName, String tableName, Map<String, DynamoDBColumnType> tableSchema) {
         PutItemRequest putItemRequest = new PutItemRequest();
         putItemRequest.setTableName(metaTableName);
 
         Map<String, AttributeValue> newItem = new HashMap<>();
         newItem.put("TABLE_NAME", new AttributeValue(tableName));
-        for (Map.Entry<String, ScalarAttributeType> filed : tableSchema.entrySet()) {
+        for (Map.Entry<String, DynamoDBColumnType> filed : tableSchema.entrySet()) {
             newItem.put(filed.getKey(), new AttributeValue(filed.getValue().toString()));
         }
 
@@ -0,0 +1,161 @@
+package calcite.adapter.dynamodb.utils;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Token bucket holding the read or write capacity units a table may consume per second. A request waits until the
+ * bucket holds its estimated capacity and reserves it, so concurrent requests do not all go out at once; the
+ * difference with the capacity it consumed is settled once it completes. The bucket holds at most one second of
+ * capacity.
+ *
+ * <p>Throttles are shared by all the statements of the JVM reading or writing the same table through the same client,
+ * so the budget holds across parallel requests and concurrent statements.
+ */
+public class DynamoDBCapacityThrottle {
+    private static final Map<AmazonDynamoDBClient, Map<String, DynamoDBCapacityThrottle>> sharedThrottles = new WeakHashMap<>();
+
+    private static final long MAX_WAIT_MILLIS = 100;
+
+    private double unitsPerSecond;
+    private double tokens;
+    private long refilledAtNanos;
+
+    private double consumedUnits = 0;
+    private long consumedItems = 0;
+    private long throttledNanos = 0;
+
+    public DynamoDBCapacityThrottle(double unitsPerSecond) {
+        this.unitsPerSecond = unitsPerSecond;
+        this.tokens = unitsPerSecond;
+        this.refilledAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Returns the throttle of a table read through the given client, e.g. "SALES", or written, e.g. "SALES/write",
+     * shared in the JVM. The rate of an existing throttle is updated to the given one.
+     */
+    public static synchronized DynamoDBCapacityThrottle getSharedThrottle(AmazonDynamoDBClient dynamoDBClient, String name,
+                                                                         double unitsPerSecond) {
+        DynamoDBCapacityThrottle throttle = sharedThrottles.computeIfAbsent(dynamoDBClient, key -> new HashMap<>())
+                .computeIfAbsent(name, key -> new DynamoDBCapacityThrottle(unitsPerSecond));
+        throttle.setUnitsPerSecond(unitsPerSecond);
+        return throttle;
+    }
+
+    /**
+     * Returns the shared throttle of a table read or written through the given client, without changing its rate, or
+     * null if there is none.
+     */
+    public static synchronized DynamoDBCapacityThrottle getSharedThrottle(AmazonDynamoDBClient dynamoDBClient, String name) {
+        Map<String, DynamoDBCapacityThrottle> throttles = sharedThrottles.get(dynamoDBClient);
+        return throttles == null ? null : throttles.get(name);
+    }
+
+    public synchronized void setUnitsPerSecond(double unitsPerSecond) {
+        refill();
+        this.unitsPerSecond = unitsPerSecond;
+        this.tokens = Math.min(tokens, unitsPerSecond);
+    }
+
+    public synchronized double getUnitsPerSecond() {
+        return unitsPerSecond;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(unitsPerSecond, tokens + unitsPerSecond * (now - refilledAtNanos) / TimeUnit.SECONDS.toNanos(1));
+        refilledAtNanos = now;
+    }
+
+    /**
+     * Waits until the bucket holds the estimated capacity of a page of {@link #getPageLimit()} items, or the statement
+     * is canceled, then reserves it.
+     *
+     * @return the units reserved, to settle with {@link #consume}
+     */
+    public double acquire(AtomicBoolean cancelFlag) {
+        return acquire(cancelFlag, estimateUnits(getPageLimit()));
+    }
+
+    /**
+     * Waits until the bucket holds the given units, or is full, or the statement is canceled, then reserves them.
+     *
+     * @return the units reserved, none if the statement was canceled, to settle with {@link #consume}
+     */
+    public double acquire(AtomicBoolean cancelFlag, double units) {
+        long startNanos = System.nanoTime();
+        double reserved = 0;
+        while (!cancelFlag.get()) {
+            long waitMillis;
+            synchronized (this) {
+                refill();
+                // a reservation larger than the bucket waits for a full bucket.
+                double neededUnits = Math.min(units, unitsPerSecond);
+                if (tokens >= neededUnits) {
+                    tokens -= units;
+                    reserved = units;
+                    break;
+                }
+                waitMillis = (long) Math.ceil((neededUnits - tokens) * 1000 / unitsPerSecond);
+            }
+
+            try {
+                Thread.sleep(Math.max(1, Math.min(MAX_WAIT_MILLIS, waitMillis)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for capacity", e);
+            }
+        }
+
+        long waitedNanos = System.nanoTime() - startNanos;
+        synchronized (this) {
+            throttledNanos += waitedNanos;
+        }
+        return reserved;
+    }
+
+    /**
+     * Takes the capacity consumed by a request reading or writing the given number of items from the bucket, less
+     * the units it reserved.
+     */
+    public synchronized void consume(double units, int items, double reserved) {
+        refill();
+        tokens -= units - reserved;
+        consumedUnits += units;
+        consumedItems += items;
+    }
+
+    /**
+     * Returns the capacity the given number of items is estimated to consume, from the capacity consumed per item so
+     * far: one unit per item until something has been read or written.
+     */
+    public synchronized double estimateUnits(int items) {
+        return items * getUnitsPerItem();
+    }
+
+    private double getUnitsPerItem() {
+        return consumedItems == 0 ? 1 : Math.max(consumedUnits / consumedItems, 0.01);
+    }
+
+    /**
+     * Returns the {@code Limit} of a request so that it consumes at most one second of capacity, estimated from the
+     * capacity consumed per item so far.
+     */
+    public synchronized int getPageLimit() {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, unitsPerSecond / getUnitsPerItem()));
+    }
+
+    public synchronized double getConsumedUnits() {
+        return consumedUnits;
+    }
+
+    public synchronized long getThrottledMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(throttledNanos);
+    }
+}
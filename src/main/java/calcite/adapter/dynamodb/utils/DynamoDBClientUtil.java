@@ -1,15 +1,138 @@
 package calcite.adapter.dynamodb.utils;
 
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
+import com.amazonaws.auth.profile.ProfileCredentialsProvider;
 import com.amazonaws.regions.RegionUtils;
+import com.amazonaws.retry.PredefinedRetryPolicies;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBAsyncClient;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.amazonaws.services.dynamodbv2.model.ListTablesRequest;
+import org.apache.calcite.util.trace.CalciteTrace;
+import org.slf4j.Logger;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class DynamoDBClientUtil {
+    private static final Logger LOGGER = CalciteTrace.getPlannerTracer();
+
     private static String localEndPoint = "http://localhost:8031";
 
+    /**
+     * The operands of a schema configuring its client, see {@link #getSharedClient(Map)}.
+     */
+    static final List<String> CLIENT_OPTIONS = Arrays.asList("region", "local", "endpoint", "profile", "asyncThreads",
+            "maxConnections", "connectionTimeoutMillis", "socketTimeoutMillis", "requestTimeoutMillis", "tcpKeepAlive",
+            "connectionTtlMillis", "gzip", "maxErrorRetry", "warmUpConnections");
+
+    static final int DEFAULT_WARM_UP_CONNECTIONS = 4;
+
+    private static final ConcurrentMap<List<Object>, AmazonDynamoDBClient> sharedClients = new ConcurrentHashMap<>();
+
     public static AmazonDynamoDBClient createAmazonDynamoDBClient(String regionName, boolean local) {
-        AmazonDynamoDBClient amazonDynamoDBClient = new AmazonDynamoDBClient();
+        return configure(new AmazonDynamoDBClient(), regionName, local, null);
+    }
+
+    /**
+     * Returns the client of a schema, shared by the schemas of the JVM with the same client operands, so they share
+     * its connection pool. The first schema creating it also opens {@code "warmUpConnections"} connections in the
+     * background, so the first queries do not pay for the TCP and TLS handshakes. The operands are:
+     *
+     * <ul>
+     * <li>{@code "region"}, or {@code "local": true} for DynamoDB Local, or an {@code "endpoint"} URL;</li>
+     * <li>{@code "profile"}, the credentials profile to use instead of the default credentials chain;</li>
+     * <li>{@code "asyncThreads"}, the threads of an async client, none for a synchronous one;</li>
+     * <li>the {@link ClientConfiguration} settings {@code "maxConnections"}, {@code "connectionTimeoutMillis"},
+     * {@code "socketTimeoutMillis"}, {@code "requestTimeoutMillis"}, {@code "tcpKeepAlive"},
+     * {@code "connectionTtlMillis"}, {@code "gzip"} and {@code "maxErrorRetry"}, the retries of the DynamoDB retry
+     * policy.</li>
+     * </ul>
+     */
+    public static AmazonDynamoDBClient getSharedClient(Map<String, Object> operand) {
+        List<Object> key = Arrays.asList(CLIENT_OPTIONS.stream().map(operand::get).toArray());
+        AmazonDynamoDBClient client = sharedClients.get(key);
+        if (client != null) {
+            return client;
+        }
+
+        synchronized (sharedClients) {
+            client = sharedClients.get(key);
+            if (client == null) {
+                client = createClient(operand);
+                sharedClients.put(key, client);
+
+                Number warmUpConnections = (Number) operand.get("warmUpConnections");
+                warmUp(client, warmUpConnections == null ? DEFAULT_WARM_UP_CONNECTIONS : warmUpConnections.intValue());
+            }
+            return client;
+        }
+    }
+
+    private static AmazonDynamoDBClient createClient(Map<String, Object> operand) {
+        ClientConfiguration clientConfiguration = createClientConfiguration(operand);
+        AWSCredentialsProvider credentialsProvider = operand.get("profile") == null
+                ? new DefaultAWSCredentialsProviderChain() : new ProfileCredentialsProvider((String) operand.get("profile"));
+
+        // with "asyncThreads", the pages of all the statements are fetched on a pool of that many threads.
+        Number asyncThreads = (Number) operand.get("asyncThreads");
+        AmazonDynamoDBClient client;
+        if (asyncThreads != null && asyncThreads.intValue() > 0) {
+            clientConfiguration.setMaxConnections(Math.max(clientConfiguration.getMaxConnections(), asyncThreads.intValue()));
+            client = new AmazonDynamoDBAsyncClient(credentialsProvider, clientConfiguration,
+                    DynamoDBExecutorUtil.getAsyncExecutorService(asyncThreads.intValue()));
+        } else {
+            client = new AmazonDynamoDBClient(credentialsProvider, clientConfiguration);
+        }
 
-        if (local) {
+        DynamoDBExecutorUtil.addConnections(clientConfiguration.getMaxConnections());
+        return configure(client, (String) operand.get("region"), Boolean.TRUE.equals(operand.get("local")), (String) operand.get("endpoint"));
+    }
+
+    static ClientConfiguration createClientConfiguration(Map<String, Object> operand) {
+        ClientConfiguration clientConfiguration = new ClientConfiguration();
+
+        Number maxConnections = (Number) operand.get("maxConnections");
+        if (maxConnections != null) {
+            clientConfiguration.setMaxConnections(maxConnections.intValue());
+        }
+        Number connectionTimeoutMillis = (Number) operand.get("connectionTimeoutMillis");
+        if (connectionTimeoutMillis != null) {
+            clientConfiguration.setConnectionTimeout(connectionTimeoutMillis.intValue());
+        }
+        Number socketTimeoutMillis = (Number) operand.get("socketTimeoutMillis");
+        if (socketTimeoutMillis != null) {
+            clientConfiguration.setSocketTimeout(socketTimeoutMillis.intValue());
+        }
+        Number requestTimeoutMillis = (Number) operand.get("requestTimeoutMillis");
+        if (requestTimeoutMillis != null) {
+            clientConfiguration.setRequestTimeout(requestTimeoutMillis.intValue());
+        }
+        if (operand.get("tcpKeepAlive") != null) {
+            clientConfiguration.setUseTcpKeepAlive(Boolean.TRUE.equals(operand.get("tcpKeepAlive")));
+        }
+        Number connectionTtlMillis = (Number) operand.get("connectionTtlMillis");
+        if (connectionTtlMillis != null) {
+            clientConfiguration.setConnectionTTL(connectionTtlMillis.longValue());
+        }
+        if (operand.get("gzip") != null) {
+            clientConfiguration.setUseGzip(Boolean.TRUE.equals(operand.get("gzip")));
+        }
+        Number maxErrorRetry = (Number) operand.get("maxErrorRetry");
+        clientConfiguration.setRetryPolicy(maxErrorRetry == null ? PredefinedRetryPolicies.getDynamoDBDefaultRetryPolicy()
+                : PredefinedRetryPolicies.getDynamoDBDefaultRetryPolicyWithCustomMaxRetries(maxErrorRetry.intValue()));
+
+        return clientConfiguration;
+    }
+
+    private static <T extends AmazonDynamoDBClient> T configure(T amazonDynamoDBClient, String regionName, boolean local, String endpoint) {
+        if (endpoint != null) {
+            amazonDynamoDBClient.setEndpoint(endpoint);
+        } else if (local) {
             amazonDynamoDBClient.setEndpoint(localEndPoint);
         } else {
             amazonDynamoDBClient.setRegion(RegionUtils.getRegion(regionName));
@@ -17,4 +140,21 @@ public class DynamoDBClientUtil {
 
         return amazonDynamoDBClient;
     }
+
+    /**
+     * Sends the given number of concurrent ListTables requests, which consume no capacity, so the connection pool
+     * holds as many open connections. A failure, or a busy shared pool, only means the first queries open their
+     * connections themselves.
+     */
+    private static void warmUp(AmazonDynamoDBClient client, int connections) {
+        for (int i = 0; i < connections; i++) {
+            DynamoDBExecutorUtil.trySubmit(() -> {
+                try {
+                    client.listTables(new ListTablesRequest().withLimit(1));
+                } catch (RuntimeException e) {
+                    LOGGER.debug("Failed to warm up a DynamoDB connection", e);
+                }
+            });
+        }
+    }
 }
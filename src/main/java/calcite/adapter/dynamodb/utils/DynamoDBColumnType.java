@@ -0,0 +1,105 @@
+package calcite.adapter.dynamodb.utils;
+
+import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.sql.type.SqlTypeName;
+
+import java.nio.ByteBuffer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Declared type of a column, as stored in the meta table: one of the DynamoDB scalar types S, N (read as DOUBLE) and B,
+ * or a logical type of a number attribute, INTEGER, BIGINT, DECIMAL(p,s) and TIMESTAMP (milliseconds since the epoch),
+ * or BOOLEAN.
+ */
+public class DynamoDBColumnType {
+    public enum Kind {
+        S, N, B, INTEGER, BIGINT, DECIMAL, BOOLEAN, TIMESTAMP
+    }
+
+    public static final DynamoDBColumnType INTEGER = new DynamoDBColumnType(Kind.INTEGER, -1, -1);
+    public static final DynamoDBColumnType BIGINT = new DynamoDBColumnType(Kind.BIGINT, -1, -1);
+    public static final DynamoDBColumnType BOOLEAN = new DynamoDBColumnType(Kind.BOOLEAN, -1, -1);
+    public static final DynamoDBColumnType TIMESTAMP = new DynamoDBColumnType(Kind.TIMESTAMP, -1, -1);
+
+    private static final Pattern DECIMAL_PATTERN = Pattern.compile("DECIMAL\\((\\d+)\\s*,\\s*(\\d+)\\)");
+
+    private final Kind kind;
+    private final int precision;
+    private final int scale;
+
+    private DynamoDBColumnType(Kind kind, int precision, int scale) {
+        this.kind = kind;
+        this.precision = precision;
+        this.scale = scale;
+    }
+
+    public static DynamoDBColumnType of(ScalarAttributeType dynamoDBType) {
+        return new DynamoDBColumnType(Kind.valueOf(dynamoDBType.toString()), -1, -1);
+    }
+
+    public static DynamoDBColumnType decimal(int precision, int scale) {
+        return new DynamoDBColumnType(Kind.DECIMAL, precision, scale);
+    }
+
+    /**
+     * Parses a type declared in the meta table, e.g. "S" or "DECIMAL(10,2)".
+     */
+    public static DynamoDBColumnType parse(String declaredType) {
+        String type = declaredType.trim().toUpperCase();
+
+        Matcher matcher = DECIMAL_PATTERN.matcher(type);
+        if (matcher.matches()) {
+            return decimal(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+        }
+
+        try {
+            Kind kind = Kind.valueOf(type);
+            if (kind != Kind.DECIMAL) {
+                return new DynamoDBColumnType(kind, -1, -1);
+            }
+        } catch (IllegalArgumentException e) {
+            // fall through
+        }
+
+        throw new IllegalArgumentException("Not supported column type: " + declaredType);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    public RelDataType toRelDataType(RelDataTypeFactory typeFactory) {
+        switch (kind) {
+            case S:
+                return typeFactory.createJavaType(String.class);
+            case N:
+                return typeFactory.createJavaType(Double.class);
+            case B:
+                return typeFactory.createJavaType(ByteBuffer.class);
+            case DECIMAL:
+                return nullable(typeFactory, typeFactory.createSqlType(SqlTypeName.DECIMAL, precision, scale));
+            default:
+                return nullable(typeFactory, typeFactory.createSqlType(SqlTypeName.valueOf(kind.toString())));
+        }
+    }
+
+    // attributes may be missing from an item.
+    private static RelDataType nullable(RelDataTypeFactory typeFactory, RelDataType type) {
+        return typeFactory.createTypeWithNullability(type, true);
+    }
+
+    /**
+     * Returns the type as stored in the meta table.
+     */
+    @Override
+    public String toString() {
+        return kind == Kind.DECIMAL ? "DECIMAL(" + precision + "," + scale + ")" : kind.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package calcite.adapter.dynamodb.utils;
+
+import com.amazonaws.ClientConfiguration;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared thread pools for DynamoDB requests issued in the background, e.g. parallel scan segments.
+ *
+ * <p>The pool of the background requests has at most as many threads as the shared clients have connections, and at
+ * least {@link #MIN_THREADS}, as a thread waiting for a connection gets nothing done. Once all its threads are busy a
+ * task is not queued: the caller runs it itself, or does without it.
+ */
+public class DynamoDBExecutorUtil {
+    static final int MIN_THREADS = ClientConfiguration.DEFAULT_MAX_CONNECTIONS;
+
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private static final ThreadPoolExecutor executorService = new ThreadPoolExecutor(0, MIN_THREADS, 60, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), newThreadFactory("dynamodb-adapter-"));
+
+    private static final ScheduledExecutorService scheduledExecutorService =
+            Executors.newSingleThreadScheduledExecutor(newThreadFactory("dynamodb-adapter-scheduler-"));
+
+    private static final Map<Integer, ExecutorService> asyncExecutorServices = new ConcurrentHashMap<>();
+
+    private static int connectionCount = 0;
+
+    private static ThreadFactory newThreadFactory(String namePrefix) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static ExecutorService getExecutorService() {
+        return executorService;
+    }
+
+    /**
+     * Grows the pool of the background requests by the connections of a new client.
+     */
+    public static synchronized void addConnections(int connections) {
+        connectionCount += connections;
+        executorService.setMaximumPoolSize(Math.max(MIN_THREADS, connectionCount));
+    }
+
+    /**
+     * Starts a task on the pool of the background requests, or returns null if all its threads are busy.
+     */
+    public static Future<?> trySubmit(Runnable task) {
+        try {
+            return executorService.submit(task);
+        } catch (RejectedExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs a task on the pool of the background requests, or on the calling thread if all its threads are busy.
+     */
+    public static void executeOrRun(Runnable task) {
+        if (trySubmit(task) == null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Returns the pool delaying the retries of the async requests, which must not sleep on a thread.
+     */
+    public static ScheduledExecutorService getScheduledExecutorService() {
+        return scheduledExecutorService;
+    }
+
+    /**
+     * Returns the pool of the given number of threads the async clients send their requests on, shared by the
+     * clients asking for the same number of threads.
+     */
+    public static ExecutorService getAsyncExecutorService(int threads) {
+        return asyncExecutorServices.computeIfAbsent(threads,
+                key -> Executors.newFixedThreadPool(threads, newThreadFactory("dynamodb-adapter-async-")));
+    }
+}
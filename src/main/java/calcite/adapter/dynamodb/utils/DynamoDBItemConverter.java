@@ -0,0 +1,60 @@
+package calcite.adapter.dynamodb.utils;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts the rows written to a table into DynamoDB items, the reverse of {@link DynamoDBRowConverter}: every
+ * column has a fixed attribute name and an encoder picked from the declared attribute type. Null values are left
+ * out of the item, as DynamoDB has no attribute for them.
+ */
+public class DynamoDBItemConverter {
+    /**
+     * Encodes the non null Java value of a column into an attribute value.
+     */
+    public interface AttributeEncoder {
+        AttributeValue encode(Object value);
+    }
+
+    private final String[] attributeNames;
+    private final AttributeEncoder[] encoders;
+
+    public DynamoDBItemConverter(List<String> fieldNames, Map<String, AttributeValue> dynamoDBTableSchema) {
+        attributeNames = fieldNames.toArray(new String[fieldNames.size()]);
+        encoders = new AttributeEncoder[attributeNames.length];
+
+        for (int i = 0; i < attributeNames.length; i++) {
+            AttributeValue fieldSchema = dynamoDBTableSchema.get(attributeNames[i]);
+            if (fieldSchema == null) {
+                throw new IllegalArgumentException("Not declared attribute: " + attributeNames[i]);
+            }
+
+            encoders[i] = DynamoDBTypeConverter.toAttributeEncoder(DynamoDBColumnType.parse(fieldSchema.getS()));
+        }
+    }
+
+    /**
+     * Converts a row, an array of the column values, or the value itself for a single column.
+     */
+    public Map<String, AttributeValue> convert(Object row) {
+        Object[] values = row instanceof Object[] ? (Object[]) row : new Object[]{row};
+        if (values.length != attributeNames.length) {
+            throw new IllegalArgumentException("Expected " + attributeNames.length + " values, got: " + values.length);
+        }
+
+        Map<String, AttributeValue> item = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                try {
+                    item.put(attributeNames[i], encoders[i].encode(values[i]));
+                } catch (ClassCastException e) {
+                    throw new IllegalArgumentException("Not supported value " + values[i] + " for attribute: " + attributeNames[i], e);
+                }
+            }
+        }
+        return item;
+    }
+}
@@ -0,0 +1,253 @@
+package calcite.adapter.dynamodb.utils;
+
+import org.apache.calcite.util.trace.CalciteTrace;
+import org.slf4j.Logger;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latencies of the DynamoDB requests of the JVM, per table and operation, e.g. the Query requests of
+ * table "SALES". Each of them is registered as an MBean named
+ * {@code calcite.adapter.dynamodb:type=Requests,table="SALES",operation=Query}.
+ */
+public class DynamoDBMetrics {
+    private static final Logger LOGGER = CalciteTrace.getPlannerTracer();
+
+    public static final String DOMAIN = "calcite.adapter.dynamodb";
+
+    private static final ConcurrentMap<List<String>, RequestMetrics> requestMetrics = new ConcurrentHashMap<>();
+
+    /**
+     * Attributes of the MBean of the requests of a table and operation.
+     */
+    public interface RequestMetricsMBean {
+        long getStatementCount();
+
+        long getRequestCount();
+
+        double getRequestsPerStatement();
+
+        long getErrorCount();
+
+        long getThrottleCount();
+
+        long getRetryCount();
+
+        long getItemsScanned();
+
+        long getItemsReturned();
+
+        /**
+         * Returns how many items were read for every item returned; a high ratio shows a filter that an index could
+         * serve.
+         */
+        double getItemsScannedPerReturned();
+
+        double getConsumedCapacityUnits();
+
+        long getThrottledWaitMillis();
+
+        double getLatencyMeanMillis();
+
+        double getLatencyP50Millis();
+
+        double getLatencyP90Millis();
+
+        double getLatencyP99Millis();
+
+        double getLatencyMaxMillis();
+
+        void reset();
+    }
+
+    /**
+     * Metrics of the requests of a table and operation.
+     */
+    public static class RequestMetrics implements RequestMetricsMBean {
+        private final LongAdder statementCount = new LongAdder();
+        private final LongAdder errorCount = new LongAdder();
+        private final LongAdder throttleCount = new LongAdder();
+        private final LongAdder retryCount = new LongAdder();
+        private final LongAdder itemsScanned = new LongAdder();
+        private final LongAdder itemsReturned = new LongAdder();
+        private final DoubleAdder consumedCapacityUnits = new DoubleAdder();
+        private final LongAdder throttledWaitNanos = new LongAdder();
+        private final DynamoDBLatencyHistogram latencies = new DynamoDBLatencyHistogram();
+
+        /**
+         * Records a statement reading the table, whatever number of requests it makes.
+         */
+        public void recordStatement() {
+            statementCount.increment();
+        }
+
+        /**
+         * Records a successful request.
+         *
+         * @param consumedCapacityUnits the read capacity units it consumed, null if not returned
+         */
+        public void recordRequest(long latencyNanos, int scanned, int returned, Double consumedCapacityUnits) {
+            latencies.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            itemsScanned.add(scanned);
+            itemsReturned.add(returned);
+            if (consumedCapacityUnits != null) {
+                this.consumedCapacityUnits.add(consumedCapacityUnits);
+            }
+        }
+
+        /**
+         * Records a failed request; one rejected for exceeding the provisioned throughput is a throttle too.
+         */
+        public void recordError(long latencyNanos, boolean throttled) {
+            latencies.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+            errorCount.increment();
+            if (throttled) {
+                throttleCount.increment();
+            }
+        }
+
+        /**
+         * Records a request sent again for what a previous one left unprocessed.
+         */
+        public void recordRetry() {
+            retryCount.increment();
+        }
+
+        /**
+         * Records the time waited for read capacity before a request.
+         */
+        public void recordThrottledWait(long waitNanos) {
+            throttledWaitNanos.add(waitNanos);
+        }
+
+        @Override
+        public long getStatementCount() {
+            return statementCount.sum();
+        }
+
+        @Override
+        public long getRequestCount() {
+            return latencies.getCount() - errorCount.sum();
+        }
+
+        @Override
+        public double getRequestsPerStatement() {
+            long statements = statementCount.sum();
+            return statements == 0 ? 0 : (double) getRequestCount() / statements;
+        }
+
+        @Override
+        public long getErrorCount() {
+            return errorCount.sum();
+        }
+
+        @Override
+        public long getThrottleCount() {
+            return throttleCount.sum();
+        }
+
+        @Override
+        public long getRetryCount() {
+            return retryCount.sum();
+        }
+
+        @Override
+        public long getItemsScanned() {
+            return itemsScanned.sum();
+        }
+
+        @Override
+        public long getItemsReturned() {
+            return itemsReturned.sum();
+        }
+
+        @Override
+        public double getItemsScannedPerReturned() {
+            long returned = itemsReturned.sum();
+            return returned == 0 ? itemsScanned.sum() : (double) itemsScanned.sum() / returned;
+        }
+
+        @Override
+        public double getConsumedCapacityUnits() {
+            return consumedCapacityUnits.sum();
+        }
+
+        @Override
+        public long getThrottledWaitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(throttledWaitNanos.sum());
+        }
+
+        @Override
+        public double getLatencyMeanMillis() {
+            return latencies.getMeanMicros() / 1000;
+        }
+
+        @Override
+        public double getLatencyP50Millis() {
+            return latencies.getPercentileMicros(0.5) / 1000.0;
+        }
+
+        @Override
+        public double getLatencyP90Millis() {
+            return latencies.getPercentileMicros(0.9) / 1000.0;
+        }
+
+        @Override
+        public double getLatencyP99Millis() {
+            return latencies.getPercentileMicros(0.99) / 1000.0;
+        }
+
+        @Override
+        public double getLatencyMaxMillis() {
+            return latencies.getMaxMicros() / 1000.0;
+        }
+
+        @Override
+        public void reset() {
+            statementCount.reset();
+            errorCount.reset();
+            throttleCount.reset();
+            retryCount.reset();
+            itemsScanned.reset();
+            itemsReturned.reset();
+            consumedCapacityUnits.reset();
+            throttledWaitNanos.reset();
+            latencies.reset();
+        }
+    }
+
+    /**
+     * Returns the metrics of the requests of a table and operation, e.g. "Scan", registering their MBean the first
+     * time.
+     */
+    public static RequestMetrics getRequestMetrics(String tableName, String operation) {
+        return requestMetrics.computeIfAbsent(Arrays.asList(tableName, operation), key -> {
+            RequestMetrics metrics = new RequestMetrics();
+            register(tableName, operation, metrics);
+            return metrics;
+        });
+    }
+
+    private static void register(String tableName, String operation, RequestMetrics metrics) {
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=Requests,table=" + ObjectName.quote(tableName)
+                    + ",operation=" + ObjectName.quote(operation));
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(
+                        new StandardMBean(metrics, RequestMetricsMBean.class), objectName);
+            }
+        } catch (JMException e) {
+            LOGGER.warn("Failed to register the metrics of " + operation + " requests of table " + tableName, e);
+        }
+    }
+}
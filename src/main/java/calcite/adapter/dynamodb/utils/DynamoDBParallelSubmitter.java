@@ -0,0 +1,77 @@
+package calcite.adapter.dynamodb.utils;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the tasks of a statement on the shared pool, up to {@code parallelism} at a time; submitting to a full
+ * pipeline waits for a task to complete. Once a task failed, the next tasks are skipped and the first error is
+ * thrown by {@link #checkFailure()}.
+ */
+public class DynamoDBParallelSubmitter {
+    private final int parallelism;
+    private final Semaphore inFlightTasks;
+    private final String action;
+
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    /**
+     * @param action what the tasks do, e.g. "writing to table: SALES", for the error of an interrupted submitter
+     */
+    public DynamoDBParallelSubmitter(int parallelism, String action) {
+        this.parallelism = Math.max(1, parallelism);
+        this.inFlightTasks = new Semaphore(this.parallelism);
+        this.action = action;
+    }
+
+    /**
+     * Runs a task in the background, or on the calling thread if the shared pool is busy, once one of the in-flight
+     * tasks completed if there are already {@code parallelism} of them.
+     */
+    public void submit(Runnable task) {
+        acquire(1);
+        try {
+            DynamoDBExecutorUtil.executeOrRun(() -> {
+                try {
+                    if (failure.get() == null) {
+                        task.run();
+                    }
+                } catch (RuntimeException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    inFlightTasks.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlightTasks.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for all the submitted tasks to complete.
+     */
+    public void awaitAll() {
+        acquire(parallelism);
+        inFlightTasks.release(parallelism);
+    }
+
+    /**
+     * @throws RuntimeException the first error of a task, if one failed
+     */
+    public void checkFailure() {
+        RuntimeException e = failure.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    private void acquire(int permits) {
+        try {
+            inFlightTasks.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while " + action, e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package calcite.adapter.dynamodb.utils;
+
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.Linq4j;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the decoded rows of DynamoDB requests, keyed on the fully resolved request. Every entry expires after the
+ * time to live of its table, and the least recently used entries are evicted once the estimated size of all the
+ * entries exceeds the byte budget.
+ *
+ * <p>A result is only cached once it has been read to the end without the statement being cancelled, and only if it
+ * fits in the budget. Caches are shared by all the schemas of the JVM reading through the same client, so with the
+ * same credentials, and with the same budget.
+ */
+public class DynamoDBResultCache {
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final Map<AmazonDynamoDBClient, Map<Long, DynamoDBResultCache>> sharedCaches = new WeakHashMap<>();
+
+    private static class Entry {
+        final List<Object> rows;
+        final long size;
+        final long expiresAtNanos;
+
+        Entry(List<Object> rows, long size, long expiresAtNanos) {
+            this.rows = rows;
+            this.size = size;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final long maxBytes;
+    private final Cache<List<Object>, Entry> cache;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    public DynamoDBResultCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        // a single segment, so the budget and the LRU order hold for the whole cache.
+        this.cache = CacheBuilder.newBuilder()
+                .concurrencyLevel(1)
+                .maximumWeight(maxBytes)
+                .<List<Object>, Entry>weigher((key, entry) -> (int) Math.min(Integer.MAX_VALUE, entry.size))
+                .removalListener(notification -> {
+                    if (notification.getCause() == RemovalCause.SIZE) {
+                        evictionCount.incrementAndGet();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Returns the cache shared by the schemas reading through the given client with the given budget.
+     */
+    public static synchronized DynamoDBResultCache getSharedCache(AmazonDynamoDBClient dynamoDBClient, long maxBytes) {
+        return sharedCaches.computeIfAbsent(dynamoDBClient, key -> new HashMap<>())
+                .computeIfAbsent(maxBytes, key -> new DynamoDBResultCache(maxBytes));
+    }
+
+    /**
+     * Returns the rows of a request, read from the cache if they are there and have not expired, otherwise read
+     * from an enumerator of the request and cached once it has been read to the end.
+     *
+     * @param cancelFlag the cancel flag of the statement, as an enumerator of a cancelled statement stops early
+     */
+    public Enumerator<Object> enumerator(List<Object> key, long ttlMillis, AtomicBoolean cancelFlag,
+                                         Supplier<Enumerator<Object>> request) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.expiresAtNanos - System.nanoTime() > 0) {
+            hitCount.incrementAndGet();
+            return Linq4j.enumerator(entry.rows);
+        } else if (entry != null) {
+            cache.invalidate(key);
+        }
+
+        missCount.incrementAndGet();
+        return new CachingEnumerator(key, TimeUnit.MILLISECONDS.toNanos(ttlMillis), cancelFlag, request.get());
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    public long getEntryCount() {
+        return cache.size();
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Drops the results of the requests reading the given table, e.g. once it was written to.
+     */
+    public void invalidateTable(String tableName) {
+        cache.asMap().keySet().removeIf(key -> tableName.equals(key.get(0)));
+    }
+
+    /**
+     * Returns an estimate of the heap size of a row.
+     */
+    static long estimateSize(Object row) {
+        if (row instanceof Object[]) {
+            long size = 16 + 8L * ((Object[]) row).length;
+            for (Object value : (Object[]) row) {
+                size += estimateSize(value);
+            }
+            return size;
+        } else if (row instanceof String) {
+            return 40 + 2L * ((String) row).length();
+        } else if (row instanceof BigDecimal) {
+            return 64;
+        } else if (row instanceof ByteBuffer) {
+            return 48 + ((ByteBuffer) row).remaining();
+        } else if (row == null) {
+            return 0;
+        }
+
+        return 16;
+    }
+
+    /**
+     * Passes the rows of an enumerator through, and caches them once it has no more rows, unless the statement was
+     * cancelled meanwhile.
+     */
+    private class CachingEnumerator implements Enumerator<Object> {
+        private final List<Object> key;
+        private final long ttlNanos;
+        private final AtomicBoolean cancelFlag;
+        private final Enumerator<Object> enumerator;
+
+        private List<Object> rows = new ArrayList<>();
+        private long size = 0;
+        private Object current;
+
+        CachingEnumerator(List<Object> key, long ttlNanos, AtomicBoolean cancelFlag, Enumerator<Object> enumerator) {
+            this.key = key;
+            this.ttlNanos = ttlNanos;
+            this.cancelFlag = cancelFlag;
+            this.enumerator = enumerator;
+        }
+
+        @Override
+        public Object current() {
+            return current;
+        }
+
+        @Override
+        public boolean moveNext() {
+            if (!enumerator.moveNext()) {
+                // a cancelled statement stops before the end, or counts only part of the items.
+                if (rows != null && !cancelFlag.get()) {
+                    cache.put(key, new Entry(Collections.unmodifiableList(rows), size, System.nanoTime() + ttlNanos));
+                    rows = null;
+                }
+                return false;
+            }
+
+            current = enumerator.current();
+            if (rows != null) {
+                rows.add(current);
+                size += estimateSize(current) + 8;
+                if (size > maxBytes) {
+                    // too large to be cached, stop collecting.
+                    rows = null;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void reset() {
+            enumerator.reset();
+            rows = new ArrayList<>();
+            size = 0;
+        }
+
+        @Override
+        public void close() {
+            enumerator.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package calcite.adapter.dynamodb.utils;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts DynamoDB items into the rows of a query. It is built once per query from the columns of the row type:
+ * every column has a fixed attribute name and a decoder picked from the declared attribute type, so converting an
+ * item neither looks up nor parses the schema. Attributes missing from an item are null.
+ *
+ * <p>Rows are not reused, as the enumerable operators above may keep them, e.g. to sort them.
+ */
+public class DynamoDBRowConverter {
+    /**
+     * Decodes a present attribute value into the Java value of a column.
+     */
+    public interface AttributeDecoder {
+        Object decode(AttributeValue attributeValue);
+    }
+
+    private final String[] attributeNames;
+    private final AttributeDecoder[] decoders;
+
+    public DynamoDBRowConverter(List<String> fieldNames, Map<String, AttributeValue> dynamoDBTableSchema) {
+        attributeNames = fieldNames.toArray(new String[fieldNames.size()]);
+        decoders = new AttributeDecoder[attributeNames.length];
+
+        for (int i = 0; i < attributeNames.length; i++) {
+            AttributeValue fieldSchema = dynamoDBTableSchema.get(attributeNames[i]);
+            if (fieldSchema == null) {
+                throw new IllegalArgumentException("Not declared attribute: " + attributeNames[i]);
+            }
+
+            decoders[i] = DynamoDBTypeConverter.toAttributeDecoder(DynamoDBColumnType.parse(fieldSchema.getS()));
+        }
+    }
+
+    private Object convertField(Map<String, AttributeValue> item, int ordinal) {
+        AttributeValue attributeValue = item.get(attributeNames[ordinal]);
+        return attributeValue == null ? null : decoders[ordinal].decode(attributeValue);
+    }
+
+    /**
+     * Returns the row of an item: the value itself for a single column, an array of values otherwise.
+     */
+    public Object convert(Map<String, AttributeValue> item) {
+        if (attributeNames.length == 1) {
+            return convertField(item, 0);
+        }
+
+        final Object[] row = new Object[attributeNames.length];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = convertField(item, i);
+        }
+        return row;
+    }
+}
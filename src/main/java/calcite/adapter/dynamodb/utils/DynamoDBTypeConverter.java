@@ -2,8 +2,12 @@ package calcite.adapter.dynamodb.utils;
 
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
+import org.apache.calcite.avatica.util.ByteString;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.nio.ByteBuffer;
+import java.util.Date;
 
 public class DynamoDBTypeConverter {
     public static Class toJavaClass(ScalarAttributeType dynamoDBType) {
@@ -19,6 +23,68 @@ public class DynamoDBTypeConverter {
         }
     }
 
+    /**
+     * Returns the decoder of a column type, which parses the attribute straight into the Java value Calcite uses for
+     * the type: e.g. a Long for BIGINT, and the milliseconds since the epoch for TIMESTAMP.
+     */
+    public static DynamoDBRowConverter.AttributeDecoder toAttributeDecoder(DynamoDBColumnType columnType) {
+        switch (columnType.getKind()) {
+            case N:
+                return attributeValue -> Double.valueOf(attributeValue.getN());
+            case S:
+                return AttributeValue::getS;
+            case B:
+                return AttributeValue::getB;
+            case INTEGER:
+                return attributeValue -> Integer.parseInt(attributeValue.getN());
+            case BIGINT:
+            case TIMESTAMP:
+                return attributeValue -> Long.parseLong(attributeValue.getN());
+            case DECIMAL:
+                final int scale = columnType.getScale();
+                return attributeValue -> new BigDecimal(attributeValue.getN()).setScale(scale, RoundingMode.HALF_UP);
+            case BOOLEAN:
+                // booleans may also be stored as the numbers 0 and 1.
+                return attributeValue -> attributeValue.getBOOL() != null
+                        ? attributeValue.getBOOL() : new BigDecimal(attributeValue.getN()).signum() != 0;
+            default:
+                throw new IllegalArgumentException("Not supported column type: " + columnType);
+        }
+    }
+
+    /**
+     * Returns the encoder of a column type, the reverse of {@link #toAttributeDecoder}: it writes the Java value
+     * Calcite uses for the type into the attribute type the column is stored as.
+     */
+    public static DynamoDBItemConverter.AttributeEncoder toAttributeEncoder(DynamoDBColumnType columnType) {
+        switch (columnType.getKind()) {
+            case N:
+            case INTEGER:
+            case BIGINT:
+                return value -> new AttributeValue().withN(toNumberString((Number) value));
+            case S:
+                return value -> new AttributeValue(value.toString());
+            case B:
+                return value -> new AttributeValue().withB(value instanceof ByteString
+                        ? ByteBuffer.wrap(((ByteString) value).getBytes()) : (ByteBuffer) value);
+            case TIMESTAMP:
+                return value -> new AttributeValue().withN(Long.toString(value instanceof Date
+                        ? ((Date) value).getTime() : ((Number) value).longValue()));
+            case DECIMAL:
+                final int scale = columnType.getScale();
+                return value -> new AttributeValue().withN(new BigDecimal(toNumberString((Number) value))
+                        .setScale(scale, RoundingMode.HALF_UP).toPlainString());
+            case BOOLEAN:
+                return value -> new AttributeValue().withBOOL((Boolean) value);
+            default:
+                throw new IllegalArgumentException("Not supported column type: " + columnType);
+        }
+    }
+
+    private static String toNumberString(Number number) {
+        return number instanceof BigDecimal ? ((BigDecimal) number).toPlainString() : number.toString();
+    }
+
     public static AttributeValue toDynamoDBAttributeValue(Object obj) {
         AttributeValue attributeValue = new AttributeValue();
         if (obj instanceof String) {
@@ -28,6 +94,10 @@ public class DynamoDBTypeConverter {
                 || obj instanceof Long
                 || obj instanceof Integer) {
             attributeValue.withN(obj.toString());
+        } else if (obj instanceof BigDecimal) {
+            attributeValue.withN(((BigDecimal) obj).toPlainString());
+        } else if (obj instanceof Boolean) {
+            attributeValue.withBOOL((Boolean) obj);
         } else if (obj instanceof ByteBuffer) {
             attributeValue.withB((ByteBuffer) obj);
         } else {
@@ -2,20 +2,43 @@ package calcite.adapter.dynamodb;
 
 import calcite.adapter.dynamodb.tools.AddTableSchema;
 import calcite.adapter.dynamodb.tools.CreateMetaTable;
+import calcite.adapter.dynamodb.utils.DynamoDBClientUtil;
+import calcite.adapter.dynamodb.utils.DynamoDBColumnType;
+import calcite.adapter.dynamodb.utils.DynamoDBMetrics;
+import calcite.adapter.dynamodb.utils.DynamoDBCapacityThrottle;
+import calcite.adapter.dynamodb.utils.DynamoDBResultCache;
+import calcite.adapter.dynamodb.utils.DynamoDBRowConverter;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.model.*;
+import org.apache.calcite.avatica.util.Casing;
+import org.apache.calcite.jdbc.CalciteConnection;
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.linq4j.Linq4j;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.metadata.JaninoRelMetadataProvider;
+import org.apache.calcite.rel.metadata.RelMetadataQuery;
+import org.apache.calcite.sql.parser.SqlParser;
+import org.apache.calcite.tools.Frameworks;
+import org.apache.calcite.tools.Planner;
+import org.apache.calcite.tools.RelRunner;
 import org.apache.calcite.util.Util;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
 import java.net.URL;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * It will launch a local DynamoDB instance on port 8031.
@@ -23,6 +46,10 @@ import java.util.function.Function;
 public class TestDynamoDBAdapter {
     static UnitTestDynamoDBClientHelper helper = new UnitTestDynamoDBClientHelper();
     static String testTableName = "testTable";
+    static String eventTableName = "testEventTable";
+    static String typedTableName = "testTypedTable";
+    static String copyTableName = "testCopyTable";
+    static String userTableName = "testUserTable";
     static String metaTableName = "meta";
 
     static final String EXPLAIN = "explain plan for ";
@@ -35,6 +62,10 @@ public class TestDynamoDBAdapter {
 
         initMetaTable();
         initTestTable();
+        initEventTable();
+        initTypedTable();
+        initCopyTable();
+        initUserTable();
     }
 
     @AfterClass
@@ -52,6 +83,26 @@ public class TestDynamoDBAdapter {
         tableSchema.put("numberCol", ScalarAttributeType.N);
 
         AddTableSchema.addTableSchema(dynamoDBClient, metaTableName, testTableName, tableSchema);
+        AddTableSchema.addTableSchema(dynamoDBClient, metaTableName, eventTableName, tableSchema);
+        AddTableSchema.addTableSchema(dynamoDBClient, metaTableName, copyTableName, tableSchema);
+
+        Map<String, ScalarAttributeType> userTableSchema = new HashMap<>();
+        userTableSchema.put("hashKey", ScalarAttributeType.S);
+        userTableSchema.put("stringCol", ScalarAttributeType.S);
+
+        AddTableSchema.addTableSchema(dynamoDBClient, metaTableName, userTableName, userTableSchema);
+
+        Map<String, DynamoDBColumnType> typedTableSchema = new HashMap<>();
+        typedTableSchema.put("id", DynamoDBColumnType.of(ScalarAttributeType.S));
+        typedTableSchema.put("bigintCol", DynamoDBColumnType.BIGINT);
+        typedTableSchema.put("intCol", DynamoDBColumnType.INTEGER);
+        typedTableSchema.put("decimalCol", DynamoDBColumnType.decimal(10, 2));
+        typedTableSchema.put("boolCol", DynamoDBColumnType.BOOLEAN);
+        typedTableSchema.put("tsCol", DynamoDBColumnType.TIMESTAMP);
+        // a DynamoDB reserved word.
+        typedTableSchema.put("size", DynamoDBColumnType.of(ScalarAttributeType.S));
+
+        AddTableSchema.addTypedTableSchema(dynamoDBClient, metaTableName, typedTableName, typedTableSchema);
     }
 
     private static void initTestTable() {
@@ -82,6 +133,118 @@ public class TestDynamoDBAdapter {
         dynamoDBClient.batchWriteItem(new BatchWriteItemRequest().withRequestItems(requestItems));
     }
 
+    /**
+     * Creates a table holding several events, i.e. sort keys, for each user, i.e. hash key. Events are indexed by
+     * stringCol in a global secondary index, and by numberCol in a local one.
+     */
+    private static void initEventTable() {
+        CreateTableRequest createTableRequest = new CreateTableRequest();
+        createTableRequest.setTableName(eventTableName);
+        createTableRequest.setKeySchema(Arrays.asList(new KeySchemaElement("hashKey", KeyType.HASH), new KeySchemaElement("sortKey", KeyType.RANGE)));
+        createTableRequest.setAttributeDefinitions(Arrays.asList(new AttributeDefinition("hashKey", ScalarAttributeType.S), new AttributeDefinition("sortKey", ScalarAttributeType.S),
+                new AttributeDefinition("stringCol", ScalarAttributeType.S), new AttributeDefinition("numberCol", ScalarAttributeType.N)));
+        createTableRequest.setProvisionedThroughput(new ProvisionedThroughput(10L, 10L));
+        createTableRequest.setGlobalSecondaryIndexes(Collections.singletonList(new GlobalSecondaryIndex()
+                .withIndexName("stringColIndex")
+                .withKeySchema(new KeySchemaElement("stringCol", KeyType.HASH))
+                .withProjection(new Projection().withProjectionType(ProjectionType.KEYS_ONLY))
+                .withProvisionedThroughput(new ProvisionedThroughput(10L, 10L))));
+        createTableRequest.setLocalSecondaryIndexes(Collections.singletonList(new LocalSecondaryIndex()
+                .withIndexName("numberColIndex")
+                .withKeySchema(new KeySchemaElement("hashKey", KeyType.HASH), new KeySchemaElement("numberCol", KeyType.RANGE))
+                .withProjection(new Projection().withProjectionType(ProjectionType.KEYS_ONLY))));
+
+        dynamoDBClient.createTable(createTableRequest);
+
+        List<WriteRequest> writeRequests = new ArrayList<>();
+        for (int user = 0; user < 2; user++) {
+            for (int i = 0; i < 5; i++) {
+                PutRequest put = new PutRequest();
+                put.addItemEntry("hashKey", new AttributeValue("user" + user));
+                put.addItemEntry("sortKey", new AttributeValue("2016-01-0" + (i + 1)));
+                put.addItemEntry("stringCol", new AttributeValue("event" + i));
+                put.addItemEntry("numberCol", new AttributeValue().withN(i + ""));
+
+                writeRequests.add(new WriteRequest(put));
+            }
+        }
+
+        // an event without numberCol.
+        PutRequest put = new PutRequest();
+        put.addItemEntry("hashKey", new AttributeValue("user2"));
+        put.addItemEntry("sortKey", new AttributeValue("2016-01-01"));
+        put.addItemEntry("stringCol", new AttributeValue("event0"));
+        writeRequests.add(new WriteRequest(put));
+
+        dynamoDBClient.batchWriteItem(new BatchWriteItemRequest().withRequestItems(Collections.singletonMap(eventTableName, writeRequests)));
+    }
+
+    /**
+     * Creates a table whose number attributes are declared with logical types.
+     */
+    private static void initTypedTable() {
+        CreateTableRequest createTableRequest = new CreateTableRequest();
+        createTableRequest.setTableName(typedTableName);
+        createTableRequest.setKeySchema(Collections.singletonList(new KeySchemaElement("id", KeyType.HASH)));
+        createTableRequest.setAttributeDefinitions(Collections.singletonList(new AttributeDefinition("id", ScalarAttributeType.S)));
+        createTableRequest.setProvisionedThroughput(new ProvisionedThroughput(10L, 10L));
+
+        dynamoDBClient.createTable(createTableRequest);
+
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("id", new AttributeValue("a"));
+        item.put("bigintCol", new AttributeValue().withN("9007199254740993"));
+        item.put("intCol", new AttributeValue().withN("1"));
+        item.put("decimalCol", new AttributeValue().withN("2.5"));
+        item.put("boolCol", new AttributeValue().withBOOL(true));
+        item.put("tsCol", new AttributeValue().withN("1451606400000"));
+        item.put("size", new AttributeValue("small"));
+        dynamoDBClient.putItem(typedTableName, item);
+
+        item = new HashMap<>();
+        item.put("id", new AttributeValue("b"));
+        item.put("bigintCol", new AttributeValue().withN("9007199254740992"));
+        item.put("intCol", new AttributeValue().withN("2"));
+        item.put("decimalCol", new AttributeValue().withN("10.25"));
+        item.put("boolCol", new AttributeValue().withN("0"));
+        item.put("tsCol", new AttributeValue().withN("1451692800000"));
+        item.put("size", new AttributeValue("large"));
+        dynamoDBClient.putItem(typedTableName, item);
+    }
+
+    /**
+     * Creates an empty table of the columns of the test table, written to by INSERT statements.
+     */
+    private static void initCopyTable() {
+        CreateTableRequest createTableRequest = new CreateTableRequest();
+        createTableRequest.setTableName(copyTableName);
+        createTableRequest.setKeySchema(Arrays.asList(new KeySchemaElement("hashKey", KeyType.HASH), new KeySchemaElement("sortKey", KeyType.RANGE)));
+        createTableRequest.setAttributeDefinitions(Arrays.asList(new AttributeDefinition("hashKey", ScalarAttributeType.S), new AttributeDefinition("sortKey", ScalarAttributeType.S)));
+        createTableRequest.setProvisionedThroughput(new ProvisionedThroughput(10L, 10L));
+
+        dynamoDBClient.createTable(createTableRequest);
+    }
+
+    /**
+     * Creates a table of the users of some of the events, joined to by the hash key of the event table.
+     */
+    private static void initUserTable() {
+        CreateTableRequest createTableRequest = new CreateTableRequest();
+        createTableRequest.setTableName(userTableName);
+        createTableRequest.setKeySchema(Collections.singletonList(new KeySchemaElement("hashKey", KeyType.HASH)));
+        createTableRequest.setAttributeDefinitions(Collections.singletonList(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        createTableRequest.setProvisionedThroughput(new ProvisionedThroughput(10L, 10L));
+
+        dynamoDBClient.createTable(createTableRequest);
+
+        for (int user = 0; user < 2; user++) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put("hashKey", new AttributeValue("user" + user));
+            item.put("stringCol", new AttributeValue("name" + user));
+            dynamoDBClient.putItem(userTableName, item);
+        }
+    }
+
     private String jsonPath(String model) {
         return resourcePath(model + ".json");
     }
@@ -148,6 +311,49 @@ public class TestDynamoDBAdapter {
         }
     }
 
+    private int executeUpdate(String model, String sql) throws SQLException {
+        Connection connection = null;
+        Statement statement = null;
+        try {
+            Properties info = new Properties();
+            info.put("model", jsonPath(model));
+            info.put("unquotedCasing", "UNCHANGED");
+            info.put("caseSensitive", "true");
+            connection = DriverManager.getConnection("jdbc:calcite:", info);
+            statement = connection.createStatement();
+            return statement.executeUpdate(sql);
+        } finally {
+            close(connection, statement);
+        }
+    }
+
+    /**
+     * Runs an UPDATE as a relational expression, as the JDBC driver of Calcite 1.10 does not return the update count
+     * of an UPDATE statement, and returns the number of rows updated.
+     */
+    private long executeUpdateRel(String model, String sql) throws Exception {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        try {
+            Properties info = new Properties();
+            info.put("model", jsonPath(model));
+            connection = DriverManager.getConnection("jdbc:calcite:", info);
+            CalciteConnection calciteConnection = connection.unwrap(CalciteConnection.class);
+            Planner planner = Frameworks.getPlanner(Frameworks.newConfigBuilder()
+                    .defaultSchema(calciteConnection.getRootSchema().getSubSchema(calciteConnection.getSchema()))
+                    .parserConfig(SqlParser.configBuilder().setUnquotedCasing(Casing.UNCHANGED).setCaseSensitive(true).build())
+                    .build());
+            RelNode rel = planner.rel(planner.validate(planner.parse(sql))).rel;
+
+            statement = connection.unwrap(RelRunner.class).prepare(rel);
+            ResultSet resultSet = statement.executeQuery();
+            Assert.assertTrue(resultSet.next());
+            return resultSet.getLong(1);
+        } finally {
+            close(connection, statement);
+        }
+    }
+
     private void close(Connection connection, Statement statement) {
         if (statement != null) {
             try {
@@ -205,6 +411,42 @@ public class TestDynamoDBAdapter {
         checkSql(sql, model, expect(expected));
     }
 
+    /**
+     * Returns a function that checks that the plan explained in a result set contains the given strings.
+     */
+    private Function<ResultSet, Void> planContains(final String... expected) {
+        return resultSet -> {
+            try {
+                final List<String> lines = new ArrayList<>();
+                collect(lines, resultSet);
+                String plan = String.join("\n", lines);
+                for (String s : expected) {
+                    Assert.assertTrue(plan, plan.contains(s));
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Returns a function that checks that the plan explained in a result set does not contain the given string.
+     */
+    private Function<ResultSet, Void> planDoesNotContain(final String unexpected) {
+        return resultSet -> {
+            try {
+                final List<String> lines = new ArrayList<>();
+                collect(lines, resultSet);
+                String plan = String.join("\n", lines);
+                Assert.assertFalse(plan, plan.contains(unexpected));
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            return null;
+        };
+    }
+
     ///---------------
 
     @Test
@@ -271,7 +513,8 @@ public class TestDynamoDBAdapter {
     public void testFilterHashKey() throws SQLException {
         String sql = "select hashKey, sortKey from " + testTableName
                 + " where hashKey = 'hashKey1'"
-                + " or hashKey = 'hashKey2'";
+                + " or hashKey = 'hashKey2'"
+                + " order by hashKey";
 
         checkSql("testModel",
                 sql,
@@ -283,7 +526,8 @@ public class TestDynamoDBAdapter {
     public void testFilterHashKeyAndSortKey() throws SQLException {
         String sql = "select hashKey, sortKey from " + testTableName
                 + " where hashKey = 'hashKey1'"
-                + " or (hashKey = 'hashKey2' and sortKey >= 'sortKey1' and sortKey <= 'sortKey9')";
+                + " or (hashKey = 'hashKey2' and sortKey >= 'sortKey1' and sortKey <= 'sortKey9')"
+                + " order by hashKey";
 
         checkSql("testModel",
                 sql,
@@ -301,5 +545,876 @@ public class TestDynamoDBAdapter {
                 "numberCol=9.0");
     }
 
+    @Test
+    public void testParallelScan() throws SQLException {
+        String sql = "select numberCol, hashKey from " + testTableName
+                + " where numberCol < 5 order by hashKey";
+
+        checkSql("testParallelScanModel",
+                sql,
+                "numberCol=0.0; hashKey=hashKey0",
+                "numberCol=1.0; hashKey=hashKey1",
+                "numberCol=2.0; hashKey=hashKey2",
+                "numberCol=3.0; hashKey=hashKey3",
+                "numberCol=4.0; hashKey=hashKey4");
+    }
+
+    @Test
+    public void testNoPrefetch() throws SQLException {
+        String sql = "select hashKey, sortKey from " + testTableName
+                + " where hashKey = 'hashKey1'"
+                + " or hashKey = 'hashKey2'";
+
+        checkSql("testNoPrefetchModel",
+                sql,
+                "hashKey=hashKey1; sortKey=sortKey1",
+                "hashKey=hashKey2; sortKey=sortKey2");
+    }
+
+    @Test
+    public void testNoPrefetchLimit() throws SQLException {
+        DynamoDBMetrics.RequestMetrics metrics = DynamoDBMetrics.getRequestMetrics(testTableName, "Scan");
+        metrics.reset();
+        checkSql("select hashKey from " + testTableName + " limit 1", "testNoPrefetchModel", resultSet -> {
+            try {
+                final List<String> lines = new ArrayList<>();
+                collect(lines, resultSet);
+                Assert.assertEquals(1, lines.size());
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+            return null;
+        });
+
+        // the segments after the one returning the row are not read.
+        Assert.assertTrue(metrics.getRequestCount() < 4);
+    }
+
+    @Test
+    public void testParallelQueries() throws SQLException {
+        String sql = "select hashKey, sortKey from " + testTableName
+                + " where hashKey = 'hashKey7' or hashKey = 'hashKey1' or hashKey = 'hashKey5'"
+                + " or hashKey = 'hashKey3' or hashKey = 'hashKey9'"
+                + " order by hashKey";
+
+        checkSql("testParallelScanModel",
+                sql,
+                "hashKey=hashKey1; sortKey=sortKey1",
+                "hashKey=hashKey3; sortKey=sortKey3",
+                "hashKey=hashKey5; sortKey=sortKey5",
+                "hashKey=hashKey7; sortKey=sortKey7",
+                "hashKey=hashKey9; sortKey=sortKey9");
+    }
+
+    @Test
+    public void testOrderedQueries() throws SQLException {
+        // the rows of the queries are returned in the order of the conditions.
+        checkSql("testOrderedQueriesModel",
+                "select hashKey, sortKey from " + testTableName
+                        + " where hashKey = 'hashKey7' or hashKey = 'hashKey1' or hashKey = 'hashKey5'",
+                "hashKey=hashKey7; sortKey=sortKey7",
+                "hashKey=hashKey1; sortKey=sortKey1",
+                "hashKey=hashKey5; sortKey=sortKey5");
+    }
+
+    @Test
+    public void testAsyncClient() throws SQLException {
+        checkSql("testAsyncModel",
+                "select numberCol, hashKey from " + testTableName + " where numberCol < 3 order by hashKey",
+                "numberCol=0.0; hashKey=hashKey0",
+                "numberCol=1.0; hashKey=hashKey1",
+                "numberCol=2.0; hashKey=hashKey2");
+        checkSql("testAsyncModel",
+                "select hashKey, sortKey from " + testTableName
+                        + " where hashKey = 'hashKey7' or hashKey = 'hashKey1' or hashKey = 'hashKey5' order by hashKey",
+                "hashKey=hashKey1; sortKey=sortKey1",
+                "hashKey=hashKey5; sortKey=sortKey5",
+                "hashKey=hashKey7; sortKey=sortKey7");
+        checkSql("testAsyncModel",
+                "select hashKey, sortKey from " + testTableName
+                        + " where (hashKey = 'hashKey1' and sortKey = 'sortKey1') or (hashKey = 'hashKey3' and sortKey = 'sortKey3')"
+                        + " order by hashKey",
+                "hashKey=hashKey1; sortKey=sortKey1",
+                "hashKey=hashKey3; sortKey=sortKey3");
+        checkSql("testAsyncModel",
+                "select hashKey, sortKey from " + testTableName + " where hashKey = 'hashKey5' and sortKey = 'sortKey5'",
+                "hashKey=hashKey5; sortKey=sortKey5");
+        checkSql("testAsyncModel",
+                "select count(*) as c from (select hashKey from " + testTableName + " limit 3)",
+                "c=3");
+    }
+
+    @Test
+    public void testSharedClient() throws SQLException {
+        Map<String, Object> operand = new HashMap<>();
+        operand.put("local", true);
+        operand.put("maxConnections", 16);
+        operand.put("warmUpConnections", 0);
+        AmazonDynamoDBClient client = DynamoDBClientUtil.getSharedClient(operand);
+        Assert.assertSame(client, DynamoDBClientUtil.getSharedClient(new HashMap<>(operand)));
+
+        operand.put("maxConnections", 32);
+        Assert.assertNotSame(client, DynamoDBClientUtil.getSharedClient(operand));
+
+        checkSql("testClientOptionsModel",
+                "select hashKey, sortKey from " + testTableName + " where hashKey = 'hashKey1' or hashKey = 'hashKey2' order by hashKey",
+                "hashKey=hashKey1; sortKey=sortKey1",
+                "hashKey=hashKey2; sortKey=sortKey2");
+    }
+
+    @Test
+    public void testPointLookup() throws SQLException {
+        String sql = "select hashKey, sortKey from " + testTableName
+                + " where (hashKey = 'hashKey1' and sortKey = 'sortKey1')"
+                + " or (hashKey = 'hashKey3' and sortKey = 'sortKey3')"
+                + " or (hashKey = 'hashKey3' and sortKey = 'sortKey3')"
+                + " or (hashKey = 'hashKey4' and sortKey = 'sortKey0')"
+                + " order by hashKey";
+
+        checkSql("testModel",
+                sql,
+                "hashKey=hashKey1; sortKey=sortKey1",
+                "hashKey=hashKey3; sortKey=sortKey3");
+    }
+
+    @Test
+    public void testSinglePointLookup() throws SQLException {
+        String sql = "select hashKey, sortKey from " + testTableName
+                + " where hashKey = 'hashKey5' and sortKey = 'sortKey5'";
+
+        checkSql("testModel",
+                sql,
+                "hashKey=hashKey5; sortKey=sortKey5");
+    }
+
+    @Test
+    public void testLimit() throws SQLException {
+        String sql = "select hashKey from " + testTableName + " limit 3";
+
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBLimit(fetch=[3])"));
+        checkSql("testModel",
+                sql,
+                "hashKey=hashKey9",
+                "hashKey=hashKey5",
+                "hashKey=hashKey3");
+    }
+
+    @Test
+    public void testLimitWithFilterAndOffset() throws SQLException {
+        String sql = "select hashKey from " + testTableName
+                + " where numberCol < 5 limit 2 offset 1";
+
+        checkSql("testModel",
+                sql,
+                "hashKey=hashKey4",
+                "hashKey=hashKey0");
+    }
+
+    @Test
+    public void testNestedLimits() throws SQLException {
+        checkSql("testModel",
+                "select hashKey from (select hashKey from " + testTableName + " limit 2) limit 5",
+                "hashKey=hashKey9",
+                "hashKey=hashKey5");
+        checkSql("testModel",
+                "select hashKey from (select hashKey from " + testTableName + " limit 3) limit 5 offset 1",
+                "hashKey=hashKey5",
+                "hashKey=hashKey3");
+        checkSql("testModel",
+                "select count(*) as c from (select hashKey from (select hashKey from " + testTableName
+                        + " where hashKey = 'hashKey1' or hashKey = 'hashKey2' limit 1) limit 5)",
+                "c=1");
+    }
+
+    @Test
+    public void testFilterAboveLimit() throws SQLException {
+        String sql = "select hashKey from (select hashKey, numberCol from " + testTableName + " limit 3)"
+                + " where numberCol < 5";
+
+        checkSql("testModel",
+                sql,
+                "hashKey=hashKey3");
+    }
+
+    @Test
+    public void testOrderBySortKey() throws SQLException {
+        String sql = "select hashKey, sortKey from " + eventTableName
+                + " where hashKey = 'user1' order by sortKey";
+
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBSort"));
+        checkSql("testModel",
+                sql,
+                "hashKey=user1; sortKey=2016-01-01",
+                "hashKey=user1; sortKey=2016-01-02",
+                "hashKey=user1; sortKey=2016-01-03",
+                "hashKey=user1; sortKey=2016-01-04",
+                "hashKey=user1; sortKey=2016-01-05");
+    }
+
+    @Test
+    public void testOrderBySortKeyDescWithLimit() throws SQLException {
+        String sql = "select sortKey, stringCol from " + eventTableName
+                + " where hashKey = 'user0' and sortKey < '2016-01-05' order by sortKey desc limit 2";
+
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBLimit(fetch=[2])", "DynamoDBSort"));
+        checkSql("testModel",
+                sql,
+                "sortKey=2016-01-04; stringCol=event3",
+                "sortKey=2016-01-03; stringCol=event2");
+    }
+
+    @Test
+    public void testOrderByNotPushedForScan() throws SQLException {
+        String sql = "select hashKey, sortKey from " + eventTableName
+                + " where sortKey = '2016-01-03' order by sortKey desc, hashKey";
 
+        checkSql(EXPLAIN + sql, "testModel", planContains("EnumerableSort"));
+        checkSql("testModel",
+                sql,
+                "hashKey=user0; sortKey=2016-01-03",
+                "hashKey=user1; sortKey=2016-01-03");
+    }
+
+    @Test
+    public void testCount() throws SQLException {
+        String sql = "select count(*) as c from " + testTableName;
+
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBAggregate"));
+        checkSql("testModel", sql, "c=10");
+        checkSql("testParallelScanModel", sql, "c=10");
+    }
+
+    @Test
+    public void testCountWithFilter() throws SQLException {
+        String sql = "select count(*) as c from " + eventTableName + " where hashKey = 'user1' and sortKey >= '2016-01-03'";
+
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBAggregate", "DynamoDBFilter"));
+        checkSql("testModel", sql, "c=3");
+        checkSql("testParallelScanModel",
+                "select count(*) as c from " + testTableName + " where numberCol < 5",
+                "c=5");
+    }
+
+    @Test
+    public void testCountAboveLimit() throws SQLException {
+        checkSql("testModel",
+                "select count(*) as c from (select hashKey from " + testTableName + " limit 3)",
+                "c=3");
+    }
+
+    @Test
+    public void testGlobalIndex() throws SQLException {
+        String sql = "select hashKey, sortKey from " + eventTableName
+                + " where stringCol = 'event3' order by hashKey";
+
+        checkSql(EXPLAIN + sql, "testModel", planContains("index=[stringColIndex]"));
+        checkSql("testModel",
+                sql,
+                "hashKey=user0; sortKey=2016-01-04",
+                "hashKey=user1; sortKey=2016-01-04");
+    }
+
+    @Test
+    public void testGlobalIndexNotCovering() throws SQLException {
+        String sql = "select * from " + eventTableName
+                + " where stringCol = 'event3' order by hashKey";
+
+        checkSql(EXPLAIN + sql, "testModel", planDoesNotContain("index="));
+        checkSql("testModel",
+                sql,
+                "numberCol=3.0; hashKey=user0; sortKey=2016-01-04; stringCol=event3",
+                "numberCol=3.0; hashKey=user1; sortKey=2016-01-04; stringCol=event3");
+    }
+
+    @Test
+    public void testLocalIndex() throws SQLException {
+        String sql = "select * from " + eventTableName
+                + " where hashKey = 'user0' and numberCol >= 3";
+
+        checkSql(EXPLAIN + sql, "testModel", planContains("index=[numberColIndex]"));
+        checkSql("testModel",
+                sql,
+                "numberCol=3.0; hashKey=user0; sortKey=2016-01-04; stringCol=event3",
+                "numberCol=4.0; hashKey=user0; sortKey=2016-01-05; stringCol=event4");
+    }
+
+    @Test
+    public void testPrimaryKeyPreferredOverIndex() throws SQLException {
+        String sql = "select * from " + eventTableName
+                + " where hashKey = 'user0' and sortKey >= '2016-01-04' and numberCol >= 1";
+
+        checkSql(EXPLAIN + sql, "testModel", planDoesNotContain("index="));
+        checkSql("testModel",
+                sql,
+                "numberCol=3.0; hashKey=user0; sortKey=2016-01-04; stringCol=event3",
+                "numberCol=4.0; hashKey=user0; sortKey=2016-01-05; stringCol=event4");
+    }
+
+    @Test
+    public void testRowCountEstimates() throws SQLException {
+        final String explain = "explain plan including all attributes for ";
+
+        // the item count of the table description, the hash key query reading about its square root
+        checkSql(explain + "select * from " + testTableName, "testModel",
+                planContains("DynamoDBTableScan(table=[[DEMO, testTable]]): rowcount = 10.0"));
+        checkSql(explain + "select * from " + testTableName + " where hashKey = 'hashKey1'", "testModel",
+                planContains("DynamoDBToEnumerableConverter: rowcount = 3.16"));
+        checkSql(explain + "select * from " + testTableName + " where hashKey = 'hashKey1' and sortKey = 'sortKey1'", "testModel",
+                planContains("DynamoDBToEnumerableConverter: rowcount = 1.0,"));
+        checkSql(explain + "select * from " + testTableName + " where numberCol > 8", "testModel",
+                planContains("DynamoDBToEnumerableConverter: rowcount = 5.0,"));
+    }
+
+    @Test
+    public void testColumnOrder() throws SQLException {
+        checkSql("testModel",
+                "select sortKey, numberCol, hashKey from " + testTableName + " where hashKey = 'hashKey3'",
+                "sortKey=sortKey3; numberCol=3.0; hashKey=hashKey3");
+    }
+
+    @Test
+    public void testMissingAttribute() throws SQLException {
+        checkSql("testModel",
+                "select hashKey, numberCol, stringCol from " + eventTableName + " where hashKey = 'user2'",
+                "hashKey=user2; numberCol=null; stringCol=event0");
+    }
+
+    @Test
+    public void testTypedColumns() throws SQLException {
+        checkSql("testModel",
+                "select id, bigintCol, intCol, decimalCol, boolCol, tsCol from " + typedTableName
+                        + " where bigintCol = 9007199254740993",
+                "id=a; bigintCol=9007199254740993; intCol=1; decimalCol=2.50; boolCol=true; tsCol=2016-01-01 00:00:00");
+    }
+
+    @Test
+    public void testTypedColumnsArithmetic() throws SQLException {
+        checkSql("testModel",
+                "select sum(intCol) as i, sum(decimalCol) as d, max(bigintCol) as b from " + typedTableName
+                        + " where decimalCol > 2.5",
+                "i=2; d=10.25; b=9007199254740992");
+        checkSql("testModel",
+                "select id, boolCol from " + typedTableName + " order by id",
+                "id=a; boolCol=true",
+                "id=b; boolCol=false");
+    }
+
+    @Test
+    public void testBooleanFilter() throws SQLException {
+        // item b stores its boolCol as the number 0.
+        checkSql("testModel",
+                "select id from " + typedTableName + " where boolCol = false",
+                "id=b");
+        checkSql("testModel",
+                "select id from " + typedTableName + " where boolCol = true",
+                "id=a");
+    }
+
+    @Test
+    public void testComputedProjection() throws SQLException {
+        String sql = "select numberCol * 2 as x from " + eventTableName + " where hashKey = 'user0' and numberCol < 2";
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBProject(numberCol=[$0])"));
+        checkSql("testModel",
+                sql,
+                "x=0.0",
+                "x=2.0");
+    }
+
+    @Test
+    public void testReservedWordColumn() throws SQLException {
+        checkSql("testModel",
+                "select id, \"size\" from " + typedTableName + " where \"size\" = 'large'",
+                "id=b; size=large");
+        checkSql("testModel",
+                "select \"size\" from " + typedTableName + " where id = 'a' or id = 'b' order by \"size\"",
+                "size=large",
+                "size=small");
+    }
+
+    /**
+     * Returns the client the schemas of the test models share.
+     */
+    private static AmazonDynamoDBClient getModelClient() {
+        Map<String, Object> operand = new HashMap<>();
+        operand.put("region", "us-west-2");
+        operand.put("local", true);
+        return DynamoDBClientUtil.getSharedClient(operand);
+    }
+
+    @Test
+    public void testResultCache() throws SQLException {
+        DynamoDBResultCache resultCache = DynamoDBResultCache.getSharedCache(getModelClient(), DynamoDBResultCache.DEFAULT_MAX_BYTES);
+        long hitCount = resultCache.getHitCount();
+        long missCount = resultCache.getMissCount();
+
+        String sql = "select sortKey, stringCol from " + eventTableName + " where hashKey = 'user1' and sortKey >= '2016-01-04'";
+        for (int i = 0; i < 2; i++) {
+            checkSql("testResultCacheModel",
+                    sql,
+                    "sortKey=2016-01-04; stringCol=event3",
+                    "sortKey=2016-01-05; stringCol=event4");
+        }
+
+        Assert.assertEquals(missCount + 1, resultCache.getMissCount());
+        Assert.assertEquals(hitCount + 1, resultCache.getHitCount());
+
+        // another account in the same region does not share the cache.
+        Map<String, Object> operand = new HashMap<>();
+        operand.put("region", "us-west-2");
+        operand.put("local", true);
+        operand.put("profile", "other");
+        operand.put("warmUpConnections", 0);
+        Assert.assertNotSame(resultCache, DynamoDBResultCache.getSharedCache(DynamoDBClientUtil.getSharedClient(operand),
+                DynamoDBResultCache.DEFAULT_MAX_BYTES));
+    }
+
+    @Test
+    public void testResultCacheSkipsCancelledStatement() {
+        DynamoDBResultCache resultCache = new DynamoDBResultCache(DynamoDBResultCache.DEFAULT_MAX_BYTES);
+        List<Object> cacheKey = Arrays.asList(testTableName, "hashKey");
+        DynamoDBRowConverter rowConverter = new DynamoDBRowConverter(Collections.singletonList("hashKey"),
+                Collections.singletonMap("hashKey", new AttributeValue("S")));
+        Function<AtomicBoolean, Supplier<Enumerator<Object>>> request = cancelFlag -> () -> new DynamoDBScanEnumerator(cancelFlag,
+                dynamoDBClient, testTableName, rowConverter, null, Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyMap(), Collections.emptyMap(), 1, 1);
+
+        // the enumerator of a cancelled statement returns no more rows.
+        AtomicBoolean cancelFlag = new AtomicBoolean();
+        Enumerator<Object> enumerator = resultCache.enumerator(cacheKey, 60000, cancelFlag, request.apply(cancelFlag));
+        Assert.assertTrue(enumerator.moveNext());
+        cancelFlag.set(true);
+        Assert.assertFalse(enumerator.moveNext());
+        enumerator.close();
+        Assert.assertEquals(0, resultCache.getEntryCount());
+
+        for (int i = 0; i < 2; i++) {
+            cancelFlag = new AtomicBoolean();
+            enumerator = resultCache.enumerator(cacheKey, 60000, cancelFlag, request.apply(cancelFlag));
+            int rowCount = 0;
+            while (enumerator.moveNext()) {
+                rowCount++;
+            }
+            enumerator.close();
+            Assert.assertEquals(10, rowCount);
+        }
+        Assert.assertEquals(1, resultCache.getHitCount());
+    }
+
+    @Test
+    public void testMetadataCache() throws SQLException {
+        DynamoDBMetadataCache metadataCache = DynamoDBMetadataCache.getSharedCache(getModelClient(), metaTableName,
+                DynamoDBMetadataCache.DEFAULT_REFRESH_INTERVAL_MILLIS, false, DynamoDBMetadataCache.DEFAULT_DESCRIBE_PARALLELISM);
+
+        String sql = "select hashKey from " + testTableName + " where hashKey = 'hashKey1'";
+        checkSql("testModel", sql, "hashKey=hashKey1");
+        long loadCount = metadataCache.getLoadCount();
+        checkSql("testModel", sql, "hashKey=hashKey1");
+        Assert.assertEquals(loadCount, metadataCache.getLoadCount());
+
+        DynamoDBMetadataCache.TableMetadata tableMetadata = metadataCache.getTables().get(testTableName);
+        metadataCache.refresh();
+        Assert.assertEquals(loadCount + 1, metadataCache.getLoadCount());
+        Assert.assertSame(tableMetadata, metadataCache.getTables().get(testTableName));
+
+        // a schema with another client, e.g. of other credentials, describes the tables with its own.
+        Assert.assertNotSame(metadataCache, DynamoDBMetadataCache.getSharedCache(dynamoDBClient, metaTableName,
+                DynamoDBMetadataCache.DEFAULT_REFRESH_INTERVAL_MILLIS, false, DynamoDBMetadataCache.DEFAULT_DESCRIBE_PARALLELISM));
+    }
+
+    @Test
+    public void testTableDescription() throws SQLException {
+        DynamoDBMetadataCache lazyMetadataCache = new DynamoDBMetadataCache(dynamoDBClient, metaTableName, 0, false, 4);
+        Assert.assertTrue(lazyMetadataCache.getTables().containsKey(typedTableName));
+        for (DynamoDBMetadataCache.TableMetadata tableMetadata : lazyMetadataCache.getTables().values()) {
+            Assert.assertFalse(tableMetadata.isDescribed());
+        }
+
+        DynamoDBMetadataCache eagerMetadataCache = new DynamoDBMetadataCache(dynamoDBClient, metaTableName, 0, true, 4);
+        Assert.assertTrue(eagerMetadataCache.getTables().containsKey(typedTableName));
+        for (DynamoDBMetadataCache.TableMetadata tableMetadata : eagerMetadataCache.getTables().values()) {
+            Assert.assertTrue(tableMetadata.isDescribed());
+        }
+
+        checkSql("testEagerDescribeModel",
+                "select id from " + typedTableName + " where id = 'b'",
+                "id=b");
+    }
+
+    @Test
+    public void testReadCapacityBudget() throws SQLException {
+        DynamoDBMetrics.RequestMetrics metrics = DynamoDBMetrics.getRequestMetrics(eventTableName, "Scan");
+        metrics.reset();
+        checkSql("testModel",
+                "select count(*) as c from " + eventTableName,
+                "c=11");
+        Assert.assertEquals(1L, metrics.getRequestCount());
+
+        // a budget of 2 units per second lets the first page read 2 items, so the table takes several pages.
+        metrics.reset();
+        checkSql("testReadCapacityModel",
+                "select count(*) as c from " + eventTableName,
+                "c=11");
+        Assert.assertTrue(metrics.getRequestCount() > 1);
+
+        DynamoDBCapacityThrottle readThrottle = DynamoDBCapacityThrottle.getSharedThrottle(getModelClient(), eventTableName);
+        Assert.assertEquals(2, readThrottle.getUnitsPerSecond(), 0);
+        Assert.assertTrue(readThrottle.getConsumedUnits() > 0);
+    }
+
+    @Test
+    public void testCapacityThrottleReservesPages() throws Exception {
+        // two pages of half the budget go out at once, the third waits for the bucket to hold its capacity again.
+        DynamoDBCapacityThrottle throttle = new DynamoDBCapacityThrottle(100);
+        AtomicBoolean cancelFlag = new AtomicBoolean();
+        Assert.assertEquals(50, throttle.acquire(cancelFlag, 50), 0);
+        Assert.assertEquals(50, throttle.acquire(cancelFlag, 50), 0);
+        Assert.assertTrue(throttle.getThrottledMillis() < 400);
+
+        long startNanos = System.nanoTime();
+        Assert.assertEquals(50, throttle.acquire(cancelFlag, 50), 0);
+        Assert.assertTrue(System.nanoTime() - startNanos >= TimeUnit.MILLISECONDS.toNanos(400));
+
+        // pages are estimated from the capacity consumed per item so far, and a page of the page limit reserves a second.
+        throttle.consume(10, 20, 50);
+        Assert.assertEquals(1, throttle.estimateUnits(2), 0.001);
+        Assert.assertEquals(200, throttle.getPageLimit());
+    }
+
+    @Test
+    public void testRequestMetrics() throws Exception {
+        DynamoDBMetrics.getRequestMetrics(testTableName, "Scan").reset();
+        checkSql("testModel",
+                "select numberCol from " + testTableName + " where numberCol > 8",
+                "numberCol=9.0");
+
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(DynamoDBMetrics.DOMAIN + ":type=Requests,table=" + ObjectName.quote(testTableName)
+                + ",operation=" + ObjectName.quote("Scan"));
+        Assert.assertEquals(1L, mBeanServer.getAttribute(objectName, "StatementCount"));
+        Assert.assertTrue((Long) mBeanServer.getAttribute(objectName, "RequestCount") >= 1);
+        Assert.assertEquals(1L, mBeanServer.getAttribute(objectName, "ItemsReturned"));
+        Assert.assertTrue((Double) mBeanServer.getAttribute(objectName, "ItemsScannedPerReturned") > 1);
+        Assert.assertEquals(0L, mBeanServer.getAttribute(objectName, "ErrorCount"));
+        Assert.assertTrue((Double) mBeanServer.getAttribute(objectName, "LatencyP99Millis")
+                >= (Double) mBeanServer.getAttribute(objectName, "LatencyP50Millis"));
+    }
+
+    @Test
+    public void testMetadataProviderRestored() throws SQLException {
+        JaninoRelMetadataProvider threadProvider = RelMetadataQuery.THREAD_PROVIDERS.get();
+        checkSql("testModel",
+                "select numberCol from " + testTableName + " where numberCol > 8",
+                "numberCol=9.0");
+        Assert.assertEquals(threadProvider, RelMetadataQuery.THREAD_PROVIDERS.get());
+
+        // an EXPLAIN plans the query without implementing it.
+        checkSql(EXPLAIN + "select numberCol from " + testTableName + " where numberCol > 8", "testModel",
+                planContains("DynamoDBFilter"));
+        Assert.assertEquals(threadProvider, RelMetadataQuery.THREAD_PROVIDERS.get());
+        checkSql(EXPLAIN + "insert into " + copyTableName + " select * from " + testTableName, "testWriteModel",
+                planContains("DynamoDBTableModify"));
+        Assert.assertEquals(threadProvider, RelMetadataQuery.THREAD_PROVIDERS.get());
+    }
+
+    @Test
+    public void testInsert() throws SQLException {
+        checkSql(EXPLAIN + "insert into " + copyTableName + " select * from " + testTableName, "testWriteModel",
+                planContains("DynamoDBTableModify"));
+        Assert.assertEquals(2, executeUpdate("testWriteModel",
+                "insert into " + copyTableName + " (hashKey, sortKey, stringCol, numberCol)"
+                        + " values ('copy0', 'a', 'x', cast(1.5 as double)), ('copy0', 'b', null, null)"));
+        Assert.assertEquals(10, executeUpdate("testWriteModel",
+                "insert into " + copyTableName + " (hashKey, sortKey, stringCol, numberCol)"
+                        + " select hashKey, sortKey, stringCol, numberCol from " + testTableName));
+
+        checkSql("testWriteModel",
+                "select sortKey, stringCol, numberCol from " + copyTableName + " where hashKey = 'copy0' order by sortKey",
+                "sortKey=a; stringCol=x; numberCol=1.5",
+                "sortKey=b; stringCol=null; numberCol=null");
+        checkSql("testWriteModel",
+                "select count(*) as c, sum(numberCol) as s from " + copyTableName + " where hashKey <> 'copy0'",
+                "c=10; s=45.0");
+
+        DynamoDBMetrics.RequestMetrics metrics = DynamoDBMetrics.getRequestMetrics(copyTableName, "BatchWriteItem");
+        Assert.assertEquals(2L, metrics.getStatementCount());
+        Assert.assertEquals(12L, metrics.getItemsReturned());
+        Assert.assertEquals(0L, metrics.getErrorCount());
+        DynamoDBCapacityThrottle writeThrottle = DynamoDBCapacityThrottle.getSharedThrottle(getModelClient(), copyTableName + "/write");
+        Assert.assertEquals(1000, writeThrottle.getUnitsPerSecond(), 0);
+        Assert.assertTrue(writeThrottle.getConsumedUnits() > 0);
+    }
+
+    @Test
+    public void testInsertTypedValues() throws SQLException {
+        try {
+            Assert.assertEquals(1, executeUpdate("testModel",
+                    "insert into " + typedTableName + " (id, bigintCol, intCol, decimalCol, boolCol, tsCol, \"size\")"
+                            + " values ('c', 9007199254740995, 3, 1.255, false, timestamp '2016-01-03 00:00:00', 'medium')"));
+            checkSql("testModel",
+                    "select bigintCol, intCol, decimalCol, boolCol, tsCol, \"size\" from " + typedTableName + " where id = 'c'",
+                    "bigintCol=9007199254740995; intCol=3; decimalCol=1.26; boolCol=false; tsCol=2016-01-03 00:00:00; size=medium");
+        } finally {
+            dynamoDBClient.deleteItem(typedTableName, Collections.singletonMap("id", new AttributeValue("c")));
+        }
+    }
+
+    @Test
+    public void testKeyedUpdate() throws Exception {
+        String sql = "update " + typedTableName + " set intCol = intCol + 1, \"size\" = 'huge', tsCol = cast(null as timestamp)"
+                + " where (id = 'u0' or id = 'u1') and intCol < 10";
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBKeyedUpdate"));
+        try {
+            putTypedItem("u0", 5);
+            putTypedItem("u1", 10);
+            Assert.assertEquals(1L, executeUpdateRel("testModel", sql));
+            Assert.assertEquals(0L, executeUpdateRel("testModel",
+                    "update " + typedTableName + " set intCol = 0 where id = 'missing'"));
+            checkSql("testModel",
+                    "select id, intCol, tsCol, \"size\" from " + typedTableName + " where id = 'u0' or id = 'u1' or id = 'missing'"
+                            + " order by id",
+                    "id=u0; intCol=6; tsCol=null; size=huge",
+                    "id=u1; intCol=10; tsCol=2016-01-01 00:00:00; size=small");
+        } finally {
+            deleteTypedItems("u0", "u1");
+        }
+    }
+
+    @Test
+    public void testKeyedUpdateOfRepeatedKey() throws Exception {
+        // both or clauses match the item, which is still incremented once.
+        String sql = "update " + typedTableName + " set intCol = intCol + 1"
+                + " where (id = 'p0' and intCol < 10) or (id = 'p0' and intCol > 3)";
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBKeyedUpdate"));
+        try {
+            putTypedItem("p0", 5);
+            Assert.assertEquals(1L, executeUpdateRel("testModel", sql));
+            checkSql("testModel",
+                    "select id, intCol from " + typedTableName + " where id = 'p0'",
+                    "id=p0; intCol=6");
+        } finally {
+            deleteTypedItems("p0");
+        }
+    }
+
+    @Test
+    public void testKeyedUpdateNotEqualToMissingAttribute() throws Exception {
+        // null <> 7 is not true, so the item without intCol is not updated.
+        String sql = "update " + typedTableName + " set \"size\" = 'huge' where (id = 'n0' or id = 'n1') and intCol <> 7";
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBKeyedUpdate"));
+        try {
+            dynamoDBClient.putItem(typedTableName, Collections.singletonMap("id", new AttributeValue("n0")));
+            putTypedItem("n1", 5);
+            Assert.assertEquals(1L, executeUpdateRel("testModel", sql));
+            checkSql("testModel",
+                    "select id, \"size\" from " + typedTableName + " where id = 'n0' or id = 'n1' order by id",
+                    "id=n0; size=null",
+                    "id=n1; size=huge");
+        } finally {
+            deleteTypedItems("n0", "n1");
+        }
+    }
+
+    @Test
+    public void testKeyedUpdateReadsValues() throws Exception {
+        // the attribute may be missing, where SQL computes null.
+        String nullable = "update " + typedTableName + " set intCol = intCol + 1 where id = 'p1'";
+        checkSql(EXPLAIN + nullable, "testModel", planContains("DynamoDBTableModify"));
+        // the cast rounds the decimal.
+        String rounded = "update " + typedTableName + " set intCol = cast(decimalCol as integer) where id = 'p0' and decimalCol > 0";
+        checkSql(EXPLAIN + rounded, "testModel", planContains("DynamoDBTableModify"));
+        try {
+            putTypedItem("p0", 5);
+            dynamoDBClient.putItem(typedTableName, Collections.singletonMap("id", new AttributeValue("p1")));
+            Assert.assertEquals(1L, executeUpdateRel("testModel", nullable));
+            Assert.assertEquals(1L, executeUpdateRel("testModel", rounded));
+            checkSql("testModel",
+                    "select id, intCol from " + typedTableName + " where id = 'p0' or id = 'p1' order by id",
+                    "id=p0; intCol=2",
+                    "id=p1; intCol=null");
+        } finally {
+            deleteTypedItems("p0", "p1");
+        }
+    }
+
+    @Test
+    public void testUpdateAndDelete() throws Exception {
+        String update = "update " + typedTableName + " set decimalCol = decimalCol * 2 where \"size\" = 'small' and id > 'u'";
+        checkSql(EXPLAIN + update, "testModel", planContains("DynamoDBTableModify"));
+        try {
+            putTypedItem("u0", 5);
+            putTypedItem("u1", 10);
+            Assert.assertEquals(2L, executeUpdateRel("testModel", update));
+            checkSql("testModel",
+                    "select id, decimalCol from " + typedTableName + " where id > 'u' order by id",
+                    "id=u0; decimalCol=5.00",
+                    "id=u1; decimalCol=5.00");
+
+            String delete = "delete from " + typedTableName + " where id > 'u' and intCol > 5";
+            checkSql(EXPLAIN + delete, "testModel", planContains("DynamoDBProject(id=[$5])"));
+            Assert.assertEquals(1, executeUpdate("testModel", delete));
+            checkSql("testModel",
+                    "select id from " + typedTableName + " where id > 'u'",
+                    "id=u0");
+            checkSql("testModel",
+                    "select count(*) as c from " + typedTableName,
+                    "c=3");
+        } finally {
+            deleteTypedItems("u0", "u1");
+        }
+    }
+
+    @Test(expected = SQLException.class)
+    public void testUpdateKeyRejected() throws Exception {
+        executeUpdateRel("testModel", "update " + typedTableName + " set id = 'z' where intCol = 1");
+    }
+
+    private static void putTypedItem(String id, int intCol) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("id", new AttributeValue(id));
+        item.put("intCol", new AttributeValue().withN(Integer.toString(intCol)));
+        item.put("decimalCol", new AttributeValue().withN("2.5"));
+        item.put("tsCol", new AttributeValue().withN("1451606400000"));
+        item.put("size", new AttributeValue("small"));
+        dynamoDBClient.putItem(typedTableName, item);
+    }
+
+    private static void deleteTypedItems(String... ids) {
+        for (String id : ids) {
+            dynamoDBClient.deleteItem(typedTableName, Collections.singletonMap("id", new AttributeValue(id)));
+        }
+    }
+
+    @Test
+    public void testLookupJoinBatchGet() throws SQLException {
+        String sql = "select e.hashKey, e.sortKey, u.stringCol from " + eventTableName + " e join " + userTableName
+                + " u on e.hashKey = u.hashKey where e.numberCol = 1 order by e.hashKey";
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBLookupJoin", "lookup=[BatchGetItem]"));
+
+        DynamoDBMetrics.RequestMetrics metrics = DynamoDBMetrics.getRequestMetrics(userTableName, "BatchGetItem");
+        metrics.reset();
+        checkSql(sql, "testModel", expect(
+                "hashKey=user0; sortKey=2016-01-02; stringCol=name0",
+                "hashKey=user1; sortKey=2016-01-02; stringCol=name1"));
+        Assert.assertEquals(1L, metrics.getRequestCount());
+        Assert.assertEquals(2L, metrics.getItemsReturned());
+    }
+
+    @Test
+    public void testLookupJoinTruncatingCast() throws SQLException {
+        // the casts truncate the values of the dimension, so neither the column nor the key is the attribute.
+        checkSql("testModel", "select e.hashKey, u.name from " + eventTableName + " e join (select hashKey,"
+                        + " cast(stringCol as varchar(3)) as name from " + userTableName + ") u on e.hashKey = u.hashKey"
+                        + " where e.numberCol = 1 order by e.hashKey",
+                "hashKey=user0; name=nam",
+                "hashKey=user1; name=nam");
+        checkSql("testModel", "select count(*) as c from " + eventTableName + " e join (select cast(hashKey as varchar(4))"
+                        + " as k from " + userTableName + ") u on e.hashKey = u.k",
+                "c=0");
+    }
+
+    @Test
+    public void testLookupJoinSingleColumn() throws SQLException {
+        // the outer rows are the single key column, not arrays.
+        String sql = "select e.hashKey from " + eventTableName + " e join " + userTableName
+                + " u on e.hashKey = u.hashKey where e.numberCol = 1 order by e.hashKey";
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBLookupJoin"));
+        checkSql(sql, "testModel", expect(
+                "hashKey=user0",
+                "hashKey=user1"));
+        checkSql("testModel", "select count(*) as c from " + eventTableName + " e join " + userTableName
+                + " u on e.hashKey = u.hashKey", "c=10");
+    }
+
+    @Test
+    public void testLookupJoinLeft() throws SQLException {
+        String sql = "select e.hashKey, u.stringCol from " + eventTableName + " e left join " + userTableName
+                + " u on e.hashKey = u.hashKey where e.sortKey = '2016-01-01' order by e.hashKey";
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBLookupJoin", "joinType=[left]"));
+        checkSql(sql, "testModel", expect(
+                "hashKey=user0; stringCol=name0",
+                "hashKey=user1; stringCol=name1",
+                "hashKey=user2; stringCol=null"));
+    }
+
+    @Test
+    public void testLookupJoinQuery() throws SQLException {
+        String sql = "select u.stringCol, e.sortKey from " + userTableName + " u join " + eventTableName
+                + " e on u.hashKey = e.hashKey where u.stringCol = 'name1' order by e.sortKey";
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBLookupJoin", "lookup=[Query]"));
+
+        DynamoDBMetrics.RequestMetrics metrics = DynamoDBMetrics.getRequestMetrics(eventTableName, "Query");
+        metrics.reset();
+        checkSql(sql, "testModel", expect(
+                "stringCol=name1; sortKey=2016-01-01",
+                "stringCol=name1; sortKey=2016-01-02",
+                "stringCol=name1; sortKey=2016-01-03",
+                "stringCol=name1; sortKey=2016-01-04",
+                "stringCol=name1; sortKey=2016-01-05"));
+        Assert.assertEquals(1L, metrics.getRequestCount());
+        Assert.assertEquals(5L, metrics.getItemsReturned());
+    }
+
+    @Test
+    public void testLookupJoinReset() {
+        Enumerator<Object> outer = Linq4j.enumerator(Arrays.<Object>asList(new Object[]{"a"}, new Object[]{"b"}));
+        Enumerator<Object> join = new DynamoDBLookupJoinEnumerator(new AtomicBoolean(), outer, new int[]{0}, new int[]{0},
+                2, true, 1, keys -> Linq4j.enumerator(Collections.<Object>singletonList(new Object[]{"a", 1})));
+
+        Assert.assertTrue(join.moveNext());
+        join.reset();
+        for (int i = 0; i < 2; i++) {
+            List<String> rows = new ArrayList<>();
+            while (join.moveNext()) {
+                rows.add(Arrays.toString((Object[]) join.current()));
+            }
+            Assert.assertEquals(Arrays.asList("[a, a, 1]", "[b, null, null]"), rows);
+            join.reset();
+        }
+        join.close();
+    }
+
+    @Test
+    public void testResidualFilter() throws SQLException {
+        String sql = "select hashKey, stringCol from " + testTableName
+                + " where hashKey = 'hashKey3' and char_length(stringCol) > 3 and stringCol <> sortKey";
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBFilter", "CHAR_LENGTH"));
+
+        DynamoDBMetrics.RequestMetrics metrics = DynamoDBMetrics.getRequestMetrics(testTableName, "Query");
+        metrics.reset();
+        checkSql("testModel", sql, "hashKey=hashKey3; stringCol=stringCol3");
+        Assert.assertEquals(1L, metrics.getItemsReturned());
+
+        // the key conditions left after the residual are read as point lookups.
+        sql = "select hashKey, sortKey from " + testTableName
+                + " where (hashKey = 'hashKey1' or hashKey = 'hashKey2') and (sortKey = 'sortKey1' or sortKey = 'sortKey2')"
+                + " and numberCol + 1 > 2";
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBFilter"));
+        checkSql("testModel", sql, "hashKey=hashKey2; sortKey=sortKey2");
+    }
+
+    @Test
+    public void testSortKeyRangeResidual() throws SQLException {
+        // DynamoDB takes one range of the sort key, the other one stays in the residual, and the hash key is queried.
+        String sql = "select hashKey, sortKey from " + testTableName
+                + " where hashKey = 'hashKey3' and sortKey > 'sortKey0' and sortKey < 'sortKey9'";
+        checkSql(EXPLAIN + sql, "testModel", planContains("DynamoDBFilter"));
+
+        DynamoDBMetrics.RequestMetrics metrics = DynamoDBMetrics.getRequestMetrics(testTableName, "Query");
+        metrics.reset();
+        checkSql("testModel", sql, "hashKey=hashKey3; sortKey=sortKey3");
+        Assert.assertEquals(1L, metrics.getRequestCount());
+    }
+
+    @Test
+    public void testResidualCast() throws SQLException {
+        // comparing the number attribute to the string would match nothing.
+        checkSql("testModel", "select hashKey from " + testTableName + " where cast(numberCol as varchar(5)) = '3'",
+                "hashKey=hashKey3");
+
+        // a cast truncating or padding a string compares another value than the attribute.
+        String sql = "select count(*) from " + testTableName + " where cast(cast(stringCol as varchar(10)) as varchar(3)) = 'str'";
+        checkSql(EXPLAIN + sql, "testModel", planDoesNotContain("DynamoDBFilter"));
+        sql = "select count(*) from " + testTableName + " where cast(stringCol as char(3)) = 'str'";
+        checkSql(EXPLAIN + sql, "testModel", planDoesNotContain("DynamoDBFilter"));
+    }
 }
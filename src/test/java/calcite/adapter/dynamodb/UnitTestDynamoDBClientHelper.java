@@ -20,8 +20,15 @@ public class UnitTestDynamoDBClientHelper {
      * run this method in the Before unit test method.
      **/
     public AmazonDynamoDBClient before() throws IOException {
+        return before("64m");
+    }
+
+    /**
+     * Starts local DynamoDB with the given maximum heap size, e.g. "2g" to hold larger tables.
+     */
+    public AmazonDynamoDBClient before(String maxHeapSize) throws IOException {
         ProcessBuilder pb = new ProcessBuilder("java",
-                "-Xmx64m",
+                "-Xmx" + maxHeapSize,
                 "-Djava.library.path=./dynamodb_local/DynamoDBLocal_lib",
                 "-jar", "dynamodb_local/DynamoDBLocal.jar",
                 "-inMemory",